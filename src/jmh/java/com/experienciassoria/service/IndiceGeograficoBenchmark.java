@@ -0,0 +1,73 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.dto.experiencia.ExperienciaCercanaDTO;
+import com.experienciassoria.dto.experiencia.ExperienciaDetailDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * k vecinos más cercanos de /api/experiencias/cerca sobre decenas de miles de puntos repartidos por la provincia
+ * de Soria (aprox. 41.0–42.2 N, 3.6–1.8 O). Cada llamada usa un centro distinto para no medir siempre las mismas celdas.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IndiceGeograficoBenchmark {
+
+    private static final int CENTROS = 1024;
+
+    @Param({"10000", "50000"})
+    private int experiencias;
+
+    @Param({"5", "25"})
+    private double radioKm;
+
+    private IndiceGeografico indice;
+    private double[] lats;
+    private double[] lngs;
+    private int siguiente;
+
+    @Setup
+    public void preparar() {
+        Random random = new Random(42);
+        List<ExperienciaDetailDTO> catalogo = new ArrayList<>(experiencias);
+        for (int i = 0; i < experiencias; i++) {
+            catalogo.add(new ExperienciaDetailDTO(UUID.randomUUID(), "Experiencia " + i, null, "MONUMENTO", null,
+                    List.of(), null, BigDecimal.valueOf(latAleatoria(random)), BigDecimal.valueOf(lngAleatoria(random)),
+                    10, true));
+        }
+        indice = new IndiceGeografico(0.05, new SimpleMeterRegistry());
+        indice.reconstruir(catalogo);
+
+        lats = new double[CENTROS];
+        lngs = new double[CENTROS];
+        for (int i = 0; i < CENTROS; i++) {
+            lats[i] = latAleatoria(random);
+            lngs[i] = lngAleatoria(random);
+        }
+    }
+
+    @Benchmark
+    public List<ExperienciaCercanaDTO> cercanas() {
+        int i = siguiente++ & (CENTROS - 1);
+        return indice.buscarCercanas(lats[i], lngs[i], radioKm, 20);
+    }
+
+    private static double latAleatoria(Random random) {
+        return 41.0 + random.nextDouble() * 1.2;
+    }
+
+    private static double lngAleatoria(Random random) {
+        return -3.6 + random.nextDouble() * 1.8;
+    }
+}
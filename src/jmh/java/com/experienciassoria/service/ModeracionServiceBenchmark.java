@@ -0,0 +1,105 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.model.TerminoModeracion;
+import com.experienciassoria.repository.TerminoModeracionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Moderación de un comentario con miles de términos en la lista: {@link ModeracionService#moderar} (Aho-Corasick,
+ * una pasada por el texto) frente a buscar cada término por separado con indexOf sobre el texto plegado.
+ * Los comentarios son frases en castellano con tildes y mayúsculas; uno de cada cuatro contiene un término.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ModeracionServiceBenchmark {
+
+    private static final int COMENTARIOS = 256;
+    private static final String[] PALABRAS = {
+            "la", "visita", "al", "castillo", "de", "Soria", "fue", "estupenda", "y", "el", "guía", "nos", "explicó",
+            "historia", "románica", "del", "monasterio", "merece", "pena", "subir", "mirador", "Duero", "aunque",
+            "había", "mucha", "gente", "por", "la", "mañana", "recomiendo", "ir", "pronto", "con", "niños", "también",
+            "Numancia", "es", "impresionante", "pero", "hacía", "frío", "volveremos", "en", "otoño", "¡qué", "bonito!"
+    };
+
+    @Param({"1000", "10000"})
+    private int terminos;
+
+    @Param({"80", "400", "2000"})
+    private int longitud;
+
+    private ModeracionService moderacion;
+    private List<String> lista;
+    private String[] comentarios;
+    private int siguiente;
+
+    @Setup
+    public void preparar() {
+        Random random = new Random(42);
+        List<TerminoModeracion> filas = new ArrayList<>(terminos);
+        lista = new ArrayList<>(terminos);
+        for (int i = 0; i < terminos; i++) {
+            String termino = palabraInventada(random);
+            lista.add(termino);
+            filas.add(TerminoModeracion.builder()
+                    .termino(termino)
+                    .accion(i % 10 == 0 ? TerminoModeracion.Accion.RETENER : TerminoModeracion.Accion.ENMASCARAR)
+                    .build());
+        }
+        TerminoModeracionRepository repositorio = mock(TerminoModeracionRepository.class);
+        when(repositorio.findAll()).thenReturn(filas);
+        moderacion = new ModeracionService(repositorio, new SimpleMeterRegistry());
+        moderacion.recargar();
+
+        comentarios = new String[COMENTARIOS];
+        for (int i = 0; i < COMENTARIOS; i++) {
+            StringBuilder texto = new StringBuilder(longitud + 16);
+            while (texto.length() < longitud) {
+                texto.append(PALABRAS[random.nextInt(PALABRAS.length)]).append(' ');
+            }
+            if (i % 4 == 0) {
+                texto.insert(texto.length() / 2, lista.get(random.nextInt(terminos)).toUpperCase() + " ");
+            }
+            comentarios[i] = texto.toString().trim();
+        }
+    }
+
+    @Benchmark
+    public ModeracionService.Resultado ahoCorasick() {
+        return moderacion.moderar(comentarios[siguiente++ & (COMENTARIOS - 1)]);
+    }
+
+    @Benchmark
+    public int porTermino() {
+        String plegado = ModeracionService.normalizarTermino(comentarios[siguiente++ & (COMENTARIOS - 1)]);
+        int coincidencias = 0;
+        for (String termino : lista) {
+            for (int i = plegado.indexOf(termino); i >= 0; i = plegado.indexOf(termino, i + 1)) {
+                coincidencias++;
+            }
+        }
+        return coincidencias;
+    }
+
+    // Palabras de 4 a 10 letras que no aparecen en los comentarios salvo cuando se insertan a propósito
+    private static String palabraInventada(Random random) {
+        int letras = 4 + random.nextInt(7);
+        StringBuilder palabra = new StringBuilder(letras);
+        for (int i = 0; i < letras; i++) {
+            palabra.append((char) ('a' + random.nextInt(26)));
+        }
+        return palabra.toString();
+    }
+}
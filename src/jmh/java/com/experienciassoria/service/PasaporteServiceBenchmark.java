@@ -0,0 +1,165 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.ExperienciasSoriaApplication;
+import com.experienciassoria.dto.experiencia.CrearExperienciaRequest;
+import com.experienciassoria.dto.pasaporte.RegistroRequest;
+import com.experienciassoria.exception.DuplicateResourceException;
+import com.experienciassoria.exception.ResourceNotFoundException;
+import com.experienciassoria.model.Experiencia;
+import com.experienciassoria.model.ExperienciaUID;
+import com.experienciassoria.model.RegistroExperiencia;
+import com.experienciassoria.model.Usuario;
+import com.experienciassoria.repository.ExperienciaUIDRepository;
+import com.experienciassoria.repository.RegistroExperienciaRepository;
+import com.experienciassoria.repository.UsuarioRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registros de escaneos por segundo con 8 hilos sobre la BD de los tests (H2 en modo MySQL):
+ * {@link PasaporteService#registrarExperiencia} (UPDATE atómico de puntos y restricción única) frente al registro
+ * anterior, que bloqueaba al usuario con PESSIMISTIC_WRITE durante toda la transacción.
+ * Con {@code grupo = 1} todos los hilos registran a la vez para el mismo usuario; con {@code grupo = 64} se reparten
+ * entre 64 usuarios. Cada registro es un par usuario-experiencia nuevo; entre iteraciones se vacían los registros.
+ * H2 no bloquea igual que InnoDB: sirve para comparar las dos versiones, no como cifra absoluta de producción.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class PasaporteServiceBenchmark {
+
+    private static final int USUARIOS = 4096;
+    private static final int EXPERIENCIAS = 25;
+
+    @Param({"1", "64"})
+    private int grupo;
+
+    private ConfigurableApplicationContext contexto;
+    private PasaporteService pasaporteService;
+    private EntityManager entityManager;
+    private TransactionTemplate transacciones;
+    private UsuarioRepository usuarioRepo;
+    private ExperienciaUIDRepository experienciaUIDRepo;
+    private RegistroExperienciaRepository registroRepo;
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<UUID> usuarios = new ArrayList<>(USUARIOS);
+    private final List<String> uids = new ArrayList<>(EXPERIENCIAS);
+    private final AtomicInteger siguiente = new AtomicInteger();
+
+    @Setup
+    public void preparar() {
+        contexto = new SpringApplicationBuilder(ExperienciasSoriaApplication.class)
+                .profiles("test")
+                .properties("server.port=0", "logging.level.root=WARN")
+                .run();
+        pasaporteService = contexto.getBean(PasaporteService.class);
+        entityManager = contexto.getBean(EntityManager.class);
+        transacciones = new TransactionTemplate(contexto.getBean(PlatformTransactionManager.class));
+        usuarioRepo = contexto.getBean(UsuarioRepository.class);
+        experienciaUIDRepo = contexto.getBean(ExperienciaUIDRepository.class);
+        registroRepo = contexto.getBean(RegistroExperienciaRepository.class);
+        jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+
+        List<Usuario> nuevos = new ArrayList<>(USUARIOS);
+        for (int i = 0; i < USUARIOS; i++) {
+            nuevos.add(Usuario.builder()
+                    .nombre("Usuario " + i)
+                    .email("usuario" + i + "@bench.com")
+                    .passwordHash("x")
+                    .role(Usuario.Rol.USER)
+                    .build());
+        }
+        usuarioRepo.saveAll(nuevos).forEach(usuario -> usuarios.add(usuario.getId()));
+
+        ExperienciaService experienciaService = contexto.getBean(ExperienciaService.class);
+        ExperienciaUIDService experienciaUIDService = contexto.getBean(ExperienciaUIDService.class);
+        for (int i = 0; i < EXPERIENCIAS; i++) {
+            CrearExperienciaRequest request = new CrearExperienciaRequest();
+            request.setTitulo("Experiencia " + i);
+            request.setCategoria("MONUMENTO");
+            request.setPuntosOtorgados(10);
+            UUID experienciaId = experienciaService.crearExperiencia(request).getId();
+            uids.add(experienciaUIDService.generarUids(experienciaId, 1).getUids().get(0));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void vaciar() {
+        jdbcTemplate.update("DELETE FROM registro_experiencia");
+        jdbcTemplate.update("UPDATE usuarios SET puntos = 0");
+        siguiente.set(0);
+    }
+
+    @TearDown
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Object atomico() {
+        int i = siguiente.getAndIncrement();
+        RegistroRequest request = new RegistroRequest();
+        request.setUidScaneado(uid(i));
+        return pasaporteService.registrarExperiencia(usuario(i), request);
+    }
+
+    @Benchmark
+    public Object conBloqueo() {
+        int i = siguiente.getAndIncrement();
+        return registrarConBloqueo(usuario(i), uid(i));
+    }
+
+    // Los hilos toman pares consecutivos: el mismo usuario va con todas las experiencias antes de pasar al siguiente grupo
+    private UUID usuario(int i) {
+        int bloque = i / (grupo * EXPERIENCIAS);
+        return usuarios.get((bloque * grupo + i % grupo) % USUARIOS);
+    }
+
+    private String uid(int i) {
+        return uids.get((i / grupo) % EXPERIENCIAS);
+    }
+
+    // El registro anterior: bloqueo pesimista del usuario, UID y duplicado consultados en la BD y suma de puntos en Java
+    private RegistroExperiencia registrarConBloqueo(UUID usuarioId, String uidScaneado) {
+        return transacciones.execute(estado -> {
+            Usuario usuario = entityManager.find(Usuario.class, usuarioId, LockModeType.PESSIMISTIC_WRITE);
+            ExperienciaUID experienciaUID = experienciaUIDRepo.findByUidAndActivoTrue(uidScaneado)
+                    .orElseThrow(() -> new ResourceNotFoundException("UID inválido o no activo"));
+            Experiencia experiencia = experienciaUID.getExperiencia();
+            if (registroRepo.existsByUsuario_IdAndExperiencia_Id(usuarioId, experiencia.getId())) {
+                throw new DuplicateResourceException("La experiencia ya fue registrada por este usuario");
+            }
+            int puntosOtorgados = experiencia.getPuntosOtorgados() != null ? experiencia.getPuntosOtorgados() : 10;
+            RegistroExperiencia registro = RegistroExperiencia.builder()
+                    .usuario(usuario)
+                    .experiencia(experiencia)
+                    .experienciaUID(experienciaUID)
+                    .imgPortada(experiencia.getImagenPortadaUrl())
+                    .fechaRegistro(Instant.now())
+                    .puntosOtorgados(puntosOtorgados)
+                    .build();
+            registroRepo.save(registro);
+            usuario.setPuntos(usuario.getPuntos() + puntosOtorgados);
+            usuarioRepo.save(usuario);
+            return registro;
+        });
+    }
+}
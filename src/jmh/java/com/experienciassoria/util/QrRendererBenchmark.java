@@ -0,0 +1,69 @@
+package com.experienciassoria.util;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renderizado de un QR de 300x300 (corrección H, margen 1): el renderizador anterior, que pintaba cada píxel
+ * negro con Graphics2D.fillRect sobre una imagen RGB, frente a {@link QrRenderer}, que escribe filas de bits
+ * empaquetados en un raster de 1 bit. Ambos incluyen la codificación del QR y del PNG.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QrRendererBenchmark {
+
+    private static final int TAMANO = 300;
+    private static final String UID = "K7M2XQ9PRT4WZ8HN";
+
+    private final QrRenderer renderer = new QrRenderer(TAMANO, 1, ErrorCorrectionLevel.H);
+
+    @Benchmark
+    public byte[] anterior() throws WriterException, IOException {
+        Map<EncodeHintType, Object> hints = new HashMap<>();
+        hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.H);
+        hints.put(EncodeHintType.CHARACTER_SET, "UTF-8");
+        hints.put(EncodeHintType.MARGIN, 1);
+        BitMatrix bitMatrix = new QRCodeWriter().encode(UID, BarcodeFormat.QR_CODE, TAMANO, TAMANO, hints);
+
+        BufferedImage qrImage = new BufferedImage(TAMANO, TAMANO, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = qrImage.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, TAMANO, TAMANO);
+        graphics.setColor(Color.BLACK);
+        for (int x = 0; x < TAMANO; x++) {
+            for (int y = 0; y < TAMANO; y++) {
+                if (bitMatrix.get(x, y)) {
+                    graphics.fillRect(x, y, 1, 1);
+                }
+            }
+        }
+        graphics.dispose();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(qrImage, "PNG", out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] raster() throws WriterException, IOException {
+        return renderer.png(UID);
+    }
+}
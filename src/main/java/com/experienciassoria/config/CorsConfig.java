@@ -28,13 +28,13 @@ public class CorsConfig {
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
         
         // Headers permitidos
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With", "Idempotency-Key"));
         
         // Credenciales permitidas
         configuration.setAllowCredentials(true);
         
         // Headers expuestos
-        configuration.setExposedHeaders(Arrays.asList("Authorization"));
+        configuration.setExposedHeaders(Arrays.asList("Authorization", "Retry-After", "X-Next-Cursor", "Idempotent-Replayed"));
         
         // Tiempo de cache para preflight
         configuration.setMaxAge(3600L);
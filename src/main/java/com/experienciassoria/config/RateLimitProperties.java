@@ -0,0 +1,45 @@
+package com.experienciassoria.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Tiempo sin peticiones tras el cual se descarta un bucket
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    // Número de particiones con lock propio (se redondea a potencia de 2)
+    private int stripes = 64;
+
+    private List<Policy> policies = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Policy {
+        private String name;
+        private String method;
+        private String path;
+        private Key key = Key.IP;
+        private int capacity;
+        private double refillPerSecond;
+    }
+
+    public enum Key {
+        // Por IP del cliente
+        IP,
+        // Por usuario autenticado (si no hay token válido se usa la IP)
+        USUARIO
+    }
+}
@@ -1,24 +1,21 @@
 package com.experienciassoria.controller;
 
 import com.experienciassoria.dto.auth.*;
-import com.experienciassoria.security.JwtUtils;
+import com.experienciassoria.security.UsuarioPrincipal;
 import com.experienciassoria.service.AuthService;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import jakarta.servlet.http.HttpServletRequest;
-
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
 
     private final AuthService authService;
-    private final JwtUtils jwtUtils;
 
-    public AuthController(AuthService authService, JwtUtils jwtUtils) {
+    public AuthController(AuthService authService) {
         this.authService = authService;
-        this.jwtUtils = jwtUtils;
     }
 
     @PostMapping("/register")
@@ -32,18 +29,14 @@ public class AuthController {
     }
 
     @GetMapping("/me")
-    public ResponseEntity<UsuarioDto> getMe(HttpServletRequest request) {
-        String token = jwtUtils.extractTokenFromRequest(request);
-        String email = jwtUtils.getEmailFromToken(token);
-        return ResponseEntity.ok(authService.getMe(email));
+    public ResponseEntity<UsuarioDto> getMe(@AuthenticationPrincipal UsuarioPrincipal usuario) {
+        return ResponseEntity.ok(authService.getMe(usuario.getId()));
     }
 
     @PutMapping("/me/foto-perfil")
     public ResponseEntity<UsuarioDto> actualizarFotoPerfil(
             @Valid @RequestBody ActualizarFotoPerfilRequest request,
-            HttpServletRequest httpRequest) {
-        String token = jwtUtils.extractTokenFromRequest(httpRequest);
-        String email = jwtUtils.getEmailFromToken(token);
-        return ResponseEntity.ok(authService.actualizarFotoPerfil(email, request.getFotoPerfilUrl()));
+            @AuthenticationPrincipal UsuarioPrincipal usuario) {
+        return ResponseEntity.ok(authService.actualizarFotoPerfil(usuario.getId(), request.getFotoPerfilUrl()));
     }
 }
@@ -1,11 +1,13 @@
 package com.experienciassoria.controller;
 
 import com.experienciassoria.dto.comentario.*;
-import com.experienciassoria.security.JwtUtils;
+import com.experienciassoria.security.UsuarioPrincipal;
 import com.experienciassoria.service.ComentarioService;
-import jakarta.servlet.http.HttpServletRequest;
+import com.experienciassoria.service.IdempotenciaStore;
+import com.experienciassoria.util.PaginaCursor;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -16,31 +18,44 @@ import java.util.UUID;
 public class ComentarioController {
 
     private final ComentarioService comentarioService;
-    private final JwtUtils jwtUtils;
+    private final IdempotenciaStore idempotenciaStore;
 
-    public ComentarioController(ComentarioService comentarioService, JwtUtils jwtUtils) {
+    public ComentarioController(ComentarioService comentarioService, IdempotenciaStore idempotenciaStore) {
         this.comentarioService = comentarioService;
-        this.jwtUtils = jwtUtils;
+        this.idempotenciaStore = idempotenciaStore;
     }
 
-    // 🔹 GET /api/experiencias/{id}/comentarios — obtener comentarios
+    // 🔹 GET /api/experiencias/{id}/comentarios — obtener comentarios, paginados por cursor
+    // El cursor de la página siguiente se devuelve en la cabecera X-Next-Cursor
     @GetMapping
-    public ResponseEntity<List<ComentarioDTO>> getComentarios(@PathVariable UUID experienciaId) {
-        return ResponseEntity.ok(comentarioService.getComentariosByExperiencia(experienciaId));
+    public ResponseEntity<List<ComentarioDTO>> getComentarios(
+            @PathVariable UUID experienciaId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        PaginaCursor<ComentarioDTO> pagina = comentarioService.getComentariosByExperiencia(experienciaId, cursor, limit);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (pagina.getSiguienteCursor() != null) {
+            response.header(PaginaCursor.HEADER_SIGUIENTE, pagina.getSiguienteCursor());
+        }
+        return response.body(pagina.getItems());
     }
 
     // 🔹 POST /api/experiencias/{id}/comentarios — crear comentario (usuario autenticado)
+    // Con cabecera Idempotency-Key, un reintento devuelve el comentario ya creado en lugar de duplicarlo
     @PostMapping
     public ResponseEntity<ComentarioDTO> crearComentario(
             @PathVariable UUID experienciaId,
             @Valid @RequestBody CrearComentarioRequest request,
-            HttpServletRequest httpRequest
+            @AuthenticationPrincipal UsuarioPrincipal usuario,
+            @RequestHeader(value = IdempotenciaStore.HEADER, required = false) String idempotencyKey
     ) {
-        String token = jwtUtils.extractTokenFromRequest(httpRequest);
-        String email = jwtUtils.getEmailFromToken(token);
-        UUID usuarioId = comentarioService.getUsuarioIdByEmail(email); // lo añadimos como helper
-
-        ComentarioDTO nuevo = comentarioService.crearComentario(usuarioId, experienciaId, request);
-        return ResponseEntity.ok(nuevo);
+        IdempotenciaStore.Resultado<ComentarioDTO> nuevo = idempotenciaStore.ejecutar(
+                usuario.getId(), "comentario", idempotencyKey,
+                IdempotenciaStore.huella(experienciaId, request.getTexto()),
+                () -> comentarioService.crearComentario(usuario.getId(), experienciaId, request));
+        return ResponseEntity.ok()
+                .header(IdempotenciaStore.HEADER_REPETIDA, String.valueOf(nuevo.repetida()))
+                .body(nuevo.valor());
     }
 }
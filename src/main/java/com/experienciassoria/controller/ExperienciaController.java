@@ -1,18 +1,29 @@
 package com.experienciassoria.controller;
 
 import com.experienciassoria.dto.experiencia.*;
+import com.experienciassoria.model.Usuario;
+import com.experienciassoria.security.UsuarioPrincipal;
 import com.experienciassoria.service.ExperienciaService;
 import com.experienciassoria.service.ExperienciaUIDService;
 import com.experienciassoria.service.QrCodeService;
+import com.experienciassoria.util.PaginaCursor;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/experiencias")
@@ -30,14 +41,45 @@ public class ExperienciaController {
         this.qrCodeService = qrCodeService;
     }
 
-    // 🔹 GET /api/experiencias — todas las experiencias (visibles para público, todas para ADMIN)
+    // 🔹 GET /api/experiencias — catálogo paginado por cursor (visibles para público, todas para ADMIN)
+    // El cursor de la página siguiente se devuelve en la cabecera X-Next-Cursor
     @GetMapping
-    public ResponseEntity<List<ExperienciaListDTO>> getAllExperiencias() {
-        // Si el usuario es ADMIN, devolver todas las experiencias (visibles y no visibles)
-        // Si no es ADMIN, devolver solo las visibles
-        // Por ahora, siempre devolvemos todas para el admin panel
-        // TODO: Verificar rol del usuario autenticado
-        return ResponseEntity.ok(experienciaService.getAllExperienciasAdmin());
+    public ResponseEntity<List<ExperienciaListDTO>> getAllExperiencias(
+            @RequestParam(required = false) String categoria,
+            @RequestParam(required = false) Boolean visible,
+            @RequestParam(defaultValue = "titulo") String orden,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @AuthenticationPrincipal UsuarioPrincipal usuario) {
+        // Solo ADMIN puede ver (o filtrar por) experiencias no visibles
+        boolean esAdmin = usuario != null && usuario.getRole() == Usuario.Rol.ADMIN;
+        PaginaCursor<ExperienciaListDTO> pagina = experienciaService.getCatalogo(
+                categoria, esAdmin ? visible : Boolean.TRUE, OrdenCatalogo.from(orden), cursor, limit);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (pagina.getSiguienteCursor() != null) {
+            response.header(PaginaCursor.HEADER_SIGUIENTE, pagina.getSiguienteCursor());
+        }
+        return response.body(pagina.getItems());
+    }
+
+    // 🔹 GET /api/experiencias/cerca — experiencias visibles más cercanas (radio en km)
+    @GetMapping("/cerca")
+    public ResponseEntity<List<ExperienciaCercanaDTO>> getCercanas(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "10") double radio,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(experienciaService.getCercanas(lat, lng, radio, limit));
+    }
+
+    // 🔹 GET /api/experiencias/buscar?q= — búsqueda por texto con facetas por categoría
+    @GetMapping("/buscar")
+    public ResponseEntity<ResultadoBusquedaDTO> buscar(
+            @RequestParam String q,
+            @RequestParam(required = false) String categoria,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(experienciaService.buscar(q, categoria, limit));
     }
 
     // 🔹 GET /api/experiencias/{id} — detalle
@@ -90,7 +132,38 @@ public class ExperienciaController {
         return ResponseEntity.ok(experienciaUIDService.generarUids(id, cantidad));
     }
 
-    // 🔹 GET /api/experiencias/uids/{uidId}/qr — generar QR code de un UID (solo ADMIN)
+    // 🔹 GET /api/experiencias/{id}/uids/qr-sheet — ZIP con el QR (PNG) de cada UID activo (solo ADMIN)
+    // Se genera en streaming: el archivo nunca está completo en memoria
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/{id}/uids/qr-sheet")
+    public ResponseEntity<StreamingResponseBody> exportarQrs(@PathVariable UUID id) {
+        experienciaService.verificarExiste(id);
+        StreamingResponseBody body = out -> qrCodeService.exportarZip(id, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"qr-" + id + ".zip\"")
+                .body(body);
+    }
+
+    // 🔹 GET /api/experiencias/uids/{uidId}/qr.png — QR de un UID como imagen PNG (solo ADMIN)
+    // El QR de un UID no cambia nunca: ETag fuerte, caché larga y 304 si el cliente ya lo tiene
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/uids/{uidId}/qr.png")
+    public ResponseEntity<byte[]> getQrPng(@PathVariable UUID uidId, WebRequest request) {
+        QrImagenDTO qr = qrCodeService.getQrPng(uidId);
+        CacheControl cacheControl = CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable();
+        // If-None-Match con listas, "*" y validadores débiles W/"..." (comparación débil, RFC 9110); pone el ETag en la respuesta
+        if (request.checkNotModified(qr.getEtag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_PNG)
+                .eTag(qr.getEtag())
+                .cacheControl(cacheControl)
+                .body(qr.getPng());
+    }
+
+    // 🔹 GET /api/experiencias/uids/{uidId}/qr — generar QR code de un UID en base64 (solo ADMIN)
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/uids/{uidId}/qr")
     public ResponseEntity<Map<String, String>> generarQrCode(@PathVariable UUID uidId) {
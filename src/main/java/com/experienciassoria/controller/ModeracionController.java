@@ -0,0 +1,72 @@
+package com.experienciassoria.controller;
+
+import com.experienciassoria.dto.comentario.ComentarioDTO;
+import com.experienciassoria.dto.comentario.ComentarioRetenidoDTO;
+import com.experienciassoria.dto.comentario.TerminosModeracionDTO;
+import com.experienciassoria.service.ComentarioService;
+import com.experienciassoria.service.ModeracionService;
+import com.experienciassoria.util.PaginaCursor;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/admin/moderacion")
+public class ModeracionController {
+
+    private final ModeracionService moderacionService;
+    private final ComentarioService comentarioService;
+
+    public ModeracionController(ModeracionService moderacionService, ComentarioService comentarioService) {
+        this.moderacionService = moderacionService;
+        this.comentarioService = comentarioService;
+    }
+
+    // 🔹 GET /api/admin/moderacion/terminos — lista de términos a enmascarar y a retener
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/terminos")
+    public ResponseEntity<TerminosModeracionDTO> getTerminos() {
+        return ResponseEntity.ok(moderacionService.getTerminos());
+    }
+
+    // 🔹 PUT /api/admin/moderacion/terminos — sustituir la lista completa
+    @PreAuthorize("hasRole('ADMIN')")
+    @PutMapping("/terminos")
+    public ResponseEntity<TerminosModeracionDTO> reemplazarTerminos(@Valid @RequestBody TerminosModeracionDTO request) {
+        return ResponseEntity.ok(moderacionService.reemplazarTerminos(request));
+    }
+
+    // 🔹 GET /api/admin/moderacion/comentarios — comentarios retenidos pendientes de revisión (paginados por cursor)
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/comentarios")
+    public ResponseEntity<List<ComentarioRetenidoDTO>> getComentariosRetenidos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        PaginaCursor<ComentarioRetenidoDTO> pagina = comentarioService.getComentariosRetenidos(cursor, limit);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (pagina.getSiguienteCursor() != null) {
+            response.header(PaginaCursor.HEADER_SIGUIENTE, pagina.getSiguienteCursor());
+        }
+        return response.body(pagina.getItems());
+    }
+
+    // 🔹 POST /api/admin/moderacion/comentarios/{id}/aprobar — publicar un comentario retenido
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/comentarios/{id}/aprobar")
+    public ResponseEntity<ComentarioDTO> aprobarComentario(@PathVariable UUID id) {
+        return ResponseEntity.ok(comentarioService.aprobarComentario(id));
+    }
+
+    // 🔹 DELETE /api/admin/moderacion/comentarios/{id} — descartar un comentario retenido
+    @PreAuthorize("hasRole('ADMIN')")
+    @DeleteMapping("/comentarios/{id}")
+    public ResponseEntity<Void> rechazarComentario(@PathVariable UUID id) {
+        comentarioService.rechazarComentario(id);
+        return ResponseEntity.noContent().build();
+    }
+}
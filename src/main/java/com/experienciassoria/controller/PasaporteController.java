@@ -1,54 +1,84 @@
 package com.experienciassoria.controller;
 
 import com.experienciassoria.dto.pasaporte.*;
-import com.experienciassoria.exception.ValidationException;
-import com.experienciassoria.security.JwtUtils;
+import com.experienciassoria.security.UsuarioPrincipal;
+import com.experienciassoria.service.IdempotenciaStore;
 import com.experienciassoria.service.PasaporteService;
-import jakarta.servlet.http.HttpServletRequest;
+import com.experienciassoria.util.PaginaCursor;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.UUID;
-
 @RestController
 @RequestMapping("/api/pasaporte")
 public class PasaporteController {
 
     private final PasaporteService pasaporteService;
-    private final JwtUtils jwtUtils;
+    private final IdempotenciaStore idempotenciaStore;
 
-    public PasaporteController(PasaporteService pasaporteService, JwtUtils jwtUtils) {
+    public PasaporteController(PasaporteService pasaporteService, IdempotenciaStore idempotenciaStore) {
         this.pasaporteService = pasaporteService;
-        this.jwtUtils = jwtUtils;
+        this.idempotenciaStore = idempotenciaStore;
     }
 
-    // 🔹 GET /api/pasaporte — devuelve el pasaporte del usuario autenticado
+    // 🔹 GET /api/pasaporte — devuelve el pasaporte del usuario autenticado, con los registros paginados por cursor
+    // El cursor de la página siguiente va en el campo siguienteCursor y en la cabecera X-Next-Cursor
     @GetMapping
-    public ResponseEntity<PasaporteDTO> getPasaporte(HttpServletRequest request) {
-        String token = jwtUtils.extractTokenFromRequest(request);
-        String email = jwtUtils.getEmailFromToken(token);
+    public ResponseEntity<PasaporteDTO> getPasaporte(
+            @AuthenticationPrincipal UsuarioPrincipal usuario,
+            @RequestParam(required = false) String categoria,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        PasaporteDTO pasaporte = pasaporteService.getPasaporte(usuario.getId(), categoria, cursor, limit);
 
-        UUID usuarioId = pasaporteService
-                .getUsuarioIdByEmail(email); // lo implementaremos abajo (helper pequeño)
-        PasaporteDTO pasaporte = pasaporteService.getPasaporte(usuarioId);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (pasaporte.getSiguienteCursor() != null) {
+            response.header(PaginaCursor.HEADER_SIGUIENTE, pasaporte.getSiguienteCursor());
+        }
+        return response.body(pasaporte);
+    }
 
-        return ResponseEntity.ok(pasaporte);
+    // 🔹 GET /api/pasaporte/resumen — progreso del pasaporte por categoría (pantalla de inicio)
+    @GetMapping("/resumen")
+    public ResponseEntity<ResumenPasaporteDTO> getResumen(@AuthenticationPrincipal UsuarioPrincipal usuario) {
+        return ResponseEntity.ok(pasaporteService.getResumen(usuario.getId()));
     }
 
     // 🔹 POST /api/pasaporte/registrar — registrar una nueva experiencia
+    // Con cabecera Idempotency-Key, un reintento devuelve la respuesta original sin volver a registrar
     @PostMapping("/registrar")
     public ResponseEntity<RegistroExperienciaDTO> registrarExperiencia(
-            HttpServletRequest request,
-            @Valid @RequestBody RegistroRequest registroRequest
+            @AuthenticationPrincipal UsuarioPrincipal usuario,
+            @Valid @RequestBody RegistroRequest registroRequest,
+            @RequestHeader(value = IdempotenciaStore.HEADER, required = false) String idempotencyKey
     ) {
-        String token = jwtUtils.extractTokenFromRequest(request);
-        String email = jwtUtils.getEmailFromToken(token);
+        IdempotenciaStore.Resultado<RegistroExperienciaDTO> registro = idempotenciaStore.ejecutar(
+                usuario.getId(), "registrar", idempotencyKey,
+                IdempotenciaStore.huella(registroRequest.getUidScaneado(), registroRequest.getOpinion()),
+                () -> pasaporteService.registrarExperiencia(usuario.getId(), registroRequest));
 
-        UUID usuarioId = pasaporteService
-                .getUsuarioIdByEmail(email);
-        RegistroExperienciaDTO registro = pasaporteService.registrarExperiencia(usuarioId, registroRequest);
+        return ResponseEntity.ok()
+                .header(IdempotenciaStore.HEADER_REPETIDA, String.valueOf(registro.repetida()))
+                .body(registro.valor());
+    }
+
+    // 🔹 POST /api/pasaporte/registrar/lote — sincronizar escaneos hechos sin conexión
+    @PostMapping("/registrar/lote")
+    public ResponseEntity<RegistroLoteResponse> registrarLote(
+            @AuthenticationPrincipal UsuarioPrincipal usuario,
+            @Valid @RequestBody RegistroLoteRequest request,
+            @RequestHeader(value = IdempotenciaStore.HEADER, required = false) String idempotencyKey
+    ) {
+        Object[] escaneos = request.getEscaneos().stream()
+                .map(e -> new Object[]{e.getUidScaneado(), e.getOpinion(), e.getScannedAt()})
+                .toArray();
+        IdempotenciaStore.Resultado<RegistroLoteResponse> lote = idempotenciaStore.ejecutar(
+                usuario.getId(), "registrar-lote", idempotencyKey, IdempotenciaStore.huella(escaneos),
+                () -> pasaporteService.registrarLote(usuario.getId(), request));
 
-        return ResponseEntity.ok(registro);
+        return ResponseEntity.ok()
+                .header(IdempotenciaStore.HEADER_REPETIDA, String.valueOf(lote.repetida()))
+                .body(lote.valor());
     }
 }
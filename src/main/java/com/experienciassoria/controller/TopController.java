@@ -1,11 +1,19 @@
 package com.experienciassoria.controller;
 
+import com.experienciassoria.dto.top.PioneroDTO;
+import com.experienciassoria.dto.top.PosicionRankingDTO;
 import com.experienciassoria.dto.top.UsuarioRankingDTO;
+import com.experienciassoria.dto.top.VisitasRankingDTO;
+import com.experienciassoria.security.UsuarioPrincipal;
 import com.experienciassoria.service.TopService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/top")
@@ -17,9 +25,40 @@ public class TopController {
         this.topService = topService;
     }
 
-    // 🔹 GET /api/top — obtener top de usuarios
+    // 🔹 GET /api/top — obtener top de usuarios (total o de la semana, el mes o la temporada)
     @GetMapping
-    public ResponseEntity<List<UsuarioRankingDTO>> getTopUsuarios() {
-        return ResponseEntity.ok(topService.getTopUsuarios());
+    public ResponseEntity<List<UsuarioRankingDTO>> getTopUsuarios(
+            @RequestParam(required = false) String periodo,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(topService.getTopUsuarios(periodo, limit));
+    }
+
+    // 🔹 GET /api/top/stream — directo (Server-Sent Events) del top y de los registros recientes
+    // Eventos: "top" (clasificación completa), "top-diff" (filas cambiadas) y "actividad"
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return topService.abrirStream();
+    }
+
+    // 🔹 GET /api/top/me — posición del usuario autenticado y sus vecinos en la clasificación
+    @GetMapping("/me")
+    public ResponseEntity<PosicionRankingDTO> getMiPosicion(
+            @AuthenticationPrincipal UsuarioPrincipal usuario,
+            @RequestParam(defaultValue = "2") int vecinos) {
+        return ResponseEntity.ok(topService.getPosicion(usuario.getId(), vecinos));
+    }
+
+    // 🔹 GET /api/top/categorias/{categoria} — usuarios con más experiencias visitadas de una categoría
+    @GetMapping("/categorias/{categoria}")
+    public ResponseEntity<List<VisitasRankingDTO>> getTopCategoria(
+            @PathVariable String categoria,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(topService.getTopCategoria(categoria, limit));
+    }
+
+    // 🔹 GET /api/top/experiencias/{id}/pioneros — primeros visitantes de una experiencia
+    @GetMapping("/experiencias/{id}/pioneros")
+    public ResponseEntity<List<PioneroDTO>> getPioneros(@PathVariable UUID id) {
+        return ResponseEntity.ok(topService.getPioneros(id));
     }
 }
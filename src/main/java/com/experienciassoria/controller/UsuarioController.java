@@ -5,6 +5,7 @@ import com.experienciassoria.dto.comentario.ComentarioDTO;
 import com.experienciassoria.dto.pasaporte.PasaporteDTO;
 import com.experienciassoria.dto.pasaporte.RegistroExperienciaDTO;
 import com.experienciassoria.service.UsuarioService;
+import com.experienciassoria.util.PaginaCursor;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -57,22 +58,51 @@ public class UsuarioController {
     // 🔹 GET /api/admin/usuarios/{id}/pasaporte — ver pasaporte del usuario
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/{id}/pasaporte")
-    public ResponseEntity<PasaporteDTO> getPasaporteUsuario(@PathVariable UUID id) {
-        return ResponseEntity.ok(usuarioService.getPasaporteUsuario(id));
+    public ResponseEntity<PasaporteDTO> getPasaporteUsuario(
+            @PathVariable UUID id,
+            @RequestParam(required = false) String categoria,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        PasaporteDTO pasaporte = usuarioService.getPasaporteUsuario(id, categoria, cursor, limit);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (pasaporte.getSiguienteCursor() != null) {
+            response.header(PaginaCursor.HEADER_SIGUIENTE, pasaporte.getSiguienteCursor());
+        }
+        return response.body(pasaporte);
     }
 
     // 🔹 GET /api/admin/usuarios/{id}/experiencias — ver experiencias registradas
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/{id}/experiencias")
-    public ResponseEntity<List<RegistroExperienciaDTO>> getExperienciasUsuario(@PathVariable UUID id) {
-        return ResponseEntity.ok(usuarioService.getExperienciasUsuario(id));
+    public ResponseEntity<List<RegistroExperienciaDTO>> getExperienciasUsuario(
+            @PathVariable UUID id,
+            @RequestParam(required = false) String categoria,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        PaginaCursor<RegistroExperienciaDTO> pagina = usuarioService.getExperienciasUsuario(id, categoria, cursor, limit);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (pagina.getSiguienteCursor() != null) {
+            response.header(PaginaCursor.HEADER_SIGUIENTE, pagina.getSiguienteCursor());
+        }
+        return response.body(pagina.getItems());
     }
 
-    // 🔹 GET /api/admin/usuarios/{id}/comentarios — ver comentarios del usuario
+    // 🔹 GET /api/admin/usuarios/{id}/comentarios — ver comentarios del usuario (paginados por cursor)
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/{id}/comentarios")
-    public ResponseEntity<List<ComentarioDTO>> getComentariosUsuario(@PathVariable UUID id) {
-        return ResponseEntity.ok(usuarioService.getComentariosUsuario(id));
+    public ResponseEntity<List<ComentarioDTO>> getComentariosUsuario(
+            @PathVariable UUID id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        PaginaCursor<ComentarioDTO> pagina = usuarioService.getComentariosUsuario(id, cursor, limit);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (pagina.getSiguienteCursor() != null) {
+            response.header(PaginaCursor.HEADER_SIGUIENTE, pagina.getSiguienteCursor());
+        }
+        return response.body(pagina.getItems());
     }
 }
 
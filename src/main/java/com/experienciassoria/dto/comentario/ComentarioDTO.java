@@ -13,4 +13,10 @@ public class ComentarioDTO {
     private String autorNombre;
     private String texto;
     private Instant fecha;
+    private boolean retenido;
+
+    // Constructor para proyecciones JPQL de comentarios publicados
+    public ComentarioDTO(UUID id, String autorNombre, String texto, Instant fecha) {
+        this(id, autorNombre, texto, fecha, false);
+    }
 }
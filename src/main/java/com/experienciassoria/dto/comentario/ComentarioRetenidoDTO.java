@@ -0,0 +1,18 @@
+package com.experienciassoria.dto.comentario;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Getter
+@AllArgsConstructor
+public class ComentarioRetenidoDTO {
+    private UUID id;
+    private String autorNombre;
+    private UUID experienciaId;
+    private String experienciaTitulo;
+    private String texto;
+    private Instant fecha;
+}
@@ -0,0 +1,28 @@
+package com.experienciassoria.dto.comentario;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Lista completa de términos de moderación (se lee y se sustituye entera).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TerminosModeracionDTO {
+    @NotNull(message = "La lista de términos a enmascarar es requerida")
+    @Size(max = 20000, message = "Como mucho 20000 términos a enmascarar")
+    private List<@NotBlank @Size(max = 100, message = "Un término no puede exceder 100 caracteres") String> enmascarar;
+
+    @NotNull(message = "La lista de términos a retener es requerida")
+    @Size(max = 20000, message = "Como mucho 20000 términos a retener")
+    private List<@NotBlank @Size(max = 100, message = "Un término no puede exceder 100 caracteres") String> retener;
+}
@@ -0,0 +1,20 @@
+package com.experienciassoria.dto.experiencia;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Getter
+@AllArgsConstructor
+public class ExperienciaCercanaDTO {
+    private UUID id;
+    private String titulo;
+    private String categoria;
+    private String imagenPortadaUrl;
+    private BigDecimal ubicacionLat;
+    private BigDecimal ubicacionLng;
+    private int puntosOtorgados;
+    private int distanciaMetros;
+}
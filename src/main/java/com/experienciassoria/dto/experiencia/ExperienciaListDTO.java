@@ -1,9 +1,11 @@
 package com.experienciassoria.dto.experiencia;
 
+import com.experienciassoria.model.Experiencia;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.UUID;
 
 @Getter
@@ -16,4 +18,27 @@ public class ExperienciaListDTO {
     private BigDecimal ubicacionLat;
     private BigDecimal ubicacionLng;
     private boolean visible;
+    private int puntosOtorgados;
+    // Contadores de la experiencia (de memoria, ver EstadisticasExperiencias)
+    private long visitas;
+    private long comentarios;
+    private Instant ultimaVisita;
+
+    public ExperienciaListDTO(UUID id, String titulo, String categoria, String imagenPortadaUrl,
+                              BigDecimal ubicacionLat, BigDecimal ubicacionLng, boolean visible, int puntosOtorgados) {
+        this(id, titulo, categoria, imagenPortadaUrl, ubicacionLat, ubicacionLng, visible, puntosOtorgados, 0, 0, null);
+    }
+
+    // Constructor para proyecciones JPQL (la categoría llega como enum)
+    public ExperienciaListDTO(UUID id, String titulo, Experiencia.Categoria categoria, String imagenPortadaUrl,
+                              BigDecimal ubicacionLat, BigDecimal ubicacionLng, boolean visible, Integer puntosOtorgados) {
+        this(id, titulo, categoria.name(), imagenPortadaUrl, ubicacionLat, ubicacionLng, visible,
+                puntosOtorgados != null ? puntosOtorgados : 10);
+    }
+
+    // 🔹 Copia con los contadores (las filas del catálogo en memoria son compartidas y no se modifican)
+    public ExperienciaListDTO conEstadisticas(long visitas, long comentarios, Instant ultimaVisita) {
+        return new ExperienciaListDTO(id, titulo, categoria, imagenPortadaUrl, ubicacionLat, ubicacionLng, visible,
+                puntosOtorgados, visitas, comentarios, ultimaVisita);
+    }
 }
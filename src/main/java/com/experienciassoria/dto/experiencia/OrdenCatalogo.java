@@ -0,0 +1,18 @@
+package com.experienciassoria.dto.experiencia;
+
+import com.experienciassoria.exception.ValidationException;
+
+public enum OrdenCatalogo {
+    // Por título ascendente
+    TITULO,
+    // Por puntos otorgados descendente
+    PUNTOS;
+
+    public static OrdenCatalogo from(String valor) {
+        try {
+            return OrdenCatalogo.valueOf(valor.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Orden inválido. Debe ser titulo o puntos");
+        }
+    }
+}
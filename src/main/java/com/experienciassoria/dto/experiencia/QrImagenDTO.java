@@ -0,0 +1,11 @@
+package com.experienciassoria.dto.experiencia;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class QrImagenDTO {
+    private byte[] png;
+    private String etag; // ETag fuerte (hash del contenido, entre comillas)
+}
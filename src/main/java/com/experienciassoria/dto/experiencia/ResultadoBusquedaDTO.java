@@ -0,0 +1,15 @@
+package com.experienciassoria.dto.experiencia;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@AllArgsConstructor
+public class ResultadoBusquedaDTO {
+    private List<ExperienciaListDTO> resultados;
+    private int total; // coincidencias tras el filtro de categoría (antes de aplicar el límite)
+    private Map<String, Integer> categorias; // facetas: coincidencias por categoría, sin filtrar por categoría
+}
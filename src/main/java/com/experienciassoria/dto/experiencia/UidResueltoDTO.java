@@ -0,0 +1,17 @@
+package com.experienciassoria.dto.experiencia;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Proyección mínima de un UID activo: el propio UID, su id, el de la experiencia a la que pertenece y cuándo se generó
+@Getter
+@AllArgsConstructor
+public class UidResueltoDTO {
+    private String uid;
+    private UUID uidId;
+    private UUID experienciaId;
+    private Instant fechaGeneracion;
+}
@@ -0,0 +1,20 @@
+package com.experienciassoria.dto.pasaporte;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+public class EscaneoOffline {
+    @NotBlank(message = "El UID escaneado es requerido")
+    private String uidScaneado;
+
+    @Size(max = 1000, message = "La opinión no puede exceder 1000 caracteres")
+    private String opinion;
+
+    private Instant scannedAt;   // Momento del escaneo en el dispositivo (opcional)
+}
@@ -0,0 +1,7 @@
+package com.experienciassoria.dto.pasaporte;
+
+public enum EstadoRegistro {
+    REGISTRADO,
+    DUPLICADO,      // ya registrada antes, o repetida dentro del mismo lote
+    UID_INVALIDO    // UID inexistente o no activo
+}
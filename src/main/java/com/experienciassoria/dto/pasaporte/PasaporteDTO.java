@@ -13,4 +13,6 @@ public class PasaporteDTO {
     private String nombreUsuario;
     private int puntosTotales;
     private List<RegistroExperienciaDTO> registros;
+    // Cursor de la página siguiente de registros (null si es la última)
+    private String siguienteCursor;
 }
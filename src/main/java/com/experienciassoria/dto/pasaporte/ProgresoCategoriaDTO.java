@@ -0,0 +1,14 @@
+package com.experienciassoria.dto.pasaporte;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ProgresoCategoriaDTO {
+    private String categoria;
+    private int visitadas;
+    private int total;
+    // Porcentaje de las experiencias visibles de la categoría ya visitadas (0-100)
+    private double porcentaje;
+}
@@ -1,5 +1,6 @@
 package com.experienciassoria.dto.pasaporte;
 
+import com.experienciassoria.model.Experiencia;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
@@ -16,4 +17,10 @@ public class RegistroExperienciaDTO {
     private String opinion;
     private String imgPortada;
     private int puntosOtorgados;
+
+    // Constructor para proyecciones JPQL (la categoría llega como enum)
+    public RegistroExperienciaDTO(UUID experienciaId, String titulo, Experiencia.Categoria categoria, Instant fechaRegistro,
+                                  String opinion, String imgPortada, int puntosOtorgados) {
+        this(experienciaId, titulo, categoria.name(), fechaRegistro, opinion, imgPortada, puntosOtorgados);
+    }
 }
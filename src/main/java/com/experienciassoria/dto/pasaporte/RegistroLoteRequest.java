@@ -0,0 +1,17 @@
+package com.experienciassoria.dto.pasaporte;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class RegistroLoteRequest {
+    @NotEmpty(message = "El lote no puede estar vacío")
+    @Size(max = 100, message = "El lote no puede tener más de 100 escaneos")
+    private List<@Valid EscaneoOffline> escaneos;  // Escaneos encolados sin conexión
+}
@@ -0,0 +1,14 @@
+package com.experienciassoria.dto.pasaporte;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class RegistroLoteResponse {
+    private int registrados;
+    private int puntosSumados;
+    private List<ResultadoEscaneoDTO> resultados; // en el mismo orden que los escaneos enviados
+}
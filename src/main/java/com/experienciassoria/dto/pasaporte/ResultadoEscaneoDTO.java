@@ -0,0 +1,12 @@
+package com.experienciassoria.dto.pasaporte;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ResultadoEscaneoDTO {
+    private String uidScaneado;
+    private EstadoRegistro estado;
+    private RegistroExperienciaDTO registro; // solo si estado == REGISTRADO
+}
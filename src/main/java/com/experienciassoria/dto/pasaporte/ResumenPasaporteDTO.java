@@ -0,0 +1,18 @@
+package com.experienciassoria.dto.pasaporte;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class ResumenPasaporteDTO {
+    private int visitadas;
+    private int totalCatalogo;
+    private double porcentaje;
+    // Suma de los puntos de los registros del pasaporte
+    private long puntos;
+    private UltimaVisitaDTO ultimaVisita;
+    private List<ProgresoCategoriaDTO> categorias;
+}
@@ -0,0 +1,16 @@
+package com.experienciassoria.dto.pasaporte;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Getter
+@AllArgsConstructor
+public class UltimaVisitaDTO {
+    private UUID experienciaId;
+    private String titulo;
+    private String categoria;
+    private Instant fechaRegistro;
+}
@@ -0,0 +1,19 @@
+package com.experienciassoria.dto.top;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Registro reciente anónimo (sin datos del usuario) para el directo de la clasificación
+@Getter
+@AllArgsConstructor
+public class ActividadRecienteDTO {
+    // Número de secuencia creciente: el cliente lo usa para descartar repetidos
+    private long id;
+    private UUID experienciaId;
+    private String titulo;
+    private String categoria;
+    private Instant fechaRegistro;
+}
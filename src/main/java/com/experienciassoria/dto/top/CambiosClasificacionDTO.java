@@ -0,0 +1,26 @@
+package com.experienciassoria.dto.top;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+// Evento "top-diff" del directo: filas que cambian respecto a la versión base
+@Getter
+@AllArgsConstructor
+public class CambiosClasificacionDTO {
+    private long version;
+    // Versión a la que se aplican los cambios (la última recibida por el cliente)
+    private long base;
+    // Número de filas tras aplicar los cambios (las sobrantes se eliminan)
+    private int tamano;
+    private List<Fila> cambios;
+
+    @Getter
+    @AllArgsConstructor
+    public static class Fila {
+        // Índice de la fila en la lista (0 = primera)
+        private int indice;
+        private UsuarioRankingDTO usuario;
+    }
+}
@@ -0,0 +1,14 @@
+package com.experienciassoria.dto.top;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+// Evento "top" del directo: la clasificación completa
+@Getter
+@AllArgsConstructor
+public class ClasificacionStreamDTO {
+    private long version;
+    private List<UsuarioRankingDTO> top;
+}
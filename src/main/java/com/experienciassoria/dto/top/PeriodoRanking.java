@@ -0,0 +1,20 @@
+package com.experienciassoria.dto.top;
+
+import com.experienciassoria.exception.ValidationException;
+
+public enum PeriodoRanking {
+    // Últimos 7 días
+    SEMANA,
+    // Últimos 30 días
+    MES,
+    // Últimos app.top.temporada-dias días
+    TEMPORADA;
+
+    public static PeriodoRanking from(String valor) {
+        try {
+            return PeriodoRanking.valueOf(valor.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Periodo inválido. Debe ser semana, mes o temporada");
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.experienciassoria.dto.top;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+@Getter
+@AllArgsConstructor
+public class PioneroDTO {
+    // Orden de llegada a la experiencia (1 = primer visitante)
+    private int posicion;
+    private String nombre;
+    private Instant fechaRegistro;
+}
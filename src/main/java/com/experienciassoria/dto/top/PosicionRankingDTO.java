@@ -0,0 +1,17 @@
+package com.experienciassoria.dto.top;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class PosicionRankingDTO {
+    private int posicion;
+    private int puntos;
+    private int totalUsuarios;
+    // Usuarios justo por delante y por detrás, en orden de clasificación
+    private List<UsuarioRankingDTO> anteriores;
+    private List<UsuarioRankingDTO> siguientes;
+}
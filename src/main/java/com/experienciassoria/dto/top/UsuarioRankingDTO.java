@@ -6,6 +6,8 @@ import lombok.Getter;
 @Getter
 @AllArgsConstructor
 public class UsuarioRankingDTO {
+    // Posición en la clasificación (los empatados a puntos comparten posición)
+    private int posicion;
     private String nombre;
     private int puntos;
     private String rol;
@@ -0,0 +1,15 @@
+package com.experienciassoria.dto.top;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class VisitasRankingDTO {
+    // Posición en la clasificación (los empatados a visitas comparten posición)
+    private int posicion;
+    private String nombre;
+    // Experiencias de la categoría registradas por el usuario
+    private int visitadas;
+    private String rol;
+}
@@ -7,7 +7,15 @@ import java.time.Instant;
 import java.util.UUID;
 
 @Entity
-@Table(name = "comentarios")
+@Table(
+    name = "comentarios",
+    // Listados paginados por (fecha, id) de una experiencia y de un usuario
+    indexes = {
+        @Index(name = "idx_comentario_experiencia_fecha", columnList = "experiencia_id, fecha, id"),
+        @Index(name = "idx_comentario_usuario_fecha", columnList = "usuario_id, fecha, id"),
+        @Index(name = "idx_comentario_retenido_fecha", columnList = "retenido, fecha, id")
+    }
+)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -31,4 +39,10 @@ public class Comentario {
     private String texto;
 
     private Instant fecha = Instant.now();
+
+    // Pendiente de revisión por moderación: no se publica hasta que un admin lo apruebe
+    // (con valor por defecto en la columna para que se pueda añadir a una tabla con filas)
+    @Column(nullable = false, columnDefinition = "boolean default false")
+    @Builder.Default
+    private boolean retenido = false;
 }
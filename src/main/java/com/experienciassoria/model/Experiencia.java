@@ -1,5 +1,6 @@
 package com.experienciassoria.model;
 
+import com.experienciassoria.util.TextoUtils;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -21,6 +22,10 @@ public class Experiencia {
 
     private String titulo;
 
+    // Clave de ordenación del catálogo (TextoUtils.normalizar del título), comparada por código igual que en memoria
+    @Column(name = "titulo_orden", columnDefinition = "VARCHAR(255) COLLATE utf8mb4_0900_bin")
+    private String tituloOrden;
+
     @Column(columnDefinition = "TEXT")
     private String descripcion;
 
@@ -57,6 +62,12 @@ public class Experiencia {
     @OneToMany(mappedBy = "experiencia", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Comentario> comentarios = new ArrayList<>();
 
+    @PrePersist
+    @PreUpdate
+    void calcularTituloOrden() {
+        tituloOrden = TextoUtils.normalizar(titulo);
+    }
+
     public enum Categoria {
         RESTAURANTE, AIRE_LIBRE, MUSEO, MONUMENTO
     }
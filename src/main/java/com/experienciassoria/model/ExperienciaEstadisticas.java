@@ -0,0 +1,33 @@
+package com.experienciassoria.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Contadores desnormalizados de una experiencia (visitas, comentarios y última visita).
+ * Los mantiene EstadisticasExperiencias: no se escriben directamente.
+ */
+@Entity
+@Table(name = "experiencia_estadisticas")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExperienciaEstadisticas {
+
+    // Mismo id que la experiencia (sin relación JPA: la fila se borra al eliminar la experiencia)
+    @Id
+    @Column(name = "experiencia_id")
+    private UUID experienciaId;
+
+    private long visitas;
+
+    private long comentarios;
+
+    @Column(name = "ultima_visita")
+    private Instant ultimaVisita;
+}
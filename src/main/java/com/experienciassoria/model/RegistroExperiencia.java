@@ -9,7 +9,8 @@ import java.util.UUID;
 @Entity
 @Table(
     name = "registro_experiencia",
-    uniqueConstraints = @UniqueConstraint(columnNames = {"usuario_id", "experiencia_id"})
+    uniqueConstraints = @UniqueConstraint(columnNames = {"usuario_id", "experiencia_id"}),
+    indexes = @Index(name = "idx_registro_fecha", columnList = "fecha_registro")
 )
 @Getter
 @Setter
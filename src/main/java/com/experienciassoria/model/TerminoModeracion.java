@@ -0,0 +1,35 @@
+package com.experienciassoria.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.UUID;
+
+/**
+ * Término de la lista de moderación de comentarios (guardado ya normalizado: minúsculas y sin tildes).
+ */
+@Entity
+@Table(name = "terminos_moderacion")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TerminoModeracion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false, unique = true, length = 100)
+    private String termino;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Accion accion;
+
+    public enum Accion {
+        ENMASCARAR, // se publica con el término tapado
+        RETENER     // el comentario queda pendiente de revisión
+    }
+}
@@ -32,17 +32,24 @@ public class Usuario implements UserDetails {
     @Enumerated(EnumType.STRING)
     private Rol role;
 
+    @Builder.Default
     private int puntos = 0;
 
     @Column(name = "fecha_creacion")
     @Builder.Default
     private Instant fechaCreacion = Instant.now();
 
+    @Builder.Default
     private boolean activo = true;
 
     @Column(name = "foto_perfil_url")
     private String fotoPerfilUrl;
 
+    // Se incrementa al cambiar rol o estado para invalidar los JWT ya emitidos
+    @Column(name = "token_version")
+    @Builder.Default
+    private int tokenVersion = 0;
+
     @OneToMany(mappedBy = "usuario", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<RegistroExperiencia> registros = new ArrayList<>();
 
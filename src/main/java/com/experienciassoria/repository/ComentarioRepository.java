@@ -1,19 +1,69 @@
 package com.experienciassoria.repository;
 
+import com.experienciassoria.dto.comentario.ComentarioDTO;
+import com.experienciassoria.dto.comentario.ComentarioRetenidoDTO;
 import com.experienciassoria.model.Comentario;
-import com.experienciassoria.model.Experiencia;
-import com.experienciassoria.model.Usuario;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface ComentarioRepository extends JpaRepository<Comentario, UUID> {
-    // 🔹 Obtener todos los comentarios de una experiencia
-    List<Comentario> findByExperienciaOrderByFechaDesc(Experiencia experiencia);
-    
-    // 🔹 Obtener todos los comentarios de un usuario
-    List<Comentario> findByUsuarioOrderByFechaDesc(Usuario usuario);
+
+    /**
+     * Comentarios publicados de una experiencia ya proyectados con el nombre del autor (un solo JOIN), del más
+     * reciente al más antiguo. Keyset sobre (fecha, id), cubierto por el índice idx_comentario_experiencia_fecha.
+     */
+    @Query("SELECT new com.experienciassoria.dto.comentario.ComentarioDTO(c.id, u.nombre, c.texto, c.fecha) " +
+           "FROM Comentario c JOIN c.usuario u " +
+           "WHERE c.experiencia.id = :experienciaId AND c.retenido = false " +
+           "AND (:cursorFecha IS NULL OR c.fecha < :cursorFecha " +
+           "     OR (c.fecha = :cursorFecha AND c.id < :cursorId)) " +
+           "ORDER BY c.fecha DESC, c.id DESC")
+    List<ComentarioDTO> findPaginaByExperiencia(@Param("experienciaId") UUID experienciaId,
+                                                @Param("cursorFecha") Instant cursorFecha,
+                                                @Param("cursorId") UUID cursorId,
+                                                Pageable pageable);
+
+    // 🔹 Lo mismo para los comentarios de un usuario, incluidos los retenidos (índice idx_comentario_usuario_fecha)
+    @Query("SELECT new com.experienciassoria.dto.comentario.ComentarioDTO(c.id, u.nombre, c.texto, c.fecha, c.retenido) " +
+           "FROM Comentario c JOIN c.usuario u " +
+           "WHERE u.id = :usuarioId " +
+           "AND (:cursorFecha IS NULL OR c.fecha < :cursorFecha " +
+           "     OR (c.fecha = :cursorFecha AND c.id < :cursorId)) " +
+           "ORDER BY c.fecha DESC, c.id DESC")
+    List<ComentarioDTO> findPaginaByUsuario(@Param("usuarioId") UUID usuarioId,
+                                            @Param("cursorFecha") Instant cursorFecha,
+                                            @Param("cursorId") UUID cursorId,
+                                            Pageable pageable);
+
+    // 🔹 Comentarios retenidos por moderación, con su experiencia (índice idx_comentario_retenido_fecha)
+    @Query("SELECT new com.experienciassoria.dto.comentario.ComentarioRetenidoDTO(c.id, u.nombre, e.id, e.titulo, c.texto, c.fecha) " +
+           "FROM Comentario c JOIN c.usuario u JOIN c.experiencia e " +
+           "WHERE c.retenido = true " +
+           "AND (:cursorFecha IS NULL OR c.fecha < :cursorFecha " +
+           "     OR (c.fecha = :cursorFecha AND c.id < :cursorId)) " +
+           "ORDER BY c.fecha DESC, c.id DESC")
+    List<ComentarioRetenidoDTO> findPaginaRetenidos(@Param("cursorFecha") Instant cursorFecha,
+                                                    @Param("cursorId") UUID cursorId,
+                                                    Pageable pageable);
+
+    // 🔹 Número de comentarios de un usuario
+    long countByUsuario_Id(UUID usuarioId);
+
+    // 🔹 Comentarios publicados de cada experiencia (reconciliación de las estadísticas)
+    @Query("SELECT c.experiencia.id AS experienciaId, COUNT(c) AS total FROM Comentario c " +
+           "WHERE c.retenido = false GROUP BY c.experiencia.id")
+    List<ComentariosExperienciaView> findComentariosPorExperiencia();
+
+    interface ComentariosExperienciaView {
+        UUID getExperienciaId();
+        long getTotal();
+    }
 }
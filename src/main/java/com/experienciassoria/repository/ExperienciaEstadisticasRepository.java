@@ -0,0 +1,27 @@
+package com.experienciassoria.repository;
+
+import com.experienciassoria.model.ExperienciaEstadisticas;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Repository
+public interface ExperienciaEstadisticasRepository extends JpaRepository<ExperienciaEstadisticas, UUID> {
+
+    // 🔹 Sumar incrementos a los contadores (atómico en la BD); 0 si la fila aún no existe
+    @Modifying
+    @Query("UPDATE ExperienciaEstadisticas s SET s.visitas = s.visitas + :visitas, " +
+           "s.comentarios = s.comentarios + :comentarios, " +
+           "s.ultimaVisita = CASE WHEN s.ultimaVisita IS NULL OR s.ultimaVisita < :ultimaVisita " +
+           "THEN :ultimaVisita ELSE s.ultimaVisita END " +
+           "WHERE s.experienciaId = :experienciaId")
+    int sumar(@Param("experienciaId") UUID experienciaId,
+              @Param("visitas") long visitas,
+              @Param("comentarios") long comentarios,
+              @Param("ultimaVisita") Instant ultimaVisita);
+}
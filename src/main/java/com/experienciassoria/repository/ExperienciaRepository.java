@@ -1,7 +1,11 @@
 package com.experienciassoria.repository;
 
+import com.experienciassoria.dto.experiencia.ExperienciaListDTO;
 import com.experienciassoria.model.Experiencia;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,6 +13,40 @@ import java.util.UUID;
 
 @Repository
 public interface ExperienciaRepository extends JpaRepository<Experiencia, UUID> {
-    // 🔹 Buscar todas las experiencias visibles
-    List<Experiencia> findAllByVisibleTrue();
+    // 🔹 Todas las experiencias con su galería en una sola consulta (carga del catálogo en memoria)
+    @Query("SELECT DISTINCT e FROM Experiencia e LEFT JOIN FETCH e.galeriaImagenes")
+    List<Experiencia> findAllConGaleria();
+
+    // 🔹 Página del catálogo ordenada por título (keyset sobre tituloOrden, id)
+    @Query("SELECT new com.experienciassoria.dto.experiencia.ExperienciaListDTO(" +
+            "e.id, e.titulo, e.categoria, e.imagenPortadaUrl, e.ubicacionLat, e.ubicacionLng, e.visible, e.puntosOtorgados) " +
+            "FROM Experiencia e " +
+            "WHERE (:categoria IS NULL OR e.categoria = :categoria) " +
+            "AND (:visible IS NULL OR e.visible = :visible) " +
+            "AND (:cursorTitulo IS NULL OR e.tituloOrden > :cursorTitulo " +
+            "     OR (e.tituloOrden = :cursorTitulo AND e.id > :cursorId)) " +
+            "ORDER BY e.tituloOrden ASC, e.id ASC")
+    List<ExperienciaListDTO> findPaginaPorTitulo(@Param("categoria") Experiencia.Categoria categoria,
+                                                 @Param("visible") Boolean visible,
+                                                 @Param("cursorTitulo") String cursorTitulo,
+                                                 @Param("cursorId") UUID cursorId,
+                                                 Pageable pageable);
+
+    // 🔹 Experiencias guardadas antes de existir la clave de ordenación del título
+    List<Experiencia> findByTituloOrdenIsNull();
+
+    // 🔹 Página del catálogo ordenada por puntos descendente (keyset sobre puntos, id)
+    @Query("SELECT new com.experienciassoria.dto.experiencia.ExperienciaListDTO(" +
+            "e.id, e.titulo, e.categoria, e.imagenPortadaUrl, e.ubicacionLat, e.ubicacionLng, e.visible, e.puntosOtorgados) " +
+            "FROM Experiencia e " +
+            "WHERE (:categoria IS NULL OR e.categoria = :categoria) " +
+            "AND (:visible IS NULL OR e.visible = :visible) " +
+            "AND (:cursorPuntos IS NULL OR COALESCE(e.puntosOtorgados, 10) < :cursorPuntos " +
+            "     OR (COALESCE(e.puntosOtorgados, 10) = :cursorPuntos AND e.id > :cursorId)) " +
+            "ORDER BY COALESCE(e.puntosOtorgados, 10) DESC, e.id ASC")
+    List<ExperienciaListDTO> findPaginaPorPuntos(@Param("categoria") Experiencia.Categoria categoria,
+                                                 @Param("visible") Boolean visible,
+                                                 @Param("cursorPuntos") Integer cursorPuntos,
+                                                 @Param("cursorId") UUID cursorId,
+                                                 Pageable pageable);
 }
@@ -1,10 +1,15 @@
 package com.experienciassoria.repository;
 
+import com.experienciassoria.dto.experiencia.UidResueltoDTO;
 import com.experienciassoria.model.Experiencia;
 import com.experienciassoria.model.ExperienciaUID;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -15,6 +20,31 @@ public interface ExperienciaUIDRepository extends JpaRepository<ExperienciaUID,
     // 🔹 Buscar un UID activo (para validar escaneo)
     Optional<ExperienciaUID> findByUidAndActivoTrue(String uid);
 
+    // 🔹 Resolver un UID activo sin cargar la entidad ni la experiencia
+    @Query("SELECT new com.experienciassoria.dto.experiencia.UidResueltoDTO(u.uid, u.id, u.experiencia.id, u.fechaGeneracion) " +
+           "FROM ExperienciaUID u WHERE u.uid = :uid AND u.activo = true")
+    Optional<UidResueltoDTO> findResueltoByUid(@Param("uid") String uid);
+
+    // 🔹 Resolver varios UIDs activos en una sola consulta
+    @Query("SELECT new com.experienciassoria.dto.experiencia.UidResueltoDTO(u.uid, u.id, u.experiencia.id, u.fechaGeneracion) " +
+           "FROM ExperienciaUID u WHERE u.uid IN :uids AND u.activo = true")
+    List<UidResueltoDTO> findResueltosByUids(@Param("uids") Collection<String> uids);
+
+    // 🔹 Todos los UIDs activos (para construir el filtro de Bloom)
+    @Query("SELECT u.uid FROM ExperienciaUID u WHERE u.activo = true")
+    List<String> findUidsActivos();
+
+    // 🔹 Cuáles de los candidatos ya existen (activos o no), en una sola consulta
+    @Query("SELECT u.uid FROM ExperienciaUID u WHERE u.uid IN :uids")
+    List<String> findUidsExistentes(@Param("uids") Collection<String> uids);
+
+    // 🔹 Página keyset de UIDs activos de una experiencia (exportación masiva de QR)
+    @Query("SELECT u.uid FROM ExperienciaUID u WHERE u.experiencia.id = :experienciaId AND u.activo = true " +
+           "AND (:despuesDe IS NULL OR u.uid > :despuesDe) ORDER BY u.uid")
+    List<String> findUidsActivosByExperiencia(@Param("experienciaId") UUID experienciaId,
+                                              @Param("despuesDe") String despuesDe,
+                                              Pageable pageable);
+
     // 🔹 Buscar todos los UIDs de una experiencia
     List<ExperienciaUID> findByExperiencia(Experiencia experiencia);
 }
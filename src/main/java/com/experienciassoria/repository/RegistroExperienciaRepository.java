@@ -1,10 +1,17 @@
 package com.experienciassoria.repository;
 
+import com.experienciassoria.dto.pasaporte.RegistroExperienciaDTO;
+import com.experienciassoria.model.Experiencia;
 import com.experienciassoria.model.RegistroExperiencia;
 import com.experienciassoria.model.Usuario;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -15,9 +22,126 @@ public interface RegistroExperienciaRepository extends JpaRepository<RegistroExp
     // 🔹 Buscar todas las experiencias registradas por un usuario
     List<RegistroExperiencia> findByUsuario(Usuario usuario);
 
+    /**
+     * Registros del pasaporte de un usuario ya proyectados (un solo JOIN, sin cargar entidades),
+     * del más reciente al más antiguo. Keyset sobre (fechaRegistro, experienciaId): la experiencia
+     * es única por usuario, así que desempata sin ambigüedad.
+     */
+    @Query("SELECT new com.experienciassoria.dto.pasaporte.RegistroExperienciaDTO(" +
+           "e.id, e.titulo, e.categoria, r.fechaRegistro, r.opinion, r.imgPortada, r.puntosOtorgados) " +
+           "FROM RegistroExperiencia r JOIN r.experiencia e " +
+           "WHERE r.usuario.id = :usuarioId " +
+           "AND (:categoria IS NULL OR e.categoria = :categoria) " +
+           "AND (:cursorFecha IS NULL OR r.fechaRegistro < :cursorFecha " +
+           "     OR (r.fechaRegistro = :cursorFecha AND e.id < :cursorId)) " +
+           "ORDER BY r.fechaRegistro DESC, e.id DESC")
+    List<RegistroExperienciaDTO> findPaginaPasaporte(@Param("usuarioId") UUID usuarioId,
+                                                     @Param("categoria") Experiencia.Categoria categoria,
+                                                     @Param("cursorFecha") Instant cursorFecha,
+                                                     @Param("cursorId") UUID cursorId,
+                                                     Pageable pageable);
+
     // 🔹 Comprobar si el usuario ya registró una experiencia concreta
     boolean existsByUsuario_IdAndExperiencia_Id(UUID usuarioId, UUID experienciaId);
 
+    // 🔹 De las experiencias indicadas, cuáles ya registró el usuario (una sola consulta)
+    @Query("SELECT r.experiencia.id FROM RegistroExperiencia r " +
+           "WHERE r.usuario.id = :usuarioId AND r.experiencia.id IN :experienciaIds")
+    List<UUID> findExperienciasRegistradas(@Param("usuarioId") UUID usuarioId,
+                                           @Param("experienciaIds") Collection<UUID> experienciaIds);
+
     // 🔹 Buscar un registro concreto
     Optional<RegistroExperiencia> findByUsuario_IdAndExperiencia_Id(UUID usuarioId, UUID experienciaId);
+
+    // 🔹 Registros y puntos por usuario y categoría (resumen del pasaporte de varios usuarios en una consulta)
+    @Query("SELECT r.usuario.id AS usuarioId, e.categoria AS categoria, " +
+           "COUNT(r) AS visitadas, SUM(r.puntosOtorgados) AS puntos " +
+           "FROM RegistroExperiencia r JOIN r.experiencia e " +
+           "WHERE r.usuario.id IN :usuarioIds " +
+           "GROUP BY r.usuario.id, e.categoria")
+    List<ResumenCategoriaView> findResumenPorCategoria(@Param("usuarioIds") Collection<UUID> usuarioIds);
+
+    // 🔹 Registros por usuario y categoría de todos los usuarios (carga de las clasificaciones por categoría)
+    @Query("SELECT r.usuario.id AS usuarioId, e.categoria AS categoria, " +
+           "COUNT(r) AS visitadas, SUM(r.puntosOtorgados) AS puntos " +
+           "FROM RegistroExperiencia r JOIN r.experiencia e " +
+           "GROUP BY r.usuario.id, e.categoria")
+    List<ResumenCategoriaView> findResumenPorCategoriaTodos();
+
+    /**
+     * Los {@code limite} primeros visitantes de cada experiencia (por fecha de registro y, a igualdad, por usuario),
+     * numerados por la BD con ROW_NUMBER en lugar de traer todos los registros.
+     */
+    @Query("SELECT p.experienciaId AS experienciaId, p.usuarioId AS usuarioId, p.fechaRegistro AS fechaRegistro FROM (" +
+           "SELECT r.experiencia.id AS experienciaId, r.usuario.id AS usuarioId, r.fechaRegistro AS fechaRegistro, " +
+           "ROW_NUMBER() OVER (PARTITION BY r.experiencia.id ORDER BY r.fechaRegistro, r.usuario.id) AS orden " +
+           "FROM RegistroExperiencia r) p " +
+           "WHERE p.orden <= :limite")
+    List<PioneroView> findPioneros(@Param("limite") int limite);
+
+    // 🔹 Lo mismo, solo para algunas experiencias
+    @Query("SELECT p.experienciaId AS experienciaId, p.usuarioId AS usuarioId, p.fechaRegistro AS fechaRegistro FROM (" +
+           "SELECT r.experiencia.id AS experienciaId, r.usuario.id AS usuarioId, r.fechaRegistro AS fechaRegistro, " +
+           "ROW_NUMBER() OVER (PARTITION BY r.experiencia.id ORDER BY r.fechaRegistro, r.usuario.id) AS orden " +
+           "FROM RegistroExperiencia r WHERE r.experiencia.id IN :experienciaIds) p " +
+           "WHERE p.orden <= :limite")
+    List<PioneroView> findPionerosByExperiencias(@Param("experienciaIds") Collection<UUID> experienciaIds,
+                                                 @Param("limite") int limite);
+
+    // 🔹 Visitas y última visita de cada experiencia (reconciliación de las estadísticas)
+    @Query("SELECT r.experiencia.id AS experienciaId, COUNT(r) AS total, MAX(r.fechaRegistro) AS ultima " +
+           "FROM RegistroExperiencia r GROUP BY r.experiencia.id")
+    List<VisitasExperienciaView> findVisitasPorExperiencia();
+
+    // 🔹 Último registro de cada usuario (con empate de fecha pueden salir varios)
+    @Query("SELECT r.usuario.id AS usuarioId, e.id AS experienciaId, e.titulo AS titulo, " +
+           "e.categoria AS categoria, r.fechaRegistro AS fechaRegistro " +
+           "FROM RegistroExperiencia r JOIN r.experiencia e " +
+           "WHERE r.usuario.id IN :usuarioIds " +
+           "AND r.fechaRegistro = (SELECT MAX(r2.fechaRegistro) FROM RegistroExperiencia r2 WHERE r2.usuario.id = r.usuario.id)")
+    List<UltimaVisitaView> findUltimasVisitas(@Param("usuarioIds") Collection<UUID> usuarioIds);
+
+    // 🔹 Puntos de cada registro desde una fecha (carga de las clasificaciones por periodo)
+    @Query("SELECT r.usuario.id AS usuarioId, r.fechaRegistro AS fechaRegistro, r.puntosOtorgados AS puntos " +
+           "FROM RegistroExperiencia r WHERE r.fechaRegistro >= :desde")
+    List<PuntosRegistroView> findPuntosDesde(@Param("desde") Instant desde);
+
+    // 🔹 Lo mismo, solo para algunos usuarios
+    @Query("SELECT r.usuario.id AS usuarioId, r.fechaRegistro AS fechaRegistro, r.puntosOtorgados AS puntos " +
+           "FROM RegistroExperiencia r WHERE r.fechaRegistro >= :desde AND r.usuario.id IN :usuarioIds")
+    List<PuntosRegistroView> findPuntosDesdeByUsuarios(@Param("desde") Instant desde,
+                                                       @Param("usuarioIds") Collection<UUID> usuarioIds);
+
+    interface PuntosRegistroView {
+        UUID getUsuarioId();
+        Instant getFechaRegistro();
+        int getPuntos();
+    }
+
+    interface VisitasExperienciaView {
+        UUID getExperienciaId();
+        long getTotal();
+        Instant getUltima();
+    }
+
+    interface PioneroView {
+        UUID getExperienciaId();
+        UUID getUsuarioId();
+        Instant getFechaRegistro();
+    }
+
+    interface ResumenCategoriaView {
+        UUID getUsuarioId();
+        Experiencia.Categoria getCategoria();
+        long getVisitadas();
+        long getPuntos();
+    }
+
+    interface UltimaVisitaView {
+        UUID getUsuarioId();
+        UUID getExperienciaId();
+        String getTitulo();
+        Experiencia.Categoria getCategoria();
+        Instant getFechaRegistro();
+    }
 }
@@ -0,0 +1,11 @@
+package com.experienciassoria.repository;
+
+import com.experienciassoria.model.TerminoModeracion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface TerminoModeracionRepository extends JpaRepository<TerminoModeracion, UUID> {
+}
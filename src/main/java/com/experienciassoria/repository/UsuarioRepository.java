@@ -2,7 +2,12 @@ package com.experienciassoria.repository;
 
 import com.experienciassoria.model.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -10,6 +15,43 @@ import java.util.UUID;
 public interface UsuarioRepository extends JpaRepository<Usuario, UUID> {
     Optional<Usuario> findByEmail(String email);
     boolean existsByEmail(String email);
-    List<Usuario> findTop10ByOrderByPuntosDesc();
 
+    // 🔹 Versiones de token distintas de la inicial (usuarios con tokens revocados)
+    @Query("SELECT u.id AS id, u.tokenVersion AS tokenVersion FROM Usuario u WHERE u.tokenVersion > 0")
+    List<TokenVersionView> findTokenVersionesRevocadas();
+
+    // 🔹 Sumar puntos de forma atómica en la BD (sin leer-modificar-escribir la entidad)
+    @Transactional
+    @Modifying
+    @Query("UPDATE Usuario u SET u.puntos = u.puntos + :puntos WHERE u.id = :id")
+    int sumarPuntos(@Param("id") UUID id, @Param("puntos") int puntos);
+
+    // 🔹 Actualizar solo el hash de contraseña (sin pisar puntos u otros campos modificados en paralelo)
+    @Transactional
+    @Modifying
+    @Query("UPDATE Usuario u SET u.passwordHash = :hash WHERE u.id = :id")
+    int actualizarPasswordHash(@Param("id") UUID id, @Param("hash") String hash);
+
+    // 🔹 Datos de clasificación de los usuarios activos (carga de la clasificación en memoria)
+    @Query("SELECT u.id AS id, u.nombre AS nombre, u.puntos AS puntos, u.role AS role, u.activo AS activo " +
+           "FROM Usuario u WHERE u.activo = true")
+    List<RankingView> findRankingActivos();
+
+    // 🔹 Datos de clasificación de usuarios concretos (activos o no)
+    @Query("SELECT u.id AS id, u.nombre AS nombre, u.puntos AS puntos, u.role AS role, u.activo AS activo " +
+           "FROM Usuario u WHERE u.id IN :ids")
+    List<RankingView> findRankingByIds(@Param("ids") Collection<UUID> ids);
+
+    interface RankingView {
+        UUID getId();
+        String getNombre();
+        int getPuntos();
+        Usuario.Rol getRole();
+        boolean isActivo();
+    }
+
+    interface TokenVersionView {
+        UUID getId();
+        int getTokenVersion();
+    }
 }
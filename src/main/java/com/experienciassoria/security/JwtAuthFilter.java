@@ -1,11 +1,12 @@
 package com.experienciassoria.security;
 
-import com.experienciassoria.model.Usuario;
-import com.experienciassoria.repository.UsuarioRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -14,15 +15,16 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+@Slf4j
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtUtils jwtUtils;
-    private final UsuarioRepository usuarioRepository;
+    private final TokenVersionRegistry tokenVersionRegistry;
 
-    public JwtAuthFilter(JwtUtils jwtUtils, UsuarioRepository usuarioRepository) {
+    public JwtAuthFilter(JwtUtils jwtUtils, TokenVersionRegistry tokenVersionRegistry) {
         this.jwtUtils = jwtUtils;
-        this.usuarioRepository = usuarioRepository;
+        this.tokenVersionRegistry = tokenVersionRegistry;
     }
 
     @Override
@@ -31,27 +33,30 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             FilterChain filterChain) throws ServletException, IOException {
 
         String authHeader = request.getHeader("Authorization");
-        String token = null;
-        String email = null;
 
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
-            email = jwtUtils.getEmailFromToken(token);
-        }
+        if (authHeader != null && authHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String token = authHeader.substring(7);
+            try {
+                // ✅ El token se verifica una única vez por petición; los controladores usan el principal del contexto
+                Claims claims = jwtUtils.parseToken(token);
+                UsuarioPrincipal principal = jwtUtils.getPrincipal(claims);
 
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            final String jwtToken = token; // ✅ hacemos el token final
-            usuarioRepository.findByEmail(email).ifPresent(usuario -> {
-                if (jwtUtils.validateToken(jwtToken)) {
+                // ✅ Sin consulta a BD: el principal sale de los claims y la revocación es una búsqueda en memoria
+                if (principal != null
+                        && tokenVersionRegistry.esVigente(principal.getId(), jwtUtils.getTokenVersion(claims))) {
                     UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
-                            usuario, 
+                            principal,
                             null,
-                            usuario.getAuthorities() // ✅ Asignar roles/autoridades del usuario
+                            principal.getAuthorities() // ✅ Asignar roles/autoridades del usuario
                     );
                     auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(auth);
                 }
-            });
+            } catch (JwtException | IllegalArgumentException e) {
+                // Token inválido o expirado: la petición sigue como anónima y Spring Security decide
+                log.debug("Token JWT rechazado: {}", e.getMessage());
+            }
         }
 
         filterChain.doFilter(request, response);
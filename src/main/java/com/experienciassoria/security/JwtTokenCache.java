@@ -0,0 +1,78 @@
+package com.experienciassoria.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caché de tokens JWT ya verificados.
+ * La clave es el SHA-256 del token (nunca se guarda el token en claro) y cada entrada
+ * caduca a la vez que el propio token, de modo que un token expirado nunca se acepta desde aquí.
+ */
+public class JwtTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    });
+
+    private final ConcurrentHashMap<String, Entrada> entradas = new ConcurrentHashMap<>();
+    private final int maxEntradas;
+
+    public JwtTokenCache(int maxEntradas) {
+        this.maxEntradas = maxEntradas;
+    }
+
+    // 🔹 Devuelve los claims de un token verificado previamente (o null si no está o ha caducado)
+    public Claims get(String token) {
+        String clave = digest(token);
+        Entrada entrada = entradas.get(clave);
+        if (entrada == null) {
+            return null;
+        }
+        if (entrada.expiraEn <= System.currentTimeMillis()) {
+            entradas.remove(clave, entrada);
+            return null;
+        }
+        return entrada.claims;
+    }
+
+    // 🔹 Guarda los claims de un token recién verificado hasta su fecha de expiración
+    public void put(String token, Claims claims) {
+        if (maxEntradas <= 0 || claims.getExpiration() == null) {
+            return;
+        }
+        if (entradas.size() >= maxEntradas) {
+            purgarExpiradas();
+            if (entradas.size() >= maxEntradas) {
+                entradas.clear();
+            }
+        }
+        entradas.put(digest(token), new Entrada(claims, claims.getExpiration().getTime()));
+    }
+
+    public int size() {
+        return entradas.size();
+    }
+
+    private void purgarExpiradas() {
+        long ahora = System.currentTimeMillis();
+        entradas.values().removeIf(e -> e.expiraEn <= ahora);
+    }
+
+    private static String digest(String token) {
+        MessageDigest md = SHA256.get();
+        md.reset();
+        return Base64.getEncoder().encodeToString(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private record Entrada(Claims claims, long expiraEn) {
+    }
+}
@@ -1,66 +1,106 @@
 package com.experienciassoria.security;
 
+import com.experienciassoria.model.Usuario;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
-import jakarta.servlet.http.HttpServletRequest;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.Date;
+import java.util.UUID;
 
 @Component
 public class JwtUtils {
 
+    public static final String CLAIM_USUARIO_ID = "uid";
+    public static final String CLAIM_ROL = "rol";
+    public static final String CLAIM_VERSION = "ver";
+
     @Value("${app.jwt-secret}")
     private String jwtSecret;
 
     @Value("${app.jwt-expiration}")
     private long jwtExpirationMs;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    @Value("${app.jwt-cache-max-entries:10000}")
+    private int jwtCacheMaxEntries;
+
+    // Clave y parser se construyen una sola vez: ambos son inmutables y thread-safe
+    private Key signingKey;
+    private JwtParser parser;
+    private JwtTokenCache tokenCache;
+
+    @PostConstruct
+    void init() {
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.tokenCache = new JwtTokenCache(jwtCacheMaxEntries);
     }
 
-    // Generar token
-    public String generateToken(String email) {
+    // Generar token con los datos necesarios para autenticar sin consultar la BD
+    public String generateToken(Usuario usuario) {
         return Jwts.builder()
-                .setSubject(email)
+                .setSubject(usuario.getEmail())
+                .claim(CLAIM_USUARIO_ID, usuario.getId().toString())
+                .claim(CLAIM_ROL, usuario.getRole().name())
+                .claim(CLAIM_VERSION, usuario.getTokenVersion())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /**
+     * Verifica el token y devuelve sus claims.
+     * Los tokens ya verificados se sirven desde caché hasta su expiración, evitando repetir la firma HMAC.
+     *
+     * @throws JwtException si el token no es válido o ha expirado
+     */
+    public Claims parseToken(String token) {
+        Claims claims = tokenCache.get(token);
+        if (claims != null) {
+            return claims;
+        }
+        claims = parser.parseClaimsJws(token).getBody();
+        tokenCache.put(token, claims);
+        return claims;
+    }
+
+    /**
+     * Construye el principal a partir de un token verificado.
+     * Devuelve null si el token no incluye los claims de usuario (tokens emitidos por versiones anteriores).
+     */
+    public UsuarioPrincipal getPrincipal(Claims claims) {
+        String usuarioId = claims.get(CLAIM_USUARIO_ID, String.class);
+        String rol = claims.get(CLAIM_ROL, String.class);
+        if (usuarioId == null || rol == null || claims.getSubject() == null) {
+            return null;
+        }
+        return new UsuarioPrincipal(UUID.fromString(usuarioId), claims.getSubject(), Usuario.Rol.valueOf(rol));
+    }
+
+    public int getTokenVersion(Claims claims) {
+        Integer version = claims.get(CLAIM_VERSION, Integer.class);
+        return version != null ? version : 0;
+    }
+
     // Obtener email (subject)
     public String getEmailFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return parseToken(token).getSubject();
     }
 
     // Validar token
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token);
+            parseToken(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
         }
     }
-
-    // Extraer token del header Authorization
-    public String extractTokenFromRequest(HttpServletRequest request) {
-        String header = request.getHeader("Authorization");
-        if (header == null || !header.startsWith("Bearer ")) {
-            throw new IllegalArgumentException("Token no encontrado o inválido");
-        }
-        return header.substring(7);
-    }
 }
@@ -0,0 +1,145 @@
+package com.experienciassoria.security;
+
+import com.experienciassoria.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Carril aislado para BCrypt.
+ * Los hashes se calculan en un pool acotado con cola limitada, de modo que un pico de logins
+ * no puede ocupar todos los núcleos ni los hilos de Tomcat. Si la cola está llena la petición
+ * se rechaza inmediatamente con 503 y Retry-After.
+ */
+@Slf4j
+@Component
+public class PasswordHashingExecutor {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+    private final long retryAfterSeconds;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer esperaTimer;
+    private final Counter rechazos;
+
+    public PasswordHashingExecutor(PasswordEncoder passwordEncoder,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.security.hashing.threads:0}") int threads,
+                                   @Value("${app.security.hashing.queue-capacity:64}") int queueCapacity,
+                                   @Value("${app.security.hashing.timeout-ms:5000}") long timeoutMs,
+                                   @Value("${app.security.hashing.retry-after-seconds:2}") long retryAfterSeconds) {
+        this.passwordEncoder = passwordEncoder;
+        this.timeoutMs = timeoutMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        // Por defecto la mitad de los núcleos: el resto queda libre para catálogo y escaneos
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "bcrypt-" + contador.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("auth.hashing.queue.size", executor, e -> e.getQueue().size())
+                .description("Operaciones BCrypt en cola")
+                .register(meterRegistry);
+        Gauge.builder("auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hilos BCrypt ocupados")
+                .register(meterRegistry);
+        this.encodeTimer = Timer.builder("auth.hashing.latency").tag("operacion", "encode").register(meterRegistry);
+        this.matchesTimer = Timer.builder("auth.hashing.latency").tag("operacion", "matches").register(meterRegistry);
+        this.esperaTimer = Timer.builder("auth.hashing.wait").description("Tiempo en cola antes de ejecutar").register(meterRegistry);
+        this.rechazos = Counter.builder("auth.hashing.rejected").register(meterRegistry);
+
+        log.info("Carril BCrypt iniciado con {} hilos y cola de {}", poolSize, queueCapacity);
+    }
+
+    // 🔹 Calcular el hash de una contraseña en el carril BCrypt
+    public String encode(String rawPassword) {
+        return ejecutar(() -> passwordEncoder.encode(rawPassword), encodeTimer);
+    }
+
+    // 🔹 Comprobar una contraseña contra su hash en el carril BCrypt
+    public boolean matches(String rawPassword, String hash) {
+        return ejecutar(() -> passwordEncoder.matches(rawPassword, hash), matchesTimer);
+    }
+
+    // 🔹 Indica si el hash se generó con un coste inferior al configurado
+    public boolean necesitaActualizar(String hash) {
+        return passwordEncoder.upgradeEncoding(hash);
+    }
+
+    /**
+     * Recalcula el hash en segundo plano con el coste actual y lo entrega al consumidor.
+     * Si el carril está saturado la actualización simplemente se omite: se reintentará en el próximo login.
+     */
+    public void actualizarEnSegundoPlano(String rawPassword, Consumer<String> alTerminar) {
+        try {
+            executor.execute(() -> {
+                try {
+                    alTerminar.accept(encodeTimer.record(() -> passwordEncoder.encode(rawPassword)));
+                } catch (RuntimeException e) {
+                    log.warn("No se pudo actualizar el hash de contraseña: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Carril BCrypt saturado, se omite la actualización del hash");
+        }
+    }
+
+    private <T> T ejecutar(Callable<T> tarea, Timer timer) {
+        long encolado = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                esperaTimer.record(System.nanoTime() - encolado, TimeUnit.NANOSECONDS);
+                return timer.recordCallable(tarea);
+            });
+        } catch (RejectedExecutionException e) {
+            rechazos.increment();
+            log.warn("Carril BCrypt saturado ({} en cola), petición rechazada", executor.getQueue().size());
+            throw new ServiceUnavailableException(
+                    "El servicio de autenticación está saturado. Inténtalo de nuevo en unos segundos.", retryAfterSeconds);
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rechazos.increment();
+            throw new ServiceUnavailableException(
+                    "El servicio de autenticación está tardando demasiado. Inténtalo de nuevo en unos segundos.", retryAfterSeconds, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Operación de autenticación interrumpida", retryAfterSeconds, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException("Error al procesar la contraseña", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,145 @@
+package com.experienciassoria.security;
+
+import com.experienciassoria.config.RateLimitProperties;
+import com.experienciassoria.exception.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Limita la tasa de peticiones por ruta antes de que lleguen a BCrypt o a MySQL.
+ * Se ejecuta antes de {@link JwtAuthFilter}; para las políticas por usuario reutiliza la
+ * verificación cacheada de {@link JwtUtils}, por lo que no añade trabajo criptográfico.
+ */
+@Slf4j
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitProperties properties;
+    private final JwtUtils jwtUtils;
+    private final ObjectMapper objectMapper;
+    private final TokenBucketRateLimiter limiter;
+    private final List<PolicyMatcher> policies;
+    private final Counter rechazos;
+
+    public RateLimitFilter(RateLimitProperties properties,
+                           JwtUtils jwtUtils,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.jwtUtils = jwtUtils;
+        this.objectMapper = objectMapper;
+        this.limiter = new TokenBucketRateLimiter(properties.getStripes());
+        this.policies = properties.getPolicies().stream()
+                .map(p -> new PolicyMatcher(p, PathPatternParser.defaultInstance.parse(p.getPath())))
+                .toList();
+        this.rechazos = Counter.builder("ratelimit.rejected").register(meterRegistry);
+        Gauge.builder("ratelimit.buckets", limiter, TokenBucketRateLimiter::size).register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || policies.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+
+        PolicyMatcher policy = findPolicy(request);
+        if (policy != null) {
+            RateLimitProperties.Policy p = policy.policy();
+            String key = p.getName() + ':' + resolveClient(request, p.getKey());
+            long esperaNanos = limiter.tryConsume(key, p.getCapacity(), p.getRefillPerSecond(), System.nanoTime());
+            if (esperaNanos > 0) {
+                rechazos.increment();
+                log.debug("Rate limit '{}' superado para {}", p.getName(), key);
+                reject(request, response, esperaNanos);
+                return;
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    // 🔹 Limpieza periódica de buckets inactivos
+    @Scheduled(fixedDelayString = "${app.rate-limit.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        int eliminados = limiter.evictIdle(System.nanoTime(), properties.getIdleTimeout().toNanos());
+        if (eliminados > 0) {
+            log.debug("Rate limit: {} buckets inactivos eliminados", eliminados);
+        }
+    }
+
+    private PolicyMatcher findPolicy(HttpServletRequest request) {
+        PathContainer path = null;
+        for (PolicyMatcher policy : policies) {
+            String method = policy.policy().getMethod();
+            if (method != null && !method.equalsIgnoreCase(request.getMethod())) {
+                continue;
+            }
+            if (path == null) {
+                path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+            }
+            if (policy.pattern().matches(path)) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    private String resolveClient(HttpServletRequest request, RateLimitProperties.Key keyType) {
+        if (keyType == RateLimitProperties.Key.USUARIO) {
+            String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+            if (authHeader != null && authHeader.startsWith("Bearer ")) {
+                try {
+                    UsuarioPrincipal principal = jwtUtils.getPrincipal(jwtUtils.parseToken(authHeader.substring(7)));
+                    if (principal != null) {
+                        return "u:" + principal.getId();
+                    }
+                } catch (JwtException | IllegalArgumentException e) {
+                    // Token inválido: se limita por IP y JwtAuthFilter lo tratará como anónimo
+                }
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, long esperaNanos) throws IOException {
+        long retryAfter = esperaNanos == Long.MAX_VALUE ? 60 : Math.max(1, (esperaNanos + 999_999_999L) / 1_000_000_000L);
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                "Demasiadas peticiones",
+                "Has superado el límite de peticiones. Inténtalo de nuevo en " + retryAfter + " segundos.",
+                request.getRequestURI()
+        );
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+
+    private record PolicyMatcher(RateLimitProperties.Policy policy, PathPattern pattern) {
+    }
+}
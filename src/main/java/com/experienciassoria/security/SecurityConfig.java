@@ -1,5 +1,8 @@
 package com.experienciassoria.security;
 
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -18,10 +21,14 @@ import org.springframework.web.cors.CorsConfigurationSource;
 public class SecurityConfig {
 
     private final JwtAuthFilter jwtAuthFilter;
+    private final RateLimitFilter rateLimitFilter;
     private final CorsConfigurationSource corsConfigurationSource;
 
-    public SecurityConfig(JwtAuthFilter jwtAuthFilter, CorsConfigurationSource corsConfigurationSource) {
+    public SecurityConfig(JwtAuthFilter jwtAuthFilter,
+                          RateLimitFilter rateLimitFilter,
+                          CorsConfigurationSource corsConfigurationSource) {
         this.jwtAuthFilter = jwtAuthFilter;
+        this.rateLimitFilter = rateLimitFilter;
         this.corsConfigurationSource = corsConfigurationSource;
     }
 
@@ -32,36 +39,64 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable())
             .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                // El despacho asíncrono de una respuesta en streaming ya se autorizó en la petición original
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 // Endpoints públicos (sin JWT requerido)
                 .requestMatchers("/api/auth/register", "/api/auth/login").permitAll()
                 .requestMatchers("GET", "/api/experiencias").permitAll()
+                .requestMatchers("GET", "/api/experiencias/cerca").permitAll()
+                .requestMatchers("GET", "/api/experiencias/buscar").permitAll()
                 .requestMatchers("GET", "/api/experiencias/{id}").permitAll()
                 .requestMatchers("GET", "/api/experiencias/uid/{uid}").permitAll()
                 .requestMatchers("GET", "/api/experiencias/{id}/comentarios").permitAll()
                 .requestMatchers("GET", "/api/top").permitAll()
+                .requestMatchers("GET", "/api/top/stream").permitAll()
+                .requestMatchers("GET", "/api/top/categorias/{categoria}").permitAll()
+                .requestMatchers("GET", "/api/top/experiencias/{id}/pioneros").permitAll()
                 .requestMatchers("/api/public/admin/**").permitAll()
                 .requestMatchers("/v3/api-docs/**", "/swagger-ui/**").permitAll()
+                .requestMatchers("/actuator/health").permitAll()
                 // Endpoints que requieren autenticación (USER o ADMIN - con JWT)
                 .requestMatchers("/api/auth/me").authenticated()
                 .requestMatchers("/api/pasaporte/**").authenticated()
                 .requestMatchers("POST", "/api/experiencias/{id}/comentarios").authenticated()
                 // Endpoints que requieren rol ADMIN
                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 .requestMatchers("POST", "/api/experiencias").hasRole("ADMIN")
                 .requestMatchers("PUT", "/api/experiencias/**").hasRole("ADMIN")
                 .requestMatchers("DELETE", "/api/experiencias/**").hasRole("ADMIN")
                 .requestMatchers("/api/experiencias/{id}/uids").hasRole("ADMIN")
+                .requestMatchers("/api/experiencias/{id}/uids/qr-sheet").hasRole("ADMIN")
                 .requestMatchers("/api/experiencias/{id}/generar-uid").hasRole("ADMIN")
                 .anyRequest().authenticated()
             )
-            .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+            // ✅ El rate limit va antes del JWT (y después de CORS, para que los 429 lleven sus cabeceras)
+            .addFilterBefore(rateLimitFilter, JwtAuthFilter.class);
 
         return http.build();
     }
 
+    // Los filtros propios solo deben ejecutarse dentro de la cadena de seguridad, no también como filtros de Tomcat
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public FilterRegistrationBean<JwtAuthFilter> jwtAuthFilterRegistration(JwtAuthFilter filter) {
+        FilterRegistrationBean<JwtAuthFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter filter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${app.security.bcrypt-strength:10}") int strength) {
+        // Los hashes con un coste menor se actualizan de forma transparente en el siguiente login
+        return new BCryptPasswordEncoder(strength);
     }
 
     @Bean
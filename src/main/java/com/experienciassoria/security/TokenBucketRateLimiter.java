@@ -0,0 +1,110 @@
+package com.experienciassoria.security;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limitador token-bucket en memoria.
+ * Los buckets se reparten en particiones con lock propio para que peticiones de claves distintas
+ * casi nunca compitan; cada bucket son dos primitivos que se recargan de forma perezosa al consultarlo.
+ */
+public class TokenBucketRateLimiter {
+
+    private final Stripe[] stripes;
+    private final int mask;
+
+    public TokenBucketRateLimiter(int stripes) {
+        int n = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new Stripe[n];
+        for (int i = 0; i < n; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.mask = n - 1;
+    }
+
+    /**
+     * Intenta consumir un token.
+     *
+     * @return 0 si se permite la petición; si no, nanosegundos hasta que haya un token disponible
+     */
+    public long tryConsume(String key, int capacity, double refillPerSecond, long nowNanos) {
+        Stripe stripe = stripes[spread(key.hashCode()) & mask];
+        stripe.lock.lock();
+        try {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(capacity, nowNanos);
+                stripe.buckets.put(key, bucket);
+            } else {
+                double recargados = (nowNanos - bucket.lastRefillNanos) * refillPerSecond / 1_000_000_000d;
+                bucket.tokens = Math.min(capacity, bucket.tokens + recargados);
+                bucket.lastRefillNanos = nowNanos;
+            }
+
+            if (bucket.tokens >= 1d) {
+                bucket.tokens -= 1d;
+                return 0L;
+            }
+            if (refillPerSecond <= 0d) {
+                return Long.MAX_VALUE;
+            }
+            return (long) Math.ceil((1d - bucket.tokens) * 1_000_000_000d / refillPerSecond);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    // 🔹 Eliminar buckets sin actividad; devuelve cuántos se han descartado
+    public int evictIdle(long nowNanos, long idleNanos) {
+        int eliminados = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                Iterator<Bucket> it = stripe.buckets.values().iterator();
+                while (it.hasNext()) {
+                    if (nowNanos - it.next().lastRefillNanos > idleNanos) {
+                        it.remove();
+                        eliminados++;
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return eliminados;
+    }
+
+    public int size() {
+        int total = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                total += stripe.buckets.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return total;
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Bucket> buckets = new HashMap<>();
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long lastRefillNanos;
+
+        private Bucket(int capacity, long nowNanos) {
+            this.tokens = capacity;
+            this.lastRefillNanos = nowNanos;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.experienciassoria.security;
+
+import com.experienciassoria.model.Usuario;
+import com.experienciassoria.repository.UsuarioRepository;
+import com.experienciassoria.util.Transacciones;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Versiones de token vigentes por usuario.
+ * Solo se guardan los usuarios cuya versión es distinta de 0 (los que han sido revocados alguna vez),
+ * por lo que comprobar un token es una búsqueda en memoria sin acceso a la BD.
+ */
+@Slf4j
+@Component
+public class TokenVersionRegistry {
+
+    private final UsuarioRepository usuarioRepository;
+    private final Map<UUID, Integer> versiones = new ConcurrentHashMap<>();
+
+    public TokenVersionRegistry(UsuarioRepository usuarioRepository) {
+        this.usuarioRepository = usuarioRepository;
+    }
+
+    @PostConstruct
+    void cargar() {
+        usuarioRepository.findTokenVersionesRevocadas()
+                .forEach(v -> versiones.put(v.getId(), v.getTokenVersion()));
+        log.info("Cargadas {} versiones de token revocadas", versiones.size());
+    }
+
+    // 🔹 Comprobar si la versión incluida en un token sigue vigente para el usuario
+    public boolean esVigente(UUID usuarioId, int version) {
+        return versiones.getOrDefault(usuarioId, 0) == version;
+    }
+
+    /**
+     * Invalidar todos los tokens emitidos hasta ahora para el usuario (rol o estado cambiados).
+     * La versión de la entidad sube en la transacción en curso; la de memoria solo tras el commit, para que un
+     * rollback no deje rechazando los tokens con la versión que sigue vigente en la BD.
+     */
+    public void revocar(Usuario usuario) {
+        int nuevaVersion = usuario.getTokenVersion() + 1;
+        usuario.setTokenVersion(nuevaVersion);
+        UUID usuarioId = usuario.getId();
+        Transacciones.despuesDelCommit(() -> {
+            // Dos revocaciones seguidas pueden confirmarse en cualquier orden: se queda la mayor
+            versiones.merge(usuarioId, nuevaVersion, Math::max);
+            log.info("Tokens revocados para usuario {} (versión {})", usuarioId, nuevaVersion);
+        });
+    }
+}
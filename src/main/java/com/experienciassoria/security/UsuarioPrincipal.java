@@ -0,0 +1,34 @@
+package com.experienciassoria.security;
+
+import com.experienciassoria.model.Usuario;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Principal inmutable construido solo a partir de los claims del JWT.
+ * Sustituye a la entidad {@link Usuario} en el contexto de seguridad para no consultar la BD en cada petición.
+ */
+@Getter
+public final class UsuarioPrincipal {
+
+    private final UUID id;
+    private final String email;
+    private final Usuario.Rol role;
+    private final List<GrantedAuthority> authorities;
+
+    public UsuarioPrincipal(UUID id, String email, Usuario.Rol role) {
+        this.id = id;
+        this.email = email;
+        this.role = role;
+        this.authorities = List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+
+    @Override
+    public String toString() {
+        return email;
+    }
+}
@@ -7,27 +7,31 @@ import com.experienciassoria.exception.ValidationException;
 import com.experienciassoria.model.Usuario;
 import com.experienciassoria.repository.UsuarioRepository;
 import com.experienciassoria.security.JwtUtils;
+import com.experienciassoria.security.PasswordHashingExecutor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.UUID;
 
 @Slf4j
 @Service
 public class AuthService {
 
     private final UsuarioRepository usuarioRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashing;
     private final JwtUtils jwtUtils;
+    private final Clasificacion clasificacion;
 
     public AuthService(UsuarioRepository usuarioRepository,
-                       PasswordEncoder passwordEncoder,
-                       JwtUtils jwtUtils) {
+                       PasswordHashingExecutor passwordHashing,
+                       JwtUtils jwtUtils,
+                       Clasificacion clasificacion) {
         this.usuarioRepository = usuarioRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashing = passwordHashing;
         this.jwtUtils = jwtUtils;
+        this.clasificacion = clasificacion;
     }
 
     public AuthResponse register(RegisterRequest request) {
@@ -40,15 +44,16 @@ public class AuthService {
         Usuario usuario = Usuario.builder()
                 .nombre(request.getNombre())
                 .email(request.getEmail())
-                .passwordHash(passwordEncoder.encode(request.getPassword()))
+                .passwordHash(passwordHashing.encode(request.getPassword()))
                 .role(Usuario.Rol.USER)
                 .fechaCreacion(Instant.now())
                 .build();
 
         usuarioRepository.save(usuario);
+        clasificacion.actualizar(usuario);
         log.info("Usuario registrado exitosamente: {}", request.getEmail());
 
-        String token = jwtUtils.generateToken(usuario.getEmail());
+        String token = jwtUtils.generateToken(usuario);
         return new AuthResponse(token);
     }
 
@@ -57,29 +62,43 @@ public class AuthService {
         Usuario usuario = usuarioRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
 
-        if (!passwordEncoder.matches(request.getPassword(), usuario.getPasswordHash())) {
+        if (!passwordHashing.matches(request.getPassword(), usuario.getPasswordHash())) {
             throw new ValidationException("Contraseña incorrecta");
         }
 
-        String token = jwtUtils.generateToken(usuario.getEmail());
+        // 🔸 Si el hash se creó con un coste BCrypt menor al actual, se regenera en segundo plano
+        if (passwordHashing.necesitaActualizar(usuario.getPasswordHash())) {
+            UUID usuarioId = usuario.getId();
+            passwordHashing.actualizarEnSegundoPlano(request.getPassword(), nuevoHash -> {
+                usuarioRepository.actualizarPasswordHash(usuarioId, nuevoHash);
+                log.info("Hash de contraseña actualizado al coste actual para usuario {}", usuarioId);
+            });
+        }
+
+        // Un usuario desactivado no puede obtener tokens nuevos (sus tokens previos ya fueron revocados)
+        if (!usuario.isActivo()) {
+            throw new ValidationException("El usuario está desactivado");
+        }
+
+        String token = jwtUtils.generateToken(usuario);
         return new AuthResponse(token);
     }
 
-    public UsuarioDto getMe(String email) {
-        Usuario usuario = usuarioRepository.findByEmail(email)
+    public UsuarioDto getMe(UUID usuarioId) {
+        Usuario usuario = usuarioRepository.findById(usuarioId)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
         return new UsuarioDto(usuario.getId(), usuario.getNombre(), usuario.getEmail(), usuario.getRole().name(), usuario.getPuntos(), usuario.getFotoPerfilUrl());
     }
 
     @Transactional
-    public UsuarioDto actualizarFotoPerfil(String email, String fotoPerfilUrl) {
-        log.info("Actualizando foto de perfil para usuario: {}", email);
-        Usuario usuario = usuarioRepository.findByEmail(email)
+    public UsuarioDto actualizarFotoPerfil(UUID usuarioId, String fotoPerfilUrl) {
+        log.info("Actualizando foto de perfil para usuario: {}", usuarioId);
+        Usuario usuario = usuarioRepository.findById(usuarioId)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
 
         usuario.setFotoPerfilUrl(fotoPerfilUrl);
         usuarioRepository.save(usuario);
-        log.info("Foto de perfil actualizada exitosamente para usuario: {}", email);
+        log.info("Foto de perfil actualizada exitosamente para usuario: {}", usuarioId);
 
         return new UsuarioDto(usuario.getId(), usuario.getNombre(), usuario.getEmail(), usuario.getRole().name(), usuario.getPuntos(), usuario.getFotoPerfilUrl());
     }
@@ -0,0 +1,195 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.dto.experiencia.ExperienciaDetailDTO;
+import com.experienciassoria.dto.experiencia.ExperienciaListDTO;
+import com.experienciassoria.dto.experiencia.OrdenCatalogo;
+import com.experienciassoria.model.Experiencia;
+import com.experienciassoria.repository.ExperienciaRepository;
+import com.experienciassoria.util.MapperUtils;
+import com.experienciassoria.util.TextoUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Snapshot inmutable del catálogo en memoria.
+ * Las lecturas públicas se sirven desde aquí sin tocar la BD; cada escritura de un admin
+ * construye una versión nueva (copy-on-write) y la publica de forma atómica.
+ */
+@Slf4j
+@Component
+public class CatalogoCache {
+
+    /**
+     * Mismo desempate que la BD: el id se guarda como BINARY(16) y se compara byte a byte (sin signo),
+     * no con el orden con signo de {@link UUID#compareTo}.
+     */
+    private static final Comparator<UUID> ORDEN_ID = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    // Por la clave Experiencia.tituloOrden, que la BD compara por código (utf8mb4_0900_bin) igual que String
+    private static final Comparator<ExperienciaListDTO> POR_TITULO = Comparator
+            .comparing((ExperienciaListDTO e) -> TextoUtils.normalizar(e.getTitulo()))
+            .thenComparing(ExperienciaListDTO::getId, ORDEN_ID);
+
+    private static final Comparator<ExperienciaListDTO> POR_PUNTOS = Comparator
+            .comparingInt(ExperienciaListDTO::getPuntosOtorgados).reversed()
+            .thenComparing(ExperienciaListDTO::getId, ORDEN_ID);
+
+    private final ExperienciaRepository experienciaRepository;
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer rebuildTimer;
+
+    // null hasta la primera carga: mientras tanto las lecturas van a la BD
+    private volatile Snapshot snapshot;
+
+    public CatalogoCache(ExperienciaRepository experienciaRepository, MeterRegistry meterRegistry) {
+        this.experienciaRepository = experienciaRepository;
+        this.hits = Counter.builder("catalogo.cache.hits").register(meterRegistry);
+        this.misses = Counter.builder("catalogo.cache.misses").register(meterRegistry);
+        this.rebuildTimer = Timer.builder("catalogo.cache.rebuild").register(meterRegistry);
+        Gauge.builder("catalogo.cache.size", this, c -> c.snapshot != null ? c.snapshot.detalles.size() : 0)
+                .register(meterRegistry);
+        Gauge.builder("catalogo.cache.version", this, c -> c.snapshot != null ? c.snapshot.version : 0)
+                .register(meterRegistry);
+    }
+
+    // 🔹 Reconstruir el snapshot completo desde la BD (arranque y reconciliación periódica)
+    public synchronized Collection<ExperienciaDetailDTO> reconstruir() {
+        return rebuildTimer.record(() -> {
+            Map<UUID, ExperienciaDetailDTO> detalles = new HashMap<>();
+            for (Experiencia exp : experienciaRepository.findAllConGaleria()) {
+                detalles.put(exp.getId(), MapperUtils.toDetailDTO(exp));
+            }
+            long version = snapshot != null ? snapshot.version + 1 : 1;
+            snapshot = new Snapshot(version, detalles);
+            log.info("Catálogo en memoria reconstruido: {} experiencias (versión {})", detalles.size(), version);
+            return snapshot.detalles.values();
+        });
+    }
+
+    public boolean isCargado() {
+        return snapshot != null;
+    }
+
+    /**
+     * Detalle de una experiencia.
+     * Con el snapshot cargado, un Optional vacío significa que la experiencia no existe;
+     * devuelve null si todavía no hay snapshot y hay que consultar la BD.
+     */
+    public Optional<ExperienciaDetailDTO> getDetalle(UUID id) {
+        Snapshot actual = snapshot;
+        if (actual == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return Optional.ofNullable(actual.detalles.get(id));
+    }
+
+    /**
+     * Filas de una página keyset sobre las listas ordenadas del snapshot (null si no hay snapshot).
+     * Igual que la consulta equivalente a BD: devuelve hasta {@code limit} filas posteriores a {@code despuesDe}.
+     */
+    public List<ExperienciaListDTO> getPagina(Experiencia.Categoria categoria, Boolean visible,
+                                              OrdenCatalogo orden, ExperienciaListDTO despuesDe, int limit) {
+        Snapshot actual = snapshot;
+        if (actual == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+
+        List<ExperienciaListDTO> lista = orden == OrdenCatalogo.PUNTOS ? actual.porPuntos : actual.porTitulo;
+        int inicio = 0;
+        if (despuesDe != null) {
+            int pos = Collections.binarySearch(lista, despuesDe, orden == OrdenCatalogo.PUNTOS ? POR_PUNTOS : POR_TITULO);
+            inicio = pos >= 0 ? pos + 1 : -pos - 1;
+        }
+
+        String nombreCategoria = categoria != null ? categoria.name() : null;
+        List<ExperienciaListDTO> filas = new ArrayList<>(Math.min(limit, lista.size()));
+        for (int i = inicio; i < lista.size() && filas.size() < limit; i++) {
+            ExperienciaListDTO e = lista.get(i);
+            if ((nombreCategoria == null || nombreCategoria.equals(e.getCategoria()))
+                    && (visible == null || visible == e.isVisible())) {
+                filas.add(e);
+            }
+        }
+        return filas;
+    }
+
+    // 🔹 Número de experiencias visibles por categoría (null si no hay snapshot)
+    public Map<Experiencia.Categoria, Integer> getVisiblesPorCategoria() {
+        Snapshot actual = snapshot;
+        if (actual == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return actual.visiblesPorCategoria;
+    }
+
+    // 🔹 Write-through: publicar la versión nueva de una experiencia creada o actualizada
+    public synchronized void actualizar(ExperienciaDetailDTO detalle) {
+        Snapshot actual = snapshot;
+        if (actual == null) {
+            return;
+        }
+        Map<UUID, ExperienciaDetailDTO> detalles = new HashMap<>(actual.detalles);
+        detalles.put(detalle.getId(), detalle);
+        snapshot = new Snapshot(actual.version + 1, detalles);
+    }
+
+    // 🔹 Write-through: retirar una experiencia eliminada
+    public synchronized void eliminar(UUID id) {
+        Snapshot actual = snapshot;
+        if (actual == null || !actual.detalles.containsKey(id)) {
+            return;
+        }
+        Map<UUID, ExperienciaDetailDTO> detalles = new HashMap<>(actual.detalles);
+        detalles.remove(id);
+        snapshot = new Snapshot(actual.version + 1, detalles);
+    }
+
+    private static final class Snapshot {
+        private final long version;
+        private final Map<UUID, ExperienciaDetailDTO> detalles;
+        private final List<ExperienciaListDTO> porTitulo;
+        private final List<ExperienciaListDTO> porPuntos;
+        private final Map<Experiencia.Categoria, Integer> visiblesPorCategoria;
+
+        private Snapshot(long version, Map<UUID, ExperienciaDetailDTO> detalles) {
+            this.version = version;
+            this.detalles = Collections.unmodifiableMap(detalles);
+
+            List<ExperienciaListDTO> lista = new ArrayList<>(detalles.size());
+            Map<UUID, String> claves = new HashMap<>(detalles.size());
+            for (ExperienciaDetailDTO d : detalles.values()) {
+                ExperienciaListDTO e = MapperUtils.toListDTO(d);
+                lista.add(e);
+                claves.put(e.getId(), TextoUtils.normalizar(e.getTitulo()));
+            }
+            // Igual que POR_TITULO, pero normalizando cada título una sola vez
+            lista.sort(Comparator.comparing((ExperienciaListDTO e) -> claves.get(e.getId()))
+                    .thenComparing(ExperienciaListDTO::getId, ORDEN_ID));
+            this.porTitulo = List.copyOf(lista);
+            EnumMap<Experiencia.Categoria, Integer> porCategoria = new EnumMap<>(Experiencia.Categoria.class);
+            for (ExperienciaListDTO e : lista) {
+                if (e.isVisible()) {
+                    porCategoria.merge(Experiencia.Categoria.valueOf(e.getCategoria()), 1, Integer::sum);
+                }
+            }
+            this.visiblesPorCategoria = Collections.unmodifiableMap(porCategoria);
+            lista.sort(POR_PUNTOS);
+            this.porPuntos = List.copyOf(lista);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.dto.top.PosicionRankingDTO;
+import com.experienciassoria.dto.top.UsuarioRankingDTO;
+import com.experienciassoria.model.Usuario;
+import com.experienciassoria.repository.UsuarioRepository;
+import com.experienciassoria.util.SkipListIndexada;
+import com.experienciassoria.util.Transacciones;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Clasificación de usuarios activos por puntos, en memoria.
+ * Se carga al arrancar, se actualiza cuando se suman puntos o cambia un usuario y se reconcilia
+ * periódicamente con la BD. Top N y posición de un usuario en O(log n), sin consultas.
+ */
+@Slf4j
+@Component
+public class Clasificacion {
+
+    // Más puntos primero; a igualdad de puntos, orden estable por id
+    private static final Comparator<Puesto> ORDEN = Comparator.comparingInt(Puesto::puntos).reversed()
+            .thenComparing(Puesto::id);
+    // Menor UUID posible (UUID.compareTo compara con signo)
+    private static final UUID ID_MINIMO = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+
+    private final UsuarioRepository usuarioRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object reconstruccion = new Object();
+
+    // null hasta la primera carga
+    private volatile SkipListIndexada<Puesto> lista;
+    private Map<UUID, Puesto> porUsuario;
+    // Usuarios modificados mientras se reconstruye: se vuelven a leer de la BD al terminar
+    private Set<UUID> pendientes;
+    // Se incrementa con cada cambio (para detectar cambios sin recorrer la clasificación)
+    private volatile long version;
+
+    public Clasificacion(UsuarioRepository usuarioRepository, MeterRegistry meterRegistry) {
+        this.usuarioRepository = usuarioRepository;
+        Gauge.builder("top.usuarios", this, Clasificacion::size).register(meterRegistry);
+    }
+
+    // 🔹 Cargar al arrancar y reconciliar periódicamente con la BD
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.top.reconciliacion-ms:900000}",
+            initialDelayString = "${app.top.reconciliacion-ms:900000}")
+    public void reconstruir() {
+        synchronized (reconstruccion) {
+            escribir(() -> pendientes = new HashSet<>());
+
+            SkipListIndexada<Puesto> nuevaLista = new SkipListIndexada<>(ORDEN);
+            Map<UUID, Puesto> nuevoPorUsuario = new HashMap<>();
+            for (UsuarioRepository.RankingView fila : usuarioRepository.findRankingActivos()) {
+                Puesto puesto = new Puesto(fila.getId(), fila.getNombre(), fila.getPuntos(), fila.getRole().name());
+                nuevaLista.add(puesto);
+                nuevoPorUsuario.put(puesto.id(), puesto);
+            }
+
+            Set<UUID> modificados = new HashSet<>();
+            escribir(() -> {
+                modificados.addAll(pendientes);
+                pendientes = null;
+                lista = nuevaLista;
+                porUsuario = nuevoPorUsuario;
+                version++;
+            });
+            if (!modificados.isEmpty()) {
+                for (UsuarioRepository.RankingView fila : usuarioRepository.findRankingByIds(modificados)) {
+                    escribir(() -> colocar(fila.getId(), fila.isActivo()
+                            ? new Puesto(fila.getId(), fila.getNombre(), fila.getPuntos(), fila.getRole().name())
+                            : null));
+                }
+            }
+            log.info("Clasificación en memoria reconstruida: {} usuarios", nuevaLista.size());
+        }
+    }
+
+    // 🔹 Los {@code limit} primeros de la clasificación
+    public List<UsuarioRankingDTO> top(int limit) {
+        asegurarCargada();
+        lock.readLock().lock();
+        try {
+            return conPosiciones(0, lista.rango(0, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 🔹 Posición de un usuario y hasta {@code vecinos} usuarios por delante y por detrás (vacío si no clasifica)
+    public Optional<PosicionRankingDTO> entorno(UUID usuarioId, int vecinos) {
+        asegurarCargada();
+        lock.readLock().lock();
+        try {
+            Puesto puesto = porUsuario.get(usuarioId);
+            if (puesto == null) {
+                return Optional.empty();
+            }
+            int indice = lista.contarAnteriores(puesto);
+            int desde = Math.max(0, indice - vecinos);
+            List<UsuarioRankingDTO> tramo = conPosiciones(desde, lista.rango(desde, indice - desde + 1 + vecinos));
+            UsuarioRankingDTO propio = tramo.get(indice - desde);
+            return Optional.of(new PosicionRankingDTO(propio.getPosicion(), puesto.puntos(), lista.size(),
+                    tramo.subList(0, indice - desde), tramo.subList(indice - desde + 1, tramo.size())));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 🔹 Puesto de un usuario activo (nombre, rol y puntos totales); vacío si no clasifica
+    public Optional<Puesto> getPuesto(UUID usuarioId) {
+        asegurarCargada();
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(porUsuario.get(usuarioId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Posición "deportiva" de un tramo que empieza en {@code desde}: los empatados a puntos comparten posición
+    private List<UsuarioRankingDTO> conPosiciones(int desde, List<Puesto> puestos) {
+        List<UsuarioRankingDTO> ranking = new ArrayList<>(puestos.size());
+        int posicion = 0;
+        for (int i = 0; i < puestos.size(); i++) {
+            Puesto p = puestos.get(i);
+            if (i == 0) {
+                // 1 + usuarios con más puntos: el id mínimo queda delante de todos los empatados
+                posicion = lista.contarAnteriores(new Puesto(ID_MINIMO, null, p.puntos(), null)) + 1;
+            } else if (p.puntos() != puestos.get(i - 1).puntos()) {
+                posicion = desde + i + 1;
+            }
+            ranking.add(new UsuarioRankingDTO(posicion, p.nombre(), p.puntos(), p.rol()));
+        }
+        return ranking;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return lista != null ? lista.size() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 🔹 Sumar puntos a un usuario (tras el commit de la transacción en curso)
+    public void sumarPuntos(UUID usuarioId, int puntos) {
+        Transacciones.despuesDelCommit(() -> escribir(() -> {
+            Puesto actual = porUsuario != null ? porUsuario.get(usuarioId) : null;
+            if (actual != null) {
+                colocar(usuarioId, new Puesto(usuarioId, actual.nombre(), actual.puntos() + puntos, actual.rol()));
+            }
+            if (pendientes != null) {
+                pendientes.add(usuarioId);
+            }
+        }));
+    }
+
+    /**
+     * Reflejar un usuario nuevo o modificado (nombre, rol, activo) tras el commit.
+     * Los puntos de la clasificación se conservan: la entidad puede no tener los sumados en paralelo.
+     */
+    public void actualizar(Usuario usuario) {
+        UUID id = usuario.getId();
+        Puesto datos = new Puesto(id, usuario.getNombre(), usuario.getPuntos(), usuario.getRole().name());
+        boolean activo = usuario.isActivo();
+        Transacciones.despuesDelCommit(() -> escribir(() -> {
+            if (porUsuario != null) {
+                Puesto actual = porUsuario.get(id);
+                int puntos = actual != null ? actual.puntos() : datos.puntos();
+                colocar(id, activo ? new Puesto(id, datos.nombre(), puntos, datos.rol()) : null);
+            }
+            if (pendientes != null) {
+                pendientes.add(id);
+            }
+        }));
+    }
+
+    // Sustituir (o quitar, con null) el puesto de un usuario; con el lock de escritura tomado
+    private void colocar(UUID usuarioId, Puesto nuevo) {
+        Puesto anterior = nuevo != null ? porUsuario.put(usuarioId, nuevo) : porUsuario.remove(usuarioId);
+        if (anterior != null) {
+            lista.remove(anterior);
+        }
+        if (nuevo != null) {
+            lista.add(nuevo);
+        }
+        version++;
+    }
+
+    // Si se consulta antes de la carga inicial, se carga en ese momento
+    private void asegurarCargada() {
+        if (lista == null) {
+            synchronized (reconstruccion) {
+                if (lista == null) {
+                    reconstruir();
+                }
+            }
+        }
+    }
+
+    private void escribir(Runnable cambio) {
+        lock.writeLock().lock();
+        try {
+            cambio.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public record Puesto(UUID id, String nombre, int puntos, String rol) {
+    }
+}
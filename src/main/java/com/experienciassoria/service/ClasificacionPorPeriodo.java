@@ -0,0 +1,296 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.dto.pasaporte.RegistroExperienciaDTO;
+import com.experienciassoria.dto.top.PeriodoRanking;
+import com.experienciassoria.dto.top.UsuarioRankingDTO;
+import com.experienciassoria.repository.RegistroExperienciaRepository;
+import com.experienciassoria.util.SkipListIndexada;
+import com.experienciassoria.util.Transacciones;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Clasificaciones de ventana móvil (semana, mes, temporada) a partir de los registros del pasaporte.
+ * Se guardan los puntos de cada usuario por día en cubos; cada ventana mantiene la suma por usuario y
+ * una skip list ordenada. Al cambiar de día solo se restan los cubos que salen de cada ventana.
+ */
+@Slf4j
+@Component
+public class ClasificacionPorPeriodo {
+
+    private static final Comparator<Entrada> ORDEN = Comparator.comparingInt(Entrada::puntos).reversed()
+            .thenComparing(Entrada::usuarioId);
+
+    private final RegistroExperienciaRepository registroRepository;
+    private final Clasificacion clasificacion;
+    private final ZoneId zona;
+    private final EnumMap<PeriodoRanking, Integer> diasPorPeriodo = new EnumMap<>(PeriodoRanking.class);
+    private final int diasMaximo;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object reconstruccion = new Object();
+
+    // null hasta la primera carga (o tras invalidar)
+    private volatile Estado estado;
+    // Usuarios con registros nuevos mientras se reconstruye: se vuelven a leer de la BD al terminar
+    private Set<UUID> pendientes;
+
+    public ClasificacionPorPeriodo(RegistroExperienciaRepository registroRepository,
+                                   Clasificacion clasificacion,
+                                   @Value("${app.top.zona:Europe/Madrid}") String zona,
+                                   @Value("${app.top.temporada-dias:90}") int diasTemporada) {
+        this.registroRepository = registroRepository;
+        this.clasificacion = clasificacion;
+        this.zona = ZoneId.of(zona);
+        diasPorPeriodo.put(PeriodoRanking.SEMANA, 7);
+        diasPorPeriodo.put(PeriodoRanking.MES, 30);
+        diasPorPeriodo.put(PeriodoRanking.TEMPORADA, Math.max(1, diasTemporada));
+        this.diasMaximo = Collections.max(diasPorPeriodo.values());
+    }
+
+    // 🔹 Cargar al arrancar con los registros de la ventana más larga
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruir() {
+        synchronized (reconstruccion) {
+            escribir(() -> pendientes = new HashSet<>());
+
+            long hoy = hoy();
+            Estado nuevo = new Estado(hoy);
+            for (RegistroExperienciaRepository.PuntosRegistroView fila : registroRepository.findPuntosDesde(inicioVentana(hoy))) {
+                nuevo.sumar(fila.getUsuarioId(), dia(fila.getFechaRegistro()), fila.getPuntos());
+            }
+
+            Set<UUID> modificados = new HashSet<>();
+            escribir(() -> {
+                modificados.addAll(pendientes);
+                pendientes = null;
+                estado = nuevo;
+            });
+            if (!modificados.isEmpty()) {
+                List<RegistroExperienciaRepository.PuntosRegistroView> filas =
+                        registroRepository.findPuntosDesdeByUsuarios(inicioVentana(hoy), modificados);
+                escribir(() -> {
+                    modificados.forEach(nuevo::quitarUsuario);
+                    filas.forEach(f -> nuevo.sumar(f.getUsuarioId(), dia(f.getFechaRegistro()), f.getPuntos()));
+                });
+            }
+            log.info("Clasificaciones por periodo cargadas: {} usuarios en la temporada",
+                    nuevo.ventanas.get(PeriodoRanking.TEMPORADA).sumas.size());
+        }
+    }
+
+    // 🔹 Top de un periodo: solo usuarios activos (los que están en la clasificación general)
+    public List<UsuarioRankingDTO> top(PeriodoRanking periodo, int limit) {
+        Estado actual = asegurarAlDia();
+        List<UsuarioRankingDTO> ranking = new ArrayList<>(limit);
+        lock.readLock().lock();
+        try {
+            Ventana ventana = actual.ventanas.get(periodo);
+            int posicion = 0;
+            // Se lee por tramos por si hay que saltar usuarios inactivos
+            for (int desde = 0; ranking.size() < limit && desde < ventana.lista.size(); desde += limit) {
+                for (Entrada e : ventana.lista.rango(desde, limit)) {
+                    Optional<Clasificacion.Puesto> puesto = clasificacion.getPuesto(e.usuarioId());
+                    if (puesto.isEmpty()) {
+                        continue;
+                    }
+                    // Los empatados a puntos comparten posición
+                    if (ranking.isEmpty() || e.puntos() != ranking.get(ranking.size() - 1).getPuntos()) {
+                        posicion = ranking.size() + 1;
+                    }
+                    ranking.add(new UsuarioRankingDTO(posicion, puesto.get().nombre(), e.puntos(), puesto.get().rol()));
+                    if (ranking.size() == limit) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return ranking;
+    }
+
+    // 🔹 Sumar registros nuevos a los cubos de su día (tras el commit de la transacción en curso)
+    public void registrar(UUID usuarioId, List<RegistroExperienciaDTO> registros) {
+        if (registros.isEmpty()) {
+            return;
+        }
+        Transacciones.despuesDelCommit(() -> escribir(() -> {
+            if (estado != null) {
+                for (RegistroExperienciaDTO r : registros) {
+                    estado.sumar(usuarioId, dia(r.getFechaRegistro()), r.getPuntosOtorgados());
+                }
+            }
+            if (pendientes != null) {
+                pendientes.add(usuarioId);
+            }
+        }));
+    }
+
+    // 🔹 Descartar los datos (se han borrado registros) y recargar en la siguiente consulta, tras el commit
+    public void invalidar() {
+        Transacciones.despuesDelCommit(() -> {
+            synchronized (reconstruccion) {
+                escribir(() -> estado = null);
+            }
+        });
+    }
+
+    // Carga si hace falta y aplica el cambio de día pendiente (solo resta los cubos que salen)
+    private Estado asegurarAlDia() {
+        Estado actual = estado;
+        if (actual == null) {
+            synchronized (reconstruccion) {
+                if (estado == null) {
+                    reconstruir();
+                }
+                actual = estado;
+            }
+        }
+        long hoy = hoy();
+        if (hoy > actual.diaActual) {
+            Estado objetivo = actual;
+            escribir(() -> objetivo.avanzar(hoy));
+        }
+        return actual;
+    }
+
+    private long hoy() {
+        return LocalDate.now(zona).toEpochDay();
+    }
+
+    private long dia(Instant instante) {
+        return instante.atZone(zona).toLocalDate().toEpochDay();
+    }
+
+    private Instant inicioVentana(long hoy) {
+        return LocalDate.ofEpochDay(hoy - diasMaximo + 1).atStartOfDay(zona).toInstant();
+    }
+
+    private void escribir(Runnable cambio) {
+        lock.writeLock().lock();
+        try {
+            cambio.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Cubos diarios en anillo (un hueco por día de la ventana más larga) y las ventanas derivadas.
+     * Se modifica con el lock de escritura tomado.
+     */
+    private final class Estado {
+
+        private final Map<UUID, Integer>[] cubos;
+        private final EnumMap<PeriodoRanking, Ventana> ventanas = new EnumMap<>(PeriodoRanking.class);
+        private volatile long diaActual;
+
+        @SuppressWarnings("unchecked")
+        private Estado(long hoy) {
+            this.diaActual = hoy;
+            this.cubos = new Map[diasMaximo];
+            for (int i = 0; i < diasMaximo; i++) {
+                cubos[i] = new HashMap<>();
+            }
+            diasPorPeriodo.forEach((periodo, dias) -> ventanas.put(periodo, new Ventana(dias)));
+        }
+
+        private void sumar(UUID usuarioId, long dia, int puntos) {
+            if (dia > diaActual) {
+                avanzar(dia);
+            }
+            if (dia <= diaActual - diasMaximo) {
+                return;
+            }
+            cubos[hueco(dia)].merge(usuarioId, puntos, Integer::sum);
+            for (Ventana ventana : ventanas.values()) {
+                if (dia > diaActual - ventana.dias) {
+                    ventana.sumar(usuarioId, puntos);
+                }
+            }
+        }
+
+        // Cada día nuevo: cada ventana resta el cubo del día que deja de cubrir y el hueco se reutiliza
+        private void avanzar(long hoy) {
+            if (hoy <= diaActual) {
+                return;
+            }
+            if (hoy - diaActual >= diasMaximo) {
+                for (Map<UUID, Integer> cubo : cubos) {
+                    cubo.clear();
+                }
+                ventanas.values().forEach(Ventana::vaciar);
+                diaActual = hoy;
+                return;
+            }
+            for (long d = diaActual + 1; d <= hoy; d++) {
+                for (Ventana ventana : ventanas.values()) {
+                    cubos[hueco(d - ventana.dias)].forEach((usuarioId, puntos) -> ventana.sumar(usuarioId, -puntos));
+                }
+                // El hueco de hoy es el del día que acaba de salir de la ventana más larga
+                cubos[hueco(d)].clear();
+            }
+            diaActual = hoy;
+        }
+
+        private void quitarUsuario(UUID usuarioId) {
+            for (long dia = diaActual - diasMaximo + 1; dia <= diaActual; dia++) {
+                Integer puntos = cubos[hueco(dia)].remove(usuarioId);
+                if (puntos == null) {
+                    continue;
+                }
+                for (Ventana ventana : ventanas.values()) {
+                    if (dia > diaActual - ventana.dias) {
+                        ventana.sumar(usuarioId, -puntos);
+                    }
+                }
+            }
+        }
+
+        private int hueco(long dia) {
+            return (int) Math.floorMod(dia, (long) diasMaximo);
+        }
+    }
+
+    private static final class Ventana {
+        private final int dias;
+        private final Map<UUID, Integer> sumas = new HashMap<>();
+        private SkipListIndexada<Entrada> lista = new SkipListIndexada<>(ORDEN);
+
+        private Ventana(int dias) {
+            this.dias = dias;
+        }
+
+        // Solo están en la ventana los usuarios con puntos en ella
+        private void sumar(UUID usuarioId, int delta) {
+            Integer anterior = sumas.get(usuarioId);
+            int total = (anterior != null ? anterior : 0) + delta;
+            if (anterior != null) {
+                lista.remove(new Entrada(usuarioId, anterior));
+            }
+            if (total > 0) {
+                sumas.put(usuarioId, total);
+                lista.add(new Entrada(usuarioId, total));
+            } else {
+                sumas.remove(usuarioId);
+            }
+        }
+
+        private void vaciar() {
+            sumas.clear();
+            lista = new SkipListIndexada<>(ORDEN);
+        }
+    }
+
+    private record Entrada(UUID usuarioId, int puntos) {
+    }
+}
@@ -0,0 +1,253 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.dto.pasaporte.RegistroExperienciaDTO;
+import com.experienciassoria.dto.top.PioneroDTO;
+import com.experienciassoria.dto.top.VisitasRankingDTO;
+import com.experienciassoria.model.Experiencia;
+import com.experienciassoria.repository.RegistroExperienciaRepository;
+import com.experienciassoria.util.SkipListIndexada;
+import com.experienciassoria.util.Transacciones;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Clasificaciones por visitas, en memoria: usuarios con más experiencias registradas de cada categoría
+ * y primeros visitantes (pioneros) de cada experiencia. Se cargan al arrancar con dos consultas
+ * agregadas y se actualizan con cada registro, sin agrupar registro_experiencia en cada petición.
+ */
+@Slf4j
+@Component
+public class ClasificacionVisitas {
+
+    private static final Comparator<Entrada> ORDEN = Comparator.comparingInt(Entrada::visitadas).reversed()
+            .thenComparing(Entrada::usuarioId);
+    private static final Comparator<Pionero> ORDEN_LLEGADA = Comparator.comparing(Pionero::fechaRegistro)
+            .thenComparing(Pionero::usuarioId);
+
+    private final RegistroExperienciaRepository registroRepository;
+    private final Clasificacion clasificacion;
+    private final int maxPioneros;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object reconstruccion = new Object();
+
+    // null hasta la primera carga (o tras invalidar)
+    private volatile Estado estado;
+    // Usuarios y experiencias con registros nuevos mientras se reconstruye: se vuelven a leer de la BD al terminar
+    private Set<UUID> usuariosPendientes;
+    private Set<UUID> experienciasPendientes;
+
+    public ClasificacionVisitas(RegistroExperienciaRepository registroRepository,
+                                Clasificacion clasificacion,
+                                @Value("${app.top.pioneros:10}") int maxPioneros) {
+        this.registroRepository = registroRepository;
+        this.clasificacion = clasificacion;
+        this.maxPioneros = Math.max(1, maxPioneros);
+    }
+
+    // 🔹 Cargar al arrancar: visitas por usuario y categoría, y los primeros visitantes de cada experiencia
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruir() {
+        synchronized (reconstruccion) {
+            escribir(() -> {
+                usuariosPendientes = new HashSet<>();
+                experienciasPendientes = new HashSet<>();
+            });
+
+            Estado nuevo = new Estado();
+            for (RegistroExperienciaRepository.ResumenCategoriaView fila : registroRepository.findResumenPorCategoriaTodos()) {
+                nuevo.categorias.get(fila.getCategoria()).poner(fila.getUsuarioId(), (int) fila.getVisitadas());
+            }
+            for (RegistroExperienciaRepository.PioneroView fila : registroRepository.findPioneros(maxPioneros)) {
+                nuevo.agregarPionero(fila.getExperienciaId(), new Pionero(fila.getUsuarioId(), fila.getFechaRegistro()));
+            }
+
+            Set<UUID> usuarios = new HashSet<>();
+            Set<UUID> experiencias = new HashSet<>();
+            escribir(() -> {
+                usuarios.addAll(usuariosPendientes);
+                experiencias.addAll(experienciasPendientes);
+                usuariosPendientes = null;
+                experienciasPendientes = null;
+                estado = nuevo;
+            });
+            if (!usuarios.isEmpty()) {
+                List<RegistroExperienciaRepository.ResumenCategoriaView> filas = registroRepository.findResumenPorCategoria(usuarios);
+                escribir(() -> {
+                    nuevo.categorias.values().forEach(tabla -> usuarios.forEach(id -> tabla.poner(id, 0)));
+                    filas.forEach(f -> nuevo.categorias.get(f.getCategoria()).poner(f.getUsuarioId(), (int) f.getVisitadas()));
+                });
+            }
+            if (!experiencias.isEmpty()) {
+                List<RegistroExperienciaRepository.PioneroView> filas =
+                        registroRepository.findPionerosByExperiencias(experiencias, maxPioneros);
+                escribir(() -> {
+                    experiencias.forEach(nuevo.pioneros::remove);
+                    filas.forEach(f -> nuevo.agregarPionero(f.getExperienciaId(), new Pionero(f.getUsuarioId(), f.getFechaRegistro())));
+                });
+            }
+            log.info("Clasificaciones por visitas cargadas: {} experiencias con pioneros", nuevo.pioneros.size());
+        }
+    }
+
+    // 🔹 Usuarios activos con más experiencias registradas de una categoría
+    public List<VisitasRankingDTO> top(Experiencia.Categoria categoria, int limit) {
+        Estado actual = asegurarCargada();
+        List<VisitasRankingDTO> ranking = new ArrayList<>(limit);
+        lock.readLock().lock();
+        try {
+            SkipListIndexada<Entrada> lista = actual.categorias.get(categoria).lista;
+            int posicion = 0;
+            // Se lee por tramos por si hay que saltar usuarios inactivos
+            for (int desde = 0; ranking.size() < limit && desde < lista.size(); desde += limit) {
+                for (Entrada e : lista.rango(desde, limit)) {
+                    Optional<Clasificacion.Puesto> puesto = clasificacion.getPuesto(e.usuarioId());
+                    if (puesto.isEmpty()) {
+                        continue;
+                    }
+                    // Los empatados a visitas comparten posición
+                    if (ranking.isEmpty() || e.visitadas() != ranking.get(ranking.size() - 1).getVisitadas()) {
+                        posicion = ranking.size() + 1;
+                    }
+                    ranking.add(new VisitasRankingDTO(posicion, puesto.get().nombre(), e.visitadas(), puesto.get().rol()));
+                    if (ranking.size() == limit) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return ranking;
+    }
+
+    // 🔹 Primeros visitantes activos de una experiencia, por orden de llegada
+    public List<PioneroDTO> pioneros(UUID experienciaId) {
+        Estado actual = asegurarCargada();
+        List<PioneroDTO> resultado = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Pionero p : actual.pioneros.getOrDefault(experienciaId, List.of())) {
+                clasificacion.getPuesto(p.usuarioId()).ifPresent(puesto ->
+                        resultado.add(new PioneroDTO(resultado.size() + 1, puesto.nombre(), p.fechaRegistro())));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return resultado;
+    }
+
+    // 🔹 Contar registros nuevos en su categoría y entre los pioneros (tras el commit de la transacción en curso)
+    public void registrar(UUID usuarioId, List<RegistroExperienciaDTO> registros) {
+        if (registros.isEmpty()) {
+            return;
+        }
+        Transacciones.despuesDelCommit(() -> escribir(() -> {
+            for (RegistroExperienciaDTO r : registros) {
+                if (estado != null) {
+                    estado.categorias.get(Experiencia.Categoria.valueOf(r.getCategoria())).sumar(usuarioId, 1);
+                    estado.agregarPionero(r.getExperienciaId(), new Pionero(usuarioId, r.getFechaRegistro()));
+                }
+                if (usuariosPendientes != null) {
+                    usuariosPendientes.add(usuarioId);
+                    experienciasPendientes.add(r.getExperienciaId());
+                }
+            }
+        }));
+    }
+
+    // 🔹 Descartar los datos (se han borrado registros o cambiado de categoría) y recargar en la siguiente consulta
+    public void invalidar() {
+        Transacciones.despuesDelCommit(() -> {
+            synchronized (reconstruccion) {
+                escribir(() -> estado = null);
+            }
+        });
+    }
+
+    private Estado asegurarCargada() {
+        Estado actual = estado;
+        if (actual == null) {
+            synchronized (reconstruccion) {
+                if (estado == null) {
+                    reconstruir();
+                }
+                actual = estado;
+            }
+        }
+        return actual;
+    }
+
+    private void escribir(Runnable cambio) {
+        lock.writeLock().lock();
+        try {
+            cambio.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Una tabla por categoría y los pioneros de cada experiencia. Se modifica con el lock de escritura tomado.
+     */
+    private final class Estado {
+
+        private final EnumMap<Experiencia.Categoria, Tabla> categorias = new EnumMap<>(Experiencia.Categoria.class);
+        // Como mucho maxPioneros por experiencia, ordenados por llegada
+        private final Map<UUID, List<Pionero>> pioneros = new HashMap<>();
+
+        private Estado() {
+            for (Experiencia.Categoria categoria : Experiencia.Categoria.values()) {
+                categorias.put(categoria, new Tabla());
+            }
+        }
+
+        // Un registro con fecha anterior (escaneo offline) puede entrar por delante de los ya guardados
+        private void agregarPionero(UUID experienciaId, Pionero pionero) {
+            List<Pionero> lista = pioneros.computeIfAbsent(experienciaId, id -> new ArrayList<>(maxPioneros + 1));
+            if (lista.size() >= maxPioneros && ORDEN_LLEGADA.compare(pionero, lista.get(lista.size() - 1)) >= 0) {
+                return;
+            }
+            int indice = Collections.binarySearch(lista, pionero, ORDEN_LLEGADA);
+            if (indice >= 0) {
+                return;
+            }
+            lista.add(-indice - 1, pionero);
+            if (lista.size() > maxPioneros) {
+                lista.remove(lista.size() - 1);
+            }
+        }
+    }
+
+    private static final class Tabla {
+        private final Map<UUID, Integer> visitadas = new HashMap<>();
+        private final SkipListIndexada<Entrada> lista = new SkipListIndexada<>(ORDEN);
+
+        private void sumar(UUID usuarioId, int delta) {
+            poner(usuarioId, visitadas.getOrDefault(usuarioId, 0) + delta);
+        }
+
+        // Solo están en la tabla los usuarios con alguna visita en la categoría
+        private void poner(UUID usuarioId, int total) {
+            Integer anterior = total > 0 ? visitadas.put(usuarioId, total) : visitadas.remove(usuarioId);
+            if (anterior != null) {
+                lista.remove(new Entrada(usuarioId, anterior));
+            }
+            if (total > 0) {
+                lista.add(new Entrada(usuarioId, total));
+            }
+        }
+    }
+
+    private record Entrada(UUID usuarioId, int visitadas) {
+    }
+
+    private record Pionero(UUID usuarioId, Instant fechaRegistro) {
+    }
+}
@@ -2,72 +2,165 @@ package com.experienciassoria.service;
 
 import com.experienciassoria.dto.comentario.*;
 import com.experienciassoria.exception.ResourceNotFoundException;
+import com.experienciassoria.exception.ValidationException;
 import com.experienciassoria.model.*;
 import com.experienciassoria.repository.*;
+import com.experienciassoria.util.Cursor;
+import com.experienciassoria.util.PaginaCursor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 @Service
 public class ComentarioService {
 
+    private static final int LIMITE_PAGINA_MAXIMO = 100;
+
     private final ComentarioRepository comentarioRepository;
     private final ExperienciaRepository experienciaRepository;
     private final UsuarioRepository usuarioRepository;
+    private final ExperienciaService experienciaService;
+    private final EstadisticasExperiencias estadisticasExperiencias;
+    private final ModeracionService moderacionService;
 
     public ComentarioService(
             ComentarioRepository comentarioRepository,
             ExperienciaRepository experienciaRepository,
-            UsuarioRepository usuarioRepository) {
+            UsuarioRepository usuarioRepository,
+            ExperienciaService experienciaService,
+            EstadisticasExperiencias estadisticasExperiencias,
+            ModeracionService moderacionService) {
         this.comentarioRepository = comentarioRepository;
         this.experienciaRepository = experienciaRepository;
         this.usuarioRepository = usuarioRepository;
+        this.experienciaService = experienciaService;
+        this.estadisticasExperiencias = estadisticasExperiencias;
+        this.moderacionService = moderacionService;
     }
 
-    // 🔹 Obtener comentarios de una experiencia
-    public List<ComentarioDTO> getComentariosByExperiencia(UUID experienciaId) {
-        Experiencia experiencia = experienciaRepository.findById(experienciaId)
-                .orElseThrow(() -> new ResourceNotFoundException("Experiencia no encontrada"));
+    // 🔹 Página de comentarios de una experiencia, del más reciente al más antiguo
+    public PaginaCursor<ComentarioDTO> getComentariosByExperiencia(UUID experienciaId, String cursor, int limit) {
+        // 404 si la experiencia no existe (se comprueba en el catálogo en memoria, sin cargar la entidad)
+        experienciaService.getExperienciaById(experienciaId);
+        CursorComentario desde = CursorComentario.parse(cursor);
+        int tamano = tamano(limit);
+        return pagina(comentarioRepository.findPaginaByExperiencia(
+                experienciaId, desde.fecha(), desde.id(), PageRequest.of(0, tamano + 1)), tamano,
+                ComentarioDTO::getFecha, ComentarioDTO::getId);
+    }
+
+    // 🔹 Página de comentarios de un usuario, del más reciente al más antiguo
+    public PaginaCursor<ComentarioDTO> getComentariosByUsuario(UUID usuarioId, String cursor, int limit) {
+        CursorComentario desde = CursorComentario.parse(cursor);
+        int tamano = tamano(limit);
+        return pagina(comentarioRepository.findPaginaByUsuario(
+                usuarioId, desde.fecha(), desde.id(), PageRequest.of(0, tamano + 1)), tamano,
+                ComentarioDTO::getFecha, ComentarioDTO::getId);
+    }
+
+    // 🔹 Página de comentarios retenidos por moderación, del más reciente al más antiguo (solo ADMIN)
+    public PaginaCursor<ComentarioRetenidoDTO> getComentariosRetenidos(String cursor, int limit) {
+        CursorComentario desde = CursorComentario.parse(cursor);
+        int tamano = tamano(limit);
+        return pagina(comentarioRepository.findPaginaRetenidos(
+                desde.fecha(), desde.id(), PageRequest.of(0, tamano + 1)), tamano,
+                ComentarioRetenidoDTO::getFecha, ComentarioRetenidoDTO::getId);
+    }
+
+    // 🔹 Publicar un comentario retenido (solo ADMIN)
+    @Transactional
+    public ComentarioDTO aprobarComentario(UUID comentarioId) {
+        Comentario comentario = getRetenido(comentarioId);
+        comentario.setRetenido(false);
+        estadisticasExperiencias.registrarComentario(comentario.getExperiencia().getId());
+        return new ComentarioDTO(
+                comentario.getId(),
+                comentario.getUsuario().getNombre(),
+                comentario.getTexto(),
+                comentario.getFecha());
+    }
 
-        return comentarioRepository.findByExperienciaOrderByFechaDesc(experiencia).stream()
-                .map(c -> new ComentarioDTO(
-                        c.getId(),
-                        c.getUsuario().getNombre(),
-                        c.getTexto(),
-                        c.getFecha()))
-                .collect(Collectors.toList());
+    // 🔹 Descartar un comentario retenido (solo ADMIN)
+    @Transactional
+    public void rechazarComentario(UUID comentarioId) {
+        comentarioRepository.delete(getRetenido(comentarioId));
     }
 
-    // 🔹 Crear un nuevo comentario
+    // 🔹 Crear un nuevo comentario (pasa antes por la moderación: se publica, se enmascara o queda retenido)
     public ComentarioDTO crearComentario(UUID usuarioId, UUID experienciaId, CrearComentarioRequest request) {
         Usuario usuario = usuarioRepository.findById(usuarioId)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
         Experiencia experiencia = experienciaRepository.findById(experienciaId)
                 .orElseThrow(() -> new ResourceNotFoundException("Experiencia no encontrada"));
 
+        ModeracionService.Resultado moderado = moderacionService.moderar(request.getTexto());
+        boolean retenido = moderado.decision() == ModeracionService.Decision.RETENIDO;
+
         Comentario comentario = Comentario.builder()
                 .usuario(usuario)
                 .experiencia(experiencia)
-                .texto(request.getTexto())
+                .texto(moderado.texto())
                 .fecha(Instant.now())
+                .retenido(retenido)
                 .build();
 
         comentarioRepository.save(comentario);
+        if (!retenido) {
+            estadisticasExperiencias.registrarComentario(experienciaId);
+        }
 
         return new ComentarioDTO(
                 comentario.getId(),
                 usuario.getNombre(),
                 comentario.getTexto(),
-                comentario.getFecha());
+                comentario.getFecha(),
+                retenido);
     }
 
-    public UUID getUsuarioIdByEmail(String email) {
-        return usuarioRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"))
-                .getId();
+    private Comentario getRetenido(UUID comentarioId) {
+        Comentario comentario = comentarioRepository.findById(comentarioId)
+                .orElseThrow(() -> new ResourceNotFoundException("Comentario no encontrado"));
+        if (!comentario.isRetenido()) {
+            throw new ValidationException("El comentario no está retenido");
+        }
+        return comentario;
     }
 
+    private static int tamano(int limit) {
+        return Math.max(1, Math.min(limit, LIMITE_PAGINA_MAXIMO));
+    }
+
+    // Se pide una fila de más para saber si hay página siguiente
+    private static <T> PaginaCursor<T> pagina(List<T> filas, int tamano, Function<T, Instant> fecha, Function<T, UUID> id) {
+        if (filas.size() <= tamano) {
+            return new PaginaCursor<>(filas, null);
+        }
+        List<T> items = filas.subList(0, tamano);
+        T ultimo = items.get(tamano - 1);
+        return new PaginaCursor<>(new ArrayList<>(items),
+                Cursor.encode(fecha.apply(ultimo).toString(), id.apply(ultimo).toString()));
+    }
+
+    // El cursor es la fecha y el id del último comentario de la página anterior
+    private record CursorComentario(Instant fecha, UUID id) {
+
+        private static CursorComentario parse(String cursor) {
+            if (cursor == null) {
+                return new CursorComentario(null, null);
+            }
+            String[] partes = Cursor.decode(cursor, 2);
+            try {
+                return new CursorComentario(Instant.parse(partes[0]), UUID.fromString(partes[1]));
+            } catch (DateTimeParseException | IllegalArgumentException e) {
+                throw new ValidationException("Cursor inválido");
+            }
+        }
+    }
 }
@@ -0,0 +1,37 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.model.Experiencia;
+import com.experienciassoria.repository.ExperienciaRepository;
+import com.experienciassoria.util.TextoUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Corrección única de datos: rellena Experiencia.tituloOrden en las experiencias guardadas antes de que existiera,
+ * para que la paginación por título de la BD coincida con la del catálogo en memoria. Es idempotente.
+ */
+@Slf4j
+@Component
+public class CorreccionTitulosOrden implements ApplicationRunner {
+
+    private final ExperienciaRepository experienciaRepository;
+
+    public CorreccionTitulosOrden(ExperienciaRepository experienciaRepository) {
+        this.experienciaRepository = experienciaRepository;
+    }
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        List<Experiencia> sinClave = experienciaRepository.findByTituloOrdenIsNull();
+        sinClave.forEach(exp -> exp.setTituloOrden(TextoUtils.normalizar(exp.getTitulo())));
+        if (!sinClave.isEmpty()) {
+            log.warn("Corrección de datos: clave de ordenación del título calculada para {} experiencias", sinClave.size());
+        }
+    }
+}
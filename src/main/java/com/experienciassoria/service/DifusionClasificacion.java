@@ -0,0 +1,392 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.dto.pasaporte.RegistroExperienciaDTO;
+import com.experienciassoria.dto.top.ActividadRecienteDTO;
+import com.experienciassoria.dto.top.CambiosClasificacionDTO;
+import com.experienciassoria.dto.top.ClasificacionStreamDTO;
+import com.experienciassoria.dto.top.UsuarioRankingDTO;
+import com.experienciassoria.exception.ServiceUnavailableException;
+import com.experienciassoria.util.Transacciones;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Directo de la clasificación por Server-Sent Events.
+ * Cada intervalo, si la clasificación o la actividad han cambiado, se calcula una versión nueva
+ * (top, cambios respecto a la anterior y registros recientes) serializada una sola vez para todos
+ * los suscriptores. Cada suscriptor tiene como mucho un envío pendiente: si va lento, las versiones
+ * intermedias se descartan y recibe la última completa en lugar de los cambios.
+ * Un envío que lleva bloqueado más de {@code escritura-timeout-ms} (cliente que no lee) da de baja al suscriptor
+ * y el pool gana un hilo mientras ese envío siga bloqueado, para que nunca deje sin hilos a los demás.
+ */
+@Slf4j
+@Component
+public class DifusionClasificacion {
+
+    // Estados de Suscriptor.enviandoDesde además del instante (nanoTime) en que empezó el envío en curso
+    private static final long LIBRE = Long.MIN_VALUE;
+    private static final long ATASCADO = Long.MIN_VALUE + 1;
+
+    private final Clasificacion clasificacion;
+    private final ObjectMapper objectMapper;
+    private final int limite;
+    private final int maxSuscriptores;
+    private final long timeoutMs;
+    private final long escrituraTimeoutNs;
+    private final int hilos;
+    private final AtomicInteger enviosAtascados = new AtomicInteger();
+    private final ThreadPoolExecutor envios;
+    private final Set<Suscriptor> suscriptores = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger conectados = new AtomicInteger();
+    private final Counter coalescidos;
+    private final Counter rechazados;
+    private final Counter atascados;
+
+    // Anillo con los últimos registros; ultimaActividad es el id del más reciente (0 = ninguno)
+    private final ActividadRecienteDTO[] actividad;
+    private long ultimaActividad;
+
+    // Última versión calculada (null si no hay suscriptores); solo la modifica difundir()
+    private volatile Version actual;
+    private long numeroVersion;
+
+    public DifusionClasificacion(Clasificacion clasificacion,
+                                 ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.top.stream.limite:10}") int limite,
+                                 @Value("${app.top.stream.max-suscriptores:1000}") int maxSuscriptores,
+                                 @Value("${app.top.stream.actividad:20}") int tamanoActividad,
+                                 @Value("${app.top.stream.timeout-ms:1800000}") long timeoutMs,
+                                 @Value("${app.top.stream.hilos:2}") int hilos,
+                                 @Value("${app.top.stream.escritura-timeout-ms:10000}") long escrituraTimeoutMs) {
+        this.clasificacion = clasificacion;
+        this.objectMapper = objectMapper;
+        this.limite = Math.max(1, Math.min(limite, TopService.LIMITE_TOP_MAXIMO));
+        this.maxSuscriptores = maxSuscriptores;
+        this.timeoutMs = timeoutMs;
+        this.escrituraTimeoutNs = TimeUnit.MILLISECONDS.toNanos(escrituraTimeoutMs);
+        this.hilos = Math.max(1, hilos);
+        this.actividad = new ActividadRecienteDTO[Math.max(1, tamanoActividad)];
+
+        // Cola sin límite: cada suscriptor tiene como mucho una tarea en ella, así que la acota maxSuscriptores
+        AtomicInteger contador = new AtomicInteger();
+        this.envios = new ThreadPoolExecutor(
+                this.hilos, this.hilos,
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "top-stream-" + contador.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+
+        Gauge.builder("top.stream.suscriptores", conectados, AtomicInteger::get).register(meterRegistry);
+        this.coalescidos = Counter.builder("top.stream.coalescidos")
+                .description("Versiones que un suscriptor lento no llegó a recibir")
+                .register(meterRegistry);
+        this.rechazados = Counter.builder("top.stream.rechazados").register(meterRegistry);
+        this.atascados = Counter.builder("top.stream.atascados")
+                .description("Suscriptores dados de baja por un envío bloqueado más de escritura-timeout-ms")
+                .register(meterRegistry);
+        Gauge.builder("top.stream.envios.atascados", enviosAtascados, AtomicInteger::get).register(meterRegistry);
+    }
+
+    // 🔹 Abrir una conexión al directo; 503 si ya hay demasiadas
+    public SseEmitter suscribir() {
+        if (conectados.incrementAndGet() > maxSuscriptores) {
+            conectados.decrementAndGet();
+            rechazados.increment();
+            throw new ServiceUnavailableException("Demasiadas conexiones al directo de la clasificación", 30);
+        }
+        SseEmitter emitter = nuevoEmitter();
+        Suscriptor suscriptor = new Suscriptor(emitter);
+        emitter.onCompletion(() -> quitar(suscriptor));
+        emitter.onTimeout(() -> quitar(suscriptor));
+        emitter.onError(e -> quitar(suscriptor));
+        suscriptores.add(suscriptor);
+
+        Version version = actual;
+        if (version == null) {
+            difundir();
+            version = actual;
+        }
+        suscriptor.ofrecer(version);
+        return emitter;
+    }
+
+    // 🔹 Añadir un registro al feed de actividad reciente (tras el commit de la transacción en curso)
+    public void registrarActividad(RegistroExperienciaDTO registro) {
+        Transacciones.despuesDelCommit(() -> {
+            synchronized (actividad) {
+                long id = ++ultimaActividad;
+                actividad[(int) (id % actividad.length)] = new ActividadRecienteDTO(id, registro.getExperienciaId(),
+                        registro.getTitulo(), registro.getCategoria(), registro.getFechaRegistro());
+            }
+        });
+    }
+
+    // 🔹 Calcular una versión nueva si algo cambió y ofrecerla a todos los suscriptores
+    @Scheduled(fixedDelayString = "${app.top.stream.intervalo-ms:1000}")
+    public synchronized void difundir() {
+        if (suscriptores.isEmpty()) {
+            // Sin nadie escuchando no se calcula nada; la siguiente conexión parte de cero
+            actual = null;
+            return;
+        }
+        Version anterior = actual;
+        long versionClasificacion = clasificacion.getVersion();
+        long hastaActividad;
+        synchronized (actividad) {
+            hastaActividad = ultimaActividad;
+        }
+        if (anterior != null && anterior.versionClasificacion == versionClasificacion
+                && anterior.actividadHasta == hastaActividad) {
+            return;
+        }
+
+        long numero = ++numeroVersion;
+        List<UsuarioRankingDTO> top = anterior != null && anterior.versionClasificacion == versionClasificacion
+                ? anterior.top
+                : clasificacion.top(limite);
+        String completo = json(new ClasificacionStreamDTO(numero, top));
+        String cambios = null;
+        boolean topCambia = true;
+        if (anterior != null) {
+            List<CambiosClasificacionDTO.Fila> filas = cambios(anterior.top, top);
+            topCambia = !filas.isEmpty() || anterior.top.size() != top.size();
+            cambios = json(new CambiosClasificacionDTO(numero, anterior.numero, top.size(), filas));
+        }
+
+        long desdeActividad = anterior != null ? anterior.actividadHasta : 0;
+        String actividadNueva = json(actividadDesde(desdeActividad, hastaActividad));
+        String actividadReciente = json(actividadDesde(0, hastaActividad));
+
+        Version version = new Version(numero, anterior != null ? anterior.numero : 0, versionClasificacion, top,
+                completo, cambios, topCambia, desdeActividad, hastaActividad, actividadNueva, actividadReciente);
+        actual = version;
+        suscriptores.forEach(s -> s.ofrecer(version));
+    }
+
+    // 🔹 Comentario periódico: mantiene abiertas las conexiones y detecta las cerradas
+    @Scheduled(fixedRateString = "${app.top.stream.heartbeat-ms:15000}")
+    public void latido() {
+        suscriptores.forEach(Suscriptor::latido);
+    }
+
+    // 🔹 Dar de baja a los suscriptores cuyo envío en curso lleva demasiado bloqueado
+    @Scheduled(fixedDelayString = "${app.top.stream.intervalo-ms:1000}")
+    public void vigilarEnvios() {
+        long ahora = System.nanoTime();
+        for (Suscriptor suscriptor : suscriptores) {
+            long desde = suscriptor.enviandoDesde.get();
+            if (desde == LIBRE || desde == ATASCADO || ahora - desde <= escrituraTimeoutNs
+                    || !suscriptores.remove(suscriptor)) {
+                continue;
+            }
+            if (suscriptor.enviandoDesde.compareAndSet(desde, ATASCADO)) {
+                // No se llama a completeWithError: esperaría al mismo cerrojo que tiene el envío bloqueado.
+                // Lo cierra el hilo de envío cuando el socket falle o ceda; hasta entonces sigue contando como conexión.
+                atascados.increment();
+                ajustarHilos(enviosAtascados.incrementAndGet());
+                log.warn("Suscriptor del directo dado de baja: envío bloqueado más de {} ms",
+                        TimeUnit.NANOSECONDS.toMillis(escrituraTimeoutNs));
+            } else {
+                // El envío terminó justo ahora: no estaba atascado
+                suscriptores.add(suscriptor);
+            }
+        }
+    }
+
+    public int getSuscriptores() {
+        return conectados.get();
+    }
+
+    private static List<CambiosClasificacionDTO.Fila> cambios(List<UsuarioRankingDTO> antes, List<UsuarioRankingDTO> ahora) {
+        List<CambiosClasificacionDTO.Fila> filas = new ArrayList<>();
+        for (int i = 0; i < ahora.size(); i++) {
+            UsuarioRankingDTO nueva = ahora.get(i);
+            UsuarioRankingDTO vieja = i < antes.size() ? antes.get(i) : null;
+            if (vieja == null || vieja.getPosicion() != nueva.getPosicion() || vieja.getPuntos() != nueva.getPuntos()
+                    || !vieja.getNombre().equals(nueva.getNombre()) || !vieja.getRol().equals(nueva.getRol())) {
+                filas.add(new CambiosClasificacionDTO.Fila(i, nueva));
+            }
+        }
+        return filas;
+    }
+
+    // Registros con id en (desde, hasta], solo los que siguen en el anillo
+    private List<ActividadRecienteDTO> actividadDesde(long desde, long hasta) {
+        List<ActividadRecienteDTO> lista = new ArrayList<>();
+        synchronized (actividad) {
+            for (long id = Math.max(desde, hasta - actividad.length) + 1; id <= hasta; id++) {
+                lista.add(actividad[(int) (id % actividad.length)]);
+            }
+        }
+        return lista;
+    }
+
+    private String json(Object valor) {
+        try {
+            return objectMapper.writeValueAsString(valor);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el evento del directo", e);
+        }
+    }
+
+    SseEmitter nuevoEmitter() {
+        return new SseEmitter(timeoutMs);
+    }
+
+    // Un hilo extra por cada envío atascado, para que los demás suscriptores sigan teniendo `hilos` hilos
+    private synchronized void ajustarHilos(int extra) {
+        int total = hilos + extra;
+        if (total > envios.getMaximumPoolSize()) {
+            envios.setMaximumPoolSize(total);
+            envios.setCorePoolSize(total);
+        } else {
+            envios.setCorePoolSize(total);
+            envios.setMaximumPoolSize(total);
+        }
+    }
+
+    private void quitar(Suscriptor suscriptor) {
+        if (suscriptores.remove(suscriptor)) {
+            conectados.decrementAndGet();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        envios.shutdownNow();
+        suscriptores.forEach(s -> s.emitter.complete());
+    }
+
+    /**
+     * Una versión del directo con sus eventos ya serializados.
+     * Las ventanas de actividad son (actividadBase, actividadHasta] para la nueva y las últimas del anillo para la reciente.
+     */
+    private record Version(long numero, long base, long versionClasificacion, List<UsuarioRankingDTO> top,
+                           String completo, String cambios, boolean topCambia,
+                           long actividadBase, long actividadHasta, String actividadNueva, String actividadReciente) {
+    }
+
+    private final class Suscriptor {
+
+        private final SseEmitter emitter;
+        private final AtomicReference<Version> pendiente = new AtomicReference<>();
+        private final AtomicBoolean programado = new AtomicBoolean();
+        // Instante de inicio del envío en curso, LIBRE o ATASCADO (dado de baja por vigilarEnvios)
+        private final AtomicLong enviandoDesde = new AtomicLong(LIBRE);
+        private volatile boolean latidoPendiente;
+        // Solo los usa la tarea de envío (nunca hay dos a la vez para un suscriptor)
+        private long versionEnviada;
+        private long actividadEnviada;
+
+        private Suscriptor(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        // Se queda la versión más nueva: las intermedias que no llegaron a enviarse se descartan
+        private void ofrecer(Version version) {
+            Version descartada = pendiente.getAndAccumulate(version,
+                    (actual, nueva) -> actual == null || nueva.numero() > actual.numero() ? nueva : actual);
+            if (descartada != null && descartada.numero() < version.numero()) {
+                coalescidos.increment();
+            }
+            programar();
+        }
+
+        private void latido() {
+            latidoPendiente = true;
+            programar();
+        }
+
+        private void programar() {
+            if (programado.compareAndSet(false, true)) {
+                try {
+                    envios.execute(this::vaciar);
+                } catch (RejectedExecutionException e) {
+                    programado.set(false);
+                }
+            }
+        }
+
+        private void vaciar() {
+            try {
+                Version version;
+                while ((version = pendiente.getAndSet(null)) != null) {
+                    enviar(version);
+                }
+                if (latidoPendiente) {
+                    latidoPendiente = false;
+                    enviar(SseEmitter.event().comment("latido"));
+                }
+            } catch (Exception e) {
+                // El cliente se ha ido: se deja de enviarle
+                quitar(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                programado.set(false);
+            }
+            // Una versión ofrecida justo antes de liberar el flag no debe quedarse esperando
+            if (pendiente.get() != null || latidoPendiente) {
+                programar();
+            }
+        }
+
+        private void enviar(Version version) throws Exception {
+            if (versionEnviada != version.base() || version.cambios() == null) {
+                // Primer envío o se ha saltado versiones: la clasificación completa
+                enviar(SseEmitter.event().name("top").id(Long.toString(version.numero())).data(version.completo()));
+            } else if (version.topCambia()) {
+                enviar(SseEmitter.event().name("top-diff").id(Long.toString(version.numero())).data(version.cambios()));
+            }
+            versionEnviada = version.numero();
+
+            if (version.actividadHasta() > actividadEnviada) {
+                String datos = actividadEnviada == version.actividadBase() ? version.actividadNueva() : version.actividadReciente();
+                enviar(SseEmitter.event().name("actividad").data(datos));
+                actividadEnviada = version.actividadHasta();
+            }
+        }
+
+        private void enviar(SseEmitter.SseEventBuilder evento) throws IOException {
+            long inicio = System.nanoTime();
+            if (!enviandoDesde.compareAndSet(LIBRE, inicio)) {
+                throw new IOException("Suscriptor dado de baja por un envío bloqueado");
+            }
+            boolean atascado;
+            try {
+                emitter.send(evento);
+            } finally {
+                atascado = !enviandoDesde.compareAndSet(inicio, LIBRE);
+                if (atascado) {
+                    // vigilarEnvios lo dio de baja mientras estaba bloqueado: se libera su hilo extra y su plaza
+                    ajustarHilos(enviosAtascados.decrementAndGet());
+                    conectados.decrementAndGet();
+                }
+            }
+            if (atascado) {
+                throw new IOException("Suscriptor dado de baja por un envío bloqueado");
+            }
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.dto.experiencia.ExperienciaListDTO;
+import com.experienciassoria.dto.pasaporte.RegistroExperienciaDTO;
+import com.experienciassoria.model.ExperienciaEstadisticas;
+import com.experienciassoria.repository.ComentarioRepository;
+import com.experienciassoria.repository.ExperienciaEstadisticasRepository;
+import com.experienciassoria.repository.ExperienciaRepository;
+import com.experienciassoria.repository.RegistroExperienciaRepository;
+import com.experienciassoria.util.Transacciones;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de cada experiencia (visitas, comentarios, última visita) para las tarjetas del catálogo.
+ * Los incrementos se acumulan en memoria y se vuelcan periódicamente a experiencia_estadisticas con un
+ * UPDATE por experiencia en una sola transacción. Las listas los leen de memoria, sin consultas.
+ * Una reconciliación periódica los recalcula desde registro_experiencia y comentarios.
+ */
+@Slf4j
+@Component
+public class EstadisticasExperiencias {
+
+    private final ExperienciaEstadisticasRepository estadisticasRepository;
+    private final ExperienciaRepository experienciaRepository;
+    private final RegistroExperienciaRepository registroRepository;
+    private final ComentarioRepository comentarioRepository;
+    private final TransactionTemplate transaccion;
+    // Para escribir desde un afterCommit: ahí la transacción sigue enlazada pero ya no vuelve a hacer commit
+    private final TransactionTemplate transaccionNueva;
+    private final ConcurrentHashMap<UUID, Contadores> contadores = new ConcurrentHashMap<>();
+    // Volcado, reconciliación y borrado no se solapan (ninguno pisa lo que escribe otro)
+    private final Object escritura = new Object();
+    private final Counter corregidas;
+    private final Counter fallidos;
+
+    public EstadisticasExperiencias(ExperienciaEstadisticasRepository estadisticasRepository,
+                                    ExperienciaRepository experienciaRepository,
+                                    RegistroExperienciaRepository registroRepository,
+                                    ComentarioRepository comentarioRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry) {
+        this.estadisticasRepository = estadisticasRepository;
+        this.experienciaRepository = experienciaRepository;
+        this.registroRepository = registroRepository;
+        this.comentarioRepository = comentarioRepository;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.transaccionNueva = new TransactionTemplate(transactionManager);
+        this.transaccionNueva.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.corregidas = Counter.builder("experiencias.estadisticas.corregidas").register(meterRegistry);
+        this.fallidos = Counter.builder("experiencias.estadisticas.volcados.fallidos").register(meterRegistry);
+        Gauge.builder("experiencias.estadisticas.pendientes", this, EstadisticasExperiencias::pendientes)
+                .register(meterRegistry);
+    }
+
+    // 🔹 Cargar al arrancar la tabla de estadísticas; si está vacía (primera vez), calcularla desde los registros
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        List<ExperienciaEstadisticas> filas;
+        synchronized (escritura) {
+            filas = estadisticasRepository.findAll();
+            for (ExperienciaEstadisticas fila : filas) {
+                Contadores c = contadores.computeIfAbsent(fila.getExperienciaId(), id -> new Contadores());
+                c.visitasGuardadas = fila.getVisitas();
+                c.comentariosGuardados = fila.getComentarios();
+                c.acumularUltimaVisita(fila.getUltimaVisita());
+            }
+        }
+        log.info("Estadísticas de experiencias cargadas: {}", filas.size());
+        if (filas.isEmpty()) {
+            reconciliar();
+        }
+    }
+
+    // 🔹 Contar visitas nuevas (tras el commit de la transacción en curso)
+    public void registrarVisitas(List<RegistroExperienciaDTO> registros) {
+        if (registros.isEmpty()) {
+            return;
+        }
+        Transacciones.despuesDelCommit(() -> {
+            for (RegistroExperienciaDTO r : registros) {
+                Contadores c = contadores.computeIfAbsent(r.getExperienciaId(), id -> new Contadores());
+                c.visitasPendientes.increment();
+                c.acumularUltimaVisita(r.getFechaRegistro());
+                c.cambios.incrementAndGet();
+            }
+        });
+    }
+
+    // 🔹 Contar un comentario nuevo (tras el commit de la transacción en curso)
+    public void registrarComentario(UUID experienciaId) {
+        Transacciones.despuesDelCommit(() -> {
+            Contadores c = contadores.computeIfAbsent(experienciaId, id -> new Contadores());
+            c.comentariosPendientes.increment();
+            c.cambios.incrementAndGet();
+        });
+    }
+
+    // 🔹 Olvidar los contadores de una experiencia eliminada (y su fila), tras el commit
+    public void eliminar(UUID experienciaId) {
+        Transacciones.despuesDelCommit(() -> {
+            synchronized (escritura) {
+                contadores.remove(experienciaId);
+                transaccionNueva.executeWithoutResult(estado -> estadisticasRepository.deleteById(experienciaId));
+            }
+        });
+    }
+
+    // 🔹 Copia de una fila del catálogo con sus contadores (de memoria)
+    public ExperienciaListDTO completar(ExperienciaListDTO experiencia) {
+        Contadores c = contadores.get(experiencia.getId());
+        if (c == null) {
+            return experiencia;
+        }
+        return experiencia.conEstadisticas(c.visitas(), c.comentarios(), c.ultimaVisita.get());
+    }
+
+    public List<ExperienciaListDTO> completar(List<ExperienciaListDTO> experiencias) {
+        List<ExperienciaListDTO> resultado = new ArrayList<>(experiencias.size());
+        for (ExperienciaListDTO e : experiencias) {
+            resultado.add(completar(e));
+        }
+        return resultado;
+    }
+
+    /**
+     * Volcar los incrementos acumulados: un UPDATE (x = x + delta) por experiencia con cambios, todos en una
+     * transacción. Solo se descuentan de memoria si la transacción termina bien; si falla, se reintentan
+     * en el siguiente volcado.
+     */
+    @Scheduled(fixedDelayString = "${app.estadisticas.volcado-ms:10000}",
+            initialDelayString = "${app.estadisticas.volcado-ms:10000}")
+    public void volcar() {
+        volcarPendientes();
+    }
+
+    private boolean volcarPendientes() {
+        synchronized (escritura) {
+            List<Volcado> lote = new ArrayList<>();
+            contadores.forEach((id, c) -> {
+                long visitas = c.visitasPendientes.sum();
+                long comentarios = c.comentariosPendientes.sum();
+                if (visitas != 0 || comentarios != 0) {
+                    lote.add(new Volcado(id, c, visitas, comentarios, c.ultimaVisita.get()));
+                }
+            });
+            if (lote.isEmpty()) {
+                return true;
+            }
+            try {
+                transaccion.executeWithoutResult(estado -> {
+                    for (Volcado v : lote) {
+                        int filas = estadisticasRepository.sumar(v.experienciaId(), v.visitas(), v.comentarios(), v.ultimaVisita());
+                        // Primera vez para esta experiencia (salvo que se haya eliminado entretanto)
+                        if (filas == 0 && experienciaRepository.existsById(v.experienciaId())) {
+                            estadisticasRepository.save(new ExperienciaEstadisticas(
+                                    v.experienciaId(), v.visitas(), v.comentarios(), v.ultimaVisita()));
+                        }
+                    }
+                });
+            } catch (RuntimeException e) {
+                fallidos.increment();
+                log.warn("No se pudieron volcar las estadísticas de {} experiencias: {}", lote.size(), e.getMessage());
+                return false;
+            }
+            for (Volcado v : lote) {
+                v.contadores().visitasPendientes.add(-v.visitas());
+                v.contadores().comentariosPendientes.add(-v.comentarios());
+                v.contadores().visitasGuardadas += v.visitas();
+                v.contadores().comentariosGuardados += v.comentarios();
+            }
+            return true;
+        }
+    }
+
+    // 🔹 Volcar lo pendiente al parar la aplicación
+    @PreDestroy
+    public void detener() {
+        volcar();
+    }
+
+    /**
+     * Reconciliación periódica: recalcular los contadores con dos consultas agregadas y corregir la tabla y la
+     * memoria. Repara incrementos perdidos (p. ej. una caída antes del volcado). Solo se corrigen las
+     * experiencias sin incrementos nuevos desde que empezó, para no pisar los que la consulta no vio.
+     */
+    @Scheduled(fixedDelayString = "${app.estadisticas.reconciliacion-ms:86400000}",
+            initialDelayString = "${app.estadisticas.reconciliacion-ms:86400000}")
+    public void reconciliar() {
+        Map<UUID, Long> cambiosAntes = new HashMap<>();
+        contadores.forEach((id, c) -> cambiosAntes.put(id, c.cambios.get()));
+        if (!volcarPendientes()) {
+            return;
+        }
+
+        Map<UUID, ExperienciaEstadisticas> reales = new HashMap<>();
+        for (RegistroExperienciaRepository.VisitasExperienciaView fila : registroRepository.findVisitasPorExperiencia()) {
+            reales.put(fila.getExperienciaId(),
+                    new ExperienciaEstadisticas(fila.getExperienciaId(), fila.getTotal(), 0, fila.getUltima()));
+        }
+        for (ComentarioRepository.ComentariosExperienciaView fila : comentarioRepository.findComentariosPorExperiencia()) {
+            reales.computeIfAbsent(fila.getExperienciaId(), id -> new ExperienciaEstadisticas(id, 0, 0, null))
+                    .setComentarios(fila.getTotal());
+        }
+
+        int diferencias = 0;
+        synchronized (escritura) {
+            Map<UUID, ExperienciaEstadisticas> guardadas = new HashMap<>();
+            estadisticasRepository.findAll().forEach(fila -> guardadas.put(fila.getExperienciaId(), fila));
+
+            List<ExperienciaEstadisticas> corregir = new ArrayList<>();
+            Set<UUID> ids = new HashSet<>(reales.keySet());
+            ids.addAll(guardadas.keySet());
+            for (UUID id : ids) {
+                Contadores c = contadores.get(id);
+                if ((c != null ? c.cambios.get() : 0L) != cambiosAntes.getOrDefault(id, 0L)) {
+                    continue;
+                }
+                ExperienciaEstadisticas real = reales.get(id);
+                ExperienciaEstadisticas guardada = guardadas.get(id);
+                if (real == null) {
+                    // Sin visitas ni comentarios: basta con que no haya fila o esté a cero
+                    if (guardada != null && (guardada.getVisitas() != 0 || guardada.getComentarios() != 0)) {
+                        real = new ExperienciaEstadisticas(id, 0, 0, null);
+                    } else {
+                        continue;
+                    }
+                }
+                if (guardada == null || !mismosDatos(guardada, real)) {
+                    corregir.add(real);
+                }
+            }
+            if (!corregir.isEmpty()) {
+                try {
+                    transaccion.executeWithoutResult(estado -> estadisticasRepository.saveAll(corregir));
+                } catch (RuntimeException e) {
+                    log.warn("No se pudieron corregir las estadísticas de experiencias: {}", e.getMessage());
+                    return;
+                }
+                for (ExperienciaEstadisticas real : corregir) {
+                    Contadores c = contadores.computeIfAbsent(real.getExperienciaId(), id -> new Contadores());
+                    c.visitasGuardadas = real.getVisitas();
+                    c.comentariosGuardados = real.getComentarios();
+                    c.ultimaVisita.set(real.getUltimaVisita());
+                }
+                diferencias = corregir.size();
+            }
+        }
+        corregidas.increment(diferencias);
+        if (diferencias > 0) {
+            log.warn("Reconciliación de estadísticas de experiencias: {} corregidas", diferencias);
+        }
+    }
+
+    private static boolean mismosDatos(ExperienciaEstadisticas a, ExperienciaEstadisticas b) {
+        return a.getVisitas() == b.getVisitas() && a.getComentarios() == b.getComentarios()
+                && Objects.equals(a.getUltimaVisita(), b.getUltimaVisita());
+    }
+
+    // Incrementos aún sin volcar, de todas las experiencias
+    private long pendientes() {
+        long total = 0;
+        for (Contadores c : contadores.values()) {
+            total += c.visitasPendientes.sum() + c.comentariosPendientes.sum();
+        }
+        return total;
+    }
+
+    /**
+     * Contadores de una experiencia: lo ya guardado en la tabla más los incrementos pendientes de volcar
+     * (LongAdder reparte los incrementos concurrentes en celdas, sin contención en experiencias populares).
+     */
+    private static final class Contadores {
+        private final LongAdder visitasPendientes = new LongAdder();
+        private final LongAdder comentariosPendientes = new LongAdder();
+        private final AtomicReference<Instant> ultimaVisita = new AtomicReference<>();
+        // Se incrementa con cada cambio (la reconciliación no corrige las que cambian mientras calcula)
+        private final AtomicLong cambios = new AtomicLong();
+        private volatile long visitasGuardadas;
+        private volatile long comentariosGuardados;
+
+        private long visitas() {
+            return visitasGuardadas + visitasPendientes.sum();
+        }
+
+        private long comentarios() {
+            return comentariosGuardados + comentariosPendientes.sum();
+        }
+
+        private void acumularUltimaVisita(Instant fecha) {
+            if (fecha != null) {
+                ultimaVisita.accumulateAndGet(fecha, (a, b) -> a == null || b.isAfter(a) ? b : a);
+            }
+        }
+    }
+
+    private record Volcado(UUID experienciaId, Contadores contadores, long visitas, long comentarios,
+                           Instant ultimaVisita) {
+    }
+}
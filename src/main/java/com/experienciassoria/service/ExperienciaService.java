@@ -2,10 +2,20 @@ package com.experienciassoria.service;
 
 import com.experienciassoria.dto.experiencia.*;
 import com.experienciassoria.exception.ResourceNotFoundException;
+import com.experienciassoria.exception.ValidationException;
 import com.experienciassoria.model.Experiencia;
 import com.experienciassoria.repository.ExperienciaRepository;
 import com.experienciassoria.repository.ExperienciaUIDRepository;
+import com.experienciassoria.util.Cursor;
+import com.experienciassoria.util.MapperUtils;
+import com.experienciassoria.util.PaginaCursor;
+import com.experienciassoria.util.TextoUtils;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -15,64 +25,158 @@ import java.util.stream.Collectors;
 @Service
 public class ExperienciaService {
 
+    public static final int LIMITE_PAGINA_MAXIMO = 200;
+    public static final int LIMITE_CERCANAS_MAXIMO = 100;
+    public static final int LIMITE_BUSQUEDA_MAXIMO = 100;
+
     private final ExperienciaRepository experienciaRepository;
     private final ExperienciaUIDRepository experienciaUIDRepository;
+    private final CatalogoCache catalogoCache;
+    private final IndiceGeografico indiceGeografico;
+    private final IndiceBusqueda indiceBusqueda;
+    private final UidResolver uidResolver;
+    private final QrCodeService qrCodeService;
+    private final ResumenPasaporteCache resumenPasaporteCache;
+    private final ClasificacionPorPeriodo clasificacionPorPeriodo;
+    private final ClasificacionVisitas clasificacionVisitas;
+    private final EstadisticasExperiencias estadisticasExperiencias;
+    private final double radioMaximoKm;
+    // Serializa las reconstrucciones con el write-through: una escritura no puede colarse entre el snapshot
+    // del catálogo y la reconstrucción de los índices (que la pisarían con datos antiguos)
+    private final Object publicacion = new Object();
 
     public ExperienciaService(ExperienciaRepository experienciaRepository,
-                              ExperienciaUIDRepository experienciaUIDRepository) {
+                              ExperienciaUIDRepository experienciaUIDRepository,
+                              CatalogoCache catalogoCache,
+                              IndiceGeografico indiceGeografico,
+                              IndiceBusqueda indiceBusqueda,
+                              UidResolver uidResolver,
+                              QrCodeService qrCodeService,
+                              ResumenPasaporteCache resumenPasaporteCache,
+                              ClasificacionPorPeriodo clasificacionPorPeriodo,
+                              ClasificacionVisitas clasificacionVisitas,
+                              EstadisticasExperiencias estadisticasExperiencias,
+                              @Value("${app.geo.radio-maximo-km:50}") double radioMaximoKm) {
         this.experienciaRepository = experienciaRepository;
         this.experienciaUIDRepository = experienciaUIDRepository;
+        this.catalogoCache = catalogoCache;
+        this.indiceGeografico = indiceGeografico;
+        this.indiceBusqueda = indiceBusqueda;
+        this.uidResolver = uidResolver;
+        this.qrCodeService = qrCodeService;
+        this.resumenPasaporteCache = resumenPasaporteCache;
+        this.clasificacionPorPeriodo = clasificacionPorPeriodo;
+        this.clasificacionVisitas = clasificacionVisitas;
+        this.estadisticasExperiencias = estadisticasExperiencias;
+        this.radioMaximoKm = radioMaximoKm;
     }
 
-    // 🔹 Obtener todas las experiencias (lista) - solo visibles para usuarios públicos
-    public List<ExperienciaListDTO> getAllExperiencias() {
-        return experienciaRepository.findAllByVisibleTrue().stream()
-                .map(exp -> new ExperienciaListDTO(
-                        exp.getId(),
-                        exp.getTitulo(),
-                        exp.getCategoria().name(),
-                        exp.getImagenPortadaUrl(),
-                        exp.getUbicacionLat(),
-                        exp.getUbicacionLng(),
-                        exp.isVisible()
-                ))
-                .collect(Collectors.toList());
+    // 🔹 Precargar el catálogo en memoria (y los índices derivados) al arrancar
+    @EventListener(ApplicationReadyEvent.class)
+    public void precargarCatalogo() {
+        synchronized (publicacion) {
+            Collection<ExperienciaDetailDTO> catalogo = catalogoCache.reconstruir();
+            indiceGeografico.reconstruir(catalogo);
+            indiceBusqueda.reconstruir(catalogo);
+        }
     }
 
-    // 🔹 Obtener todas las experiencias (lista) - incluye visibles y no visibles (solo ADMIN)
-    public List<ExperienciaListDTO> getAllExperienciasAdmin() {
-        log.info("Obteniendo todas las experiencias (admin)");
-        return experienciaRepository.findAll().stream()
-                .map(exp -> new ExperienciaListDTO(
-                        exp.getId(),
-                        exp.getTitulo(),
-                        exp.getCategoria().name(),
-                        exp.getImagenPortadaUrl(),
-                        exp.getUbicacionLat(),
-                        exp.getUbicacionLng(),
-                        exp.isVisible()
-                ))
-                .collect(Collectors.toList());
+    // 🔹 Reconciliación periódica del catálogo en memoria con la BD
+    @Scheduled(fixedDelayString = "${app.catalogo.reconciliacion-ms:900000}",
+            initialDelayString = "${app.catalogo.reconciliacion-ms:900000}")
+    public void reconciliarCatalogo() {
+        precargarCatalogo();
+    }
+
+    // 🔹 Página del catálogo con filtros opcionales y paginación keyset (una sola consulta de proyección)
+    public PaginaCursor<ExperienciaListDTO> getCatalogo(String categoria, Boolean visible,
+                                                        OrdenCatalogo orden, String cursor, int limit) {
+        Experiencia.Categoria filtroCategoria = parseCategoria(categoria);
+        int tamano = Math.max(1, Math.min(limit, LIMITE_PAGINA_MAXIMO));
+
+        // El cursor es la clave de ordenación (título normalizado o puntos) y el id de la última fila de la página anterior
+        ExperienciaListDTO despuesDe = null;
+        if (cursor != null) {
+            String[] partes = Cursor.decode(cursor, 2);
+            try {
+                despuesDe = orden == OrdenCatalogo.PUNTOS
+                        ? new ExperienciaListDTO(UUID.fromString(partes[1]), null, (String) null, null, null, null, false, Integer.parseInt(partes[0]))
+                        : new ExperienciaListDTO(UUID.fromString(partes[1]), partes[0], (String) null, null, null, null, false, 0);
+            } catch (IllegalArgumentException e) {
+                // NumberFormatException o UUID mal formado dentro del cursor
+                throw new ValidationException("Cursor inválido");
+            }
+        }
+
+        // Se pide una fila de más para saber si existe página siguiente
+        List<ExperienciaListDTO> filas = catalogoCache.getPagina(filtroCategoria, visible, orden, despuesDe, tamano + 1);
+        if (filas == null) {
+            PageRequest pagina = PageRequest.of(0, tamano + 1);
+            filas = orden == OrdenCatalogo.PUNTOS
+                    ? experienciaRepository.findPaginaPorPuntos(filtroCategoria, visible,
+                            despuesDe != null ? despuesDe.getPuntosOtorgados() : null,
+                            despuesDe != null ? despuesDe.getId() : null, pagina)
+                    : experienciaRepository.findPaginaPorTitulo(filtroCategoria, visible,
+                            despuesDe != null ? TextoUtils.normalizar(despuesDe.getTitulo()) : null,
+                            despuesDe != null ? despuesDe.getId() : null, pagina);
+        }
+
+        if (filas.size() <= tamano) {
+            return new PaginaCursor<>(estadisticasExperiencias.completar(filas), null);
+        }
+        List<ExperienciaListDTO> items = filas.subList(0, tamano);
+        ExperienciaListDTO ultima = items.get(tamano - 1);
+        String siguiente = orden == OrdenCatalogo.PUNTOS
+                ? Cursor.encode(String.valueOf(ultima.getPuntosOtorgados()), ultima.getId().toString())
+                : Cursor.encode(TextoUtils.normalizar(ultima.getTitulo()), ultima.getId().toString());
+        return new PaginaCursor<>(estadisticasExperiencias.completar(items), siguiente);
+    }
+
+    // 🔹 Experiencias visibles más cercanas a un punto, ordenadas por distancia
+    public List<ExperienciaCercanaDTO> getCercanas(double lat, double lng, double radioKm, int limit) {
+        // NaN no cumple ninguna comparación: se descarta antes de comprobar los rangos
+        if (!Double.isFinite(lat) || !Double.isFinite(lng) || lat < -90 || lat > 90 || lng < -180 || lng > 180) {
+            throw new ValidationException("Coordenadas inválidas");
+        }
+        if (!Double.isFinite(radioKm) || radioKm <= 0 || radioKm > radioMaximoKm) {
+            throw new ValidationException("El radio debe estar entre 0 y " + radioMaximoKm + " km");
+        }
+        if (!indiceGeografico.isCargado()) {
+            // Petición anterior a la precarga: se carga el catálogo en este momento
+            precargarCatalogo();
+        }
+        return indiceGeografico.buscarCercanas(lat, lng, radioKm, Math.max(1, Math.min(limit, LIMITE_CERCANAS_MAXIMO)));
+    }
+
+    // 🔹 Búsqueda de texto (sin tildes, por prefijo en la última palabra) con facetas por categoría
+    public ResultadoBusquedaDTO buscar(String q, String categoria, int limit) {
+        Experiencia.Categoria filtroCategoria = parseCategoria(categoria);
+        if (!indiceBusqueda.isCargado()) {
+            precargarCatalogo();
+        }
+        return indiceBusqueda.buscar(q, filtroCategoria != null ? filtroCategoria.name() : null,
+                Math.max(1, Math.min(limit, LIMITE_BUSQUEDA_MAXIMO)));
+    }
+
+    // 🔹 Experiencias visibles por categoría, desde el catálogo en memoria
+    public Map<Experiencia.Categoria, Integer> getVisiblesPorCategoria() {
+        if (!catalogoCache.isCargado()) {
+            precargarCatalogo();
+        }
+        return catalogoCache.getVisiblesPorCategoria();
     }
 
     // 🔹 Obtener detalles de una experiencia
     public ExperienciaDetailDTO getExperienciaById(UUID id) {
+        Optional<ExperienciaDetailDTO> enCache = catalogoCache.getDetalle(id);
+        if (enCache != null) {
+            // Con el catálogo cargado, si no está en memoria es que no existe
+            return enCache.orElseThrow(() -> new ResourceNotFoundException("Experiencia no encontrada"));
+        }
+
         Experiencia exp = experienciaRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Experiencia no encontrada"));
-
-        return new ExperienciaDetailDTO(
-                exp.getId(),
-                exp.getTitulo(),
-                exp.getDescripcion(),
-                exp.getCategoria().name(),
-                exp.getImagenPortadaUrl(),
-                exp.getGaleriaImagenes() != null ? exp.getGaleriaImagenes() : new ArrayList<>(),
-                exp.getDireccion(),
-                exp.getUbicacionLat(),
-                exp.getUbicacionLng(),
-                exp.getPuntosOtorgados() != null ? exp.getPuntosOtorgados() : 10,
-                exp.isVisible()
-        );
+        return MapperUtils.toDetailDTO(exp);
     }
 
     // 🔹 Crear nueva experiencia (solo ADMIN)
@@ -93,7 +197,7 @@ public class ExperienciaService {
 
         experienciaRepository.save(experiencia);
 
-        return getExperienciaById(experiencia.getId());
+        return publicar(experiencia);
     }
 
     // 🔹 Actualizar experiencia (solo ADMIN)
@@ -108,8 +212,11 @@ public class ExperienciaService {
         if (request.getDescripcion() != null) {
             experiencia.setDescripcion(request.getDescripcion());
         }
+        boolean cambiaCategoria = false;
         if (request.getCategoria() != null) {
-            experiencia.setCategoria(Experiencia.Categoria.valueOf(request.getCategoria()));
+            Experiencia.Categoria categoria = Experiencia.Categoria.valueOf(request.getCategoria());
+            cambiaCategoria = categoria != experiencia.getCategoria();
+            experiencia.setCategoria(categoria);
         }
         if (request.getImagenPortadaUrl() != null) {
             experiencia.setImagenPortadaUrl(request.getImagenPortadaUrl());
@@ -134,8 +241,13 @@ public class ExperienciaService {
         }
 
         experienciaRepository.save(experiencia);
+        if (cambiaCategoria) {
+            // Los registros ya hechos cuentan ahora en otra categoría
+            resumenPasaporteCache.invalidarTodos();
+            clasificacionVisitas.invalidar();
+        }
 
-        return getExperienciaById(experiencia.getId());
+        return publicar(experiencia);
     }
 
     // 🔹 Eliminar experiencia (solo ADMIN)
@@ -144,6 +256,17 @@ public class ExperienciaService {
         Experiencia experiencia = experienciaRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Experiencia no encontrada"));
         experienciaRepository.delete(experiencia);
+        synchronized (publicacion) {
+            catalogoCache.eliminar(id);
+            indiceGeografico.eliminar(id);
+            indiceBusqueda.eliminar(id);
+        }
+        uidResolver.invalidarExperiencia(id);
+        qrCodeService.invalidarExperiencia(id);
+        resumenPasaporteCache.invalidarTodos();
+        clasificacionPorPeriodo.invalidar();
+        clasificacionVisitas.invalidar();
+        estadisticasExperiencias.eliminar(id);
         log.info("Experiencia eliminada exitosamente: {}", id);
     }
 
@@ -162,12 +285,40 @@ public class ExperienciaService {
                 .collect(Collectors.toList());
     }
 
-    // 🔹 Obtener experiencia por UID (público)
+    // 🔹 Comprobar que una experiencia existe (antes de empezar una respuesta en streaming)
+    public void verificarExiste(UUID id) {
+        if (!experienciaRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Experiencia no encontrada");
+        }
+    }
+
+    // Write-through de una experiencia creada o actualizada al catálogo y los índices en memoria
+    private ExperienciaDetailDTO publicar(Experiencia experiencia) {
+        ExperienciaDetailDTO detalle = MapperUtils.toDetailDTO(experiencia);
+        synchronized (publicacion) {
+            catalogoCache.actualizar(detalle);
+            indiceGeografico.actualizar(detalle);
+            indiceBusqueda.actualizar(detalle);
+        }
+        return detalle;
+    }
+
+    // 🔹 Filtro de categoría opcional de los endpoints (también lo usa el pasaporte)
+    static Experiencia.Categoria parseCategoria(String categoria) {
+        if (categoria == null || categoria.isBlank()) {
+            return null;
+        }
+        try {
+            return Experiencia.Categoria.valueOf(categoria.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Categoría inválida: " + categoria);
+        }
+    }
+
+    // 🔹 Obtener experiencia por UID (público): UID resuelto en caché y detalle desde el catálogo en memoria
     public ExperienciaDetailDTO getExperienciaByUid(String uid) {
-        com.experienciassoria.model.ExperienciaUID experienciaUID = experienciaUIDRepository.findByUidAndActivoTrue(uid)
+        UidResueltoDTO resuelto = uidResolver.resolver(uid)
                 .orElseThrow(() -> new ResourceNotFoundException("UID no encontrado o no activo"));
-
-        Experiencia experiencia = experienciaUID.getExperiencia();
-        return getExperienciaById(experiencia.getId());
+        return getExperienciaById(resuelto.getExperienciaId());
     }
 }
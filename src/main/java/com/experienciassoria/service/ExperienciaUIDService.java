@@ -7,77 +7,116 @@ import com.experienciassoria.model.Experiencia;
 import com.experienciassoria.model.ExperienciaUID;
 import com.experienciassoria.repository.ExperienciaRepository;
 import com.experienciassoria.repository.ExperienciaUIDRepository;
+import com.experienciassoria.util.Transacciones;
+import jakarta.persistence.EntityManager;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.security.SecureRandom;
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 
 @Slf4j
 @Service
 public class ExperienciaUIDService {
 
+    // Sin caracteres ambiguos al leer un código impreso (0/O, 1/I/L): 31 símbolos x 16 ≈ 79 bits
+    private static final String ALFABETO = "ABCDEFGHJKMNPQRSTUVWXYZ23456789";
+    private static final int LONGITUD_UID = 16;
+    private static final int TAMANO_LOTE = 1000;
+    private static final int MAX_INTENTOS = 10;
+
+    private final SecureRandom random = new SecureRandom();
     private final ExperienciaUIDRepository experienciaUIDRepository;
     private final ExperienciaRepository experienciaRepository;
+    private final UidResolver uidResolver;
+    private final FiltroUidsActivos filtroUidsActivos;
+    private final EntityManager entityManager;
+    private final int maxPorPeticion;
 
     public ExperienciaUIDService(ExperienciaUIDRepository experienciaUIDRepository,
-                                  ExperienciaRepository experienciaRepository) {
+                                  ExperienciaRepository experienciaRepository,
+                                  UidResolver uidResolver,
+                                  FiltroUidsActivos filtroUidsActivos,
+                                  EntityManager entityManager,
+                                  @Value("${app.uids.max-por-peticion:50000}") int maxPorPeticion) {
         this.experienciaUIDRepository = experienciaUIDRepository;
         this.experienciaRepository = experienciaRepository;
+        this.uidResolver = uidResolver;
+        this.filtroUidsActivos = filtroUidsActivos;
+        this.entityManager = entityManager;
+        this.maxPorPeticion = maxPorPeticion;
     }
 
+    /**
+     * Genera UIDs nuevos por lotes: los candidatos salen de un SecureRandom, las colisiones
+     * se comprueban con una sola consulta IN por lote y las filas se insertan con batching JDBC.
+     */
     @Transactional
     public GenerarUIDsResponse generarUids(UUID experienciaId, int cantidad) {
+        if (cantidad < 1 || cantidad > maxPorPeticion) {
+            throw new ValidationException("La cantidad debe estar entre 1 y " + maxPorPeticion);
+        }
         log.info("Generando {} UIDs para experiencia {}", cantidad, experienciaId);
         Experiencia experiencia = experienciaRepository.findById(experienciaId)
                 .orElseThrow(() -> new ResourceNotFoundException("Experiencia no encontrada"));
 
-        if (cantidad < 1 || cantidad > 100) {
-            throw new IllegalArgumentException("La cantidad debe estar entre 1 y 100");
-        }
+        List<String> uidsGenerados = new ArrayList<>(cantidad);
+        while (uidsGenerados.size() < cantidad) {
+            List<String> lote = generarLoteSinColisiones(Math.min(TAMANO_LOTE, cantidad - uidsGenerados.size()));
 
-        List<String> uidsGenerados = new ArrayList<>();
+            Instant ahora = Instant.now();
+            List<ExperienciaUID> entidades = new ArrayList<>(lote.size());
+            for (String uid : lote) {
+                entidades.add(ExperienciaUID.builder()
+                        .experiencia(experiencia)
+                        .uid(uid)
+                        .activo(true)
+                        .fechaGeneracion(ahora)
+                        .build());
+            }
+            experienciaUIDRepository.saveAll(entidades);
+            // Enviar el lote y vaciar el contexto de persistencia para no acumular decenas de miles de entidades
+            entityManager.flush();
+            entityManager.clear();
+            uidsGenerados.addAll(lote);
+        }
 
-        for (int i = 0; i < cantidad; i++) {
-            String uid = null;
-            boolean existe;
-            int intentos = 0;
-            final int MAX_INTENTOS = 10;
+        // Tras el commit: un escaneo previo puede haber quedado cacheado como inexistente, y una reconstrucción del
+        // filtro que empiece antes del commit no ve estas filas
+        Transacciones.despuesDelCommit(() -> {
+            uidResolver.invalidar(uidsGenerados);
+            filtroUidsActivos.anadir(uidsGenerados);
+        });
 
-            // Generar UID único
-            do {
-                String uidGenerado = UUID.randomUUID().toString().replace("-", "").substring(0, 16).toUpperCase();
-                final String uidParaComparar = uidGenerado;
-                existe = experienciaUIDRepository.findByUidAndActivoTrue(uidGenerado).isPresent() ||
-                         experienciaUIDRepository.findAll().stream()
-                                 .anyMatch(e -> e.getUid().equals(uidParaComparar));
-                if (!existe) {
-                    uid = uidGenerado;
-                }
-                intentos++;
-            } while (existe && intentos < MAX_INTENTOS);
+        log.info("UIDs generados exitosamente para experiencia {}: {} UIDs", experienciaId, cantidad);
+        return new GenerarUIDsResponse(experienciaId, cantidad, uidsGenerados);
+    }
 
-            if (uid == null) {
-                throw new ValidationException("No se pudo generar un UID único después de " + MAX_INTENTOS + " intentos");
+    // Candidatos únicos entre sí y que no existen en la BD (una consulta IN por intento)
+    private List<String> generarLoteSinColisiones(int tamano) {
+        Set<String> candidatos = new LinkedHashSet<>(tamano * 2);
+        for (int intento = 0; intento < MAX_INTENTOS; intento++) {
+            while (candidatos.size() < tamano) {
+                candidatos.add(nuevoUid());
             }
-
-            final String uidFinal = uid;
-            ExperienciaUID experienciaUID = ExperienciaUID.builder()
-                    .experiencia(experiencia)
-                    .uid(uidFinal)
-                    .activo(true)
-                    .fechaGeneracion(Instant.now())
-                    .build();
-
-            experienciaUIDRepository.save(experienciaUID);
-            uidsGenerados.add(uidFinal);
+            List<String> existentes = experienciaUIDRepository.findUidsExistentes(candidatos);
+            if (existentes.isEmpty()) {
+                return new ArrayList<>(candidatos);
+            }
+            log.warn("{} colisiones de UID en un lote de {}; regenerando", existentes.size(), tamano);
+            existentes.forEach(candidatos::remove);
         }
+        throw new ValidationException("No se pudo generar un UID único después de " + MAX_INTENTOS + " intentos");
+    }
 
-        log.info("UIDs generados exitosamente para experiencia {}: {} UIDs", experienciaId, cantidad);
-        return new GenerarUIDsResponse(experienciaId, cantidad, uidsGenerados);
+    private String nuevoUid() {
+        char[] uid = new char[LONGITUD_UID];
+        for (int i = 0; i < LONGITUD_UID; i++) {
+            uid[i] = ALFABETO.charAt(random.nextInt(ALFABETO.length()));
+        }
+        return new String(uid);
     }
 }
-
@@ -0,0 +1,103 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.repository.ExperienciaUIDRepository;
+import com.experienciassoria.util.FiltroBloom;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Filtro de Bloom con los UIDs activos. Permite descartar sin consultar la BD
+ * los UIDs escaneados que seguro que no existen (inventados o por fuerza bruta).
+ * No admite borrados: los UIDs que dejan de estar activos desaparecen en la siguiente reconstrucción.
+ */
+@Slf4j
+@Component
+public class FiltroUidsActivos {
+
+    // Capacidad mínima, para que generar UIDs entre reconstrucciones no degrade el filtro
+    private static final int CAPACIDAD_MINIMA = 10_000;
+
+    private final ExperienciaUIDRepository experienciaUIDRepository;
+    private final double probabilidadFalsoPositivo;
+    private final Counter rechazados;
+
+    // null hasta la primera carga: mientras tanto todo UID "puede existir"
+    private volatile FiltroBloom filtro;
+    private int capacidad;
+    // UIDs añadidos mientras se reconstruye el filtro, para no perderlos al sustituirlo
+    private List<String> pendientes;
+
+    public FiltroUidsActivos(ExperienciaUIDRepository experienciaUIDRepository,
+                             @Value("${app.uid-bloom.fpp:0.01}") double probabilidadFalsoPositivo,
+                             MeterRegistry meterRegistry) {
+        this.experienciaUIDRepository = experienciaUIDRepository;
+        this.probabilidadFalsoPositivo = probabilidadFalsoPositivo;
+        this.rechazados = Counter.builder("uid.bloom.rejected").register(meterRegistry);
+        Gauge.builder("uid.bloom.fpp", this, f -> f.filtro != null ? f.filtro.probabilidadFalsoPositivo() : 0)
+                .register(meterRegistry);
+        Gauge.builder("uid.bloom.bytes", this, f -> f.filtro != null ? f.filtro.getTamanoBytes() : 0)
+                .register(meterRegistry);
+        Gauge.builder("uid.bloom.size", this, f -> f.filtro != null ? f.filtro.getInsertados() : 0)
+                .register(meterRegistry);
+    }
+
+    // 🔹 Construir al arrancar y reconstruir periódicamente desde la BD
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.uid-bloom.reconstruccion-ms:3600000}",
+            initialDelayString = "${app.uid-bloom.reconstruccion-ms:3600000}")
+    public void reconstruir() {
+        synchronized (this) {
+            pendientes = new ArrayList<>();
+        }
+        List<String> activos = experienciaUIDRepository.findUidsActivos();
+        int nuevaCapacidad = Math.max(CAPACIDAD_MINIMA, activos.size() * 2);
+        FiltroBloom nuevo = FiltroBloom.paraCapacidad(nuevaCapacidad, probabilidadFalsoPositivo);
+        activos.forEach(nuevo::add);
+
+        synchronized (this) {
+            pendientes.forEach(nuevo::add);
+            pendientes = null;
+            capacidad = nuevaCapacidad;
+            filtro = nuevo;
+        }
+        log.info("Filtro de UIDs activos reconstruido: {} UIDs, {} bytes", activos.size(), nuevo.getTamanoBytes());
+    }
+
+    /**
+     * Añadir UIDs recién generados. Se llama tras el commit que los inserta: así, o la consulta de una
+     * reconstrucción en curso ya los ve, o llegan por {@code pendientes} o directamente al filtro nuevo.
+     */
+    public synchronized void anadir(Collection<String> uids) {
+        if (pendientes != null) {
+            pendientes.addAll(uids);
+        }
+        if (filtro == null) {
+            return;
+        }
+        uids.forEach(filtro::add);
+        if (filtro.getInsertados() > capacidad) {
+            log.warn("El filtro de UIDs supera su capacidad ({}); se redimensionará en la próxima reconstrucción", capacidad);
+        }
+    }
+
+    // 🔹 false si el UID seguro que no existe o no está activo
+    public boolean puedeExistir(String uid) {
+        FiltroBloom actual = filtro;
+        if (actual == null || actual.mightContain(uid)) {
+            return true;
+        }
+        rechazados.increment();
+        return false;
+    }
+}
@@ -0,0 +1,179 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.exception.ServiceUnavailableException;
+import com.experienciassoria.exception.ValidationException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Almacén en memoria de claves Idempotency-Key.
+ * La primera petición con una clave ejecuta la operación y guarda su resultado; los reintentos con la misma
+ * clave (del mismo usuario y operación) reciben ese resultado sin volver a ejecutarla. Si el reintento llega
+ * mientras la primera sigue en curso, espera a que termine. Los errores no se guardan: se puede reintentar.
+ */
+@Component
+public class IdempotenciaStore {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String HEADER_REPETIDA = "Idempotent-Replayed";
+    private static final int LONGITUD_MAXIMA_CLAVE = 255;
+
+    private final ConcurrentHashMap<String, Entrada> entradas = new ConcurrentHashMap<>();
+    private final long ttlMs;
+    private final int maxEntradas;
+    private final long esperaMs;
+    private final Counter repetidas;
+
+    public IdempotenciaStore(@Value("${app.idempotencia.ttl:24h}") Duration ttl,
+                             @Value("${app.idempotencia.max-entries:100000}") int maxEntradas,
+                             @Value("${app.idempotencia.espera-ms:10000}") long esperaMs,
+                             MeterRegistry meterRegistry) {
+        this.ttlMs = ttl.toMillis();
+        this.maxEntradas = maxEntradas;
+        this.esperaMs = esperaMs;
+        this.repetidas = Counter.builder("idempotencia.replayed").register(meterRegistry);
+        Gauge.builder("idempotencia.size", entradas, ConcurrentHashMap::size).register(meterRegistry);
+    }
+
+    /**
+     * Ejecuta {@code accion} una sola vez por (usuario, operación, clave).
+     * {@code huella} identifica el contenido de la petición: reutilizar la clave con otro contenido es un error.
+     * Sin clave, la acción se ejecuta siempre.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Resultado<T> ejecutar(UUID usuarioId, String operacion, String clave, String huella, Supplier<T> accion) {
+        if (clave == null || clave.isBlank()) {
+            return new Resultado<>(accion.get(), false);
+        }
+        if (clave.length() > LONGITUD_MAXIMA_CLAVE) {
+            throw new ValidationException("La cabecera Idempotency-Key no puede exceder " + LONGITUD_MAXIMA_CLAVE + " caracteres");
+        }
+
+        String id = usuarioId + ":" + operacion + ":" + clave;
+        Entrada propia = new Entrada(huella, new CompletableFuture<>(), System.currentTimeMillis() + ttlMs);
+        Entrada existente;
+        while (true) {
+            if (entradas.size() >= maxEntradas) {
+                purgar();
+            }
+            existente = entradas.putIfAbsent(id, propia);
+            if (existente == null || existente.expiraEn > System.currentTimeMillis()) {
+                break;
+            }
+            entradas.remove(id, existente);
+        }
+
+        if (existente == null) {
+            try {
+                T valor = accion.get();
+                propia.resultado.complete(valor);
+                return new Resultado<>(valor, false);
+            } catch (RuntimeException e) {
+                entradas.remove(id, propia);
+                propia.resultado.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        if (!existente.huella.equals(huella)) {
+            throw new ValidationException("La Idempotency-Key ya se usó con una petición distinta");
+        }
+        try {
+            Object valor = existente.resultado.get(esperaMs, TimeUnit.MILLISECONDS);
+            repetidas.increment();
+            return new Resultado<>((T) valor, true);
+        } catch (ExecutionException e) {
+            // La petición original falló: el reintento recibe el mismo error
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ServiceUnavailableException("La petición original con esta Idempotency-Key sigue en curso", 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("La petición original con esta Idempotency-Key sigue en curso", 1);
+        }
+    }
+
+    /**
+     * Huella del contenido de una petición: SHA-256 de una codificación canónica de las partes (arrays anidados
+     * incluidos). Cada valor va precedido de su tipo y longitud, así que contenidos distintos nunca se codifican
+     * igual; una colisión equivaldría a romper SHA-256.
+     */
+    public static String huella(Object... partes) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            codificar(sha256, partes);
+            return HexFormat.of().formatHex(sha256.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private static void codificar(MessageDigest sha256, Object valor) {
+        if (valor == null) {
+            sha256.update((byte) 'N');
+        } else if (valor instanceof Object[] array) {
+            sha256.update((byte) 'A');
+            actualizarEntero(sha256, array.length);
+            for (Object elemento : array) {
+                codificar(sha256, elemento);
+            }
+        } else {
+            // Texto, UUID, Instant...: su forma textual es canónica
+            byte[] bytes = valor.toString().getBytes(StandardCharsets.UTF_8);
+            sha256.update((byte) 'S');
+            actualizarEntero(sha256, bytes.length);
+            sha256.update(bytes);
+        }
+    }
+
+    private static void actualizarEntero(MessageDigest sha256, int n) {
+        sha256.update(new byte[]{(byte) (n >>> 24), (byte) (n >>> 16), (byte) (n >>> 8), (byte) n});
+    }
+
+    /**
+     * Hace sitio al llegar al máximo: primero las expiradas y, si no basta, las terminadas que antes expiran.
+     * Las que siguen en curso no se tocan nunca: un reintento durante la petición original debe esperarla,
+     * no volver a ejecutar la operación.
+     */
+    private synchronized void purgar() {
+        if (entradas.size() < maxEntradas) {
+            return;
+        }
+        long ahora = System.currentTimeMillis();
+        entradas.values().removeIf(e -> e.expiraEn <= ahora && e.resultado.isDone());
+
+        int objetivo = maxEntradas - maxEntradas / 10;
+        if (entradas.size() >= objetivo) {
+            List<Map.Entry<String, Entrada>> terminadas = new ArrayList<>();
+            for (Map.Entry<String, Entrada> e : entradas.entrySet()) {
+                if (e.getValue().resultado.isDone()) {
+                    terminadas.add(e);
+                }
+            }
+            terminadas.sort(Comparator.comparingLong(e -> e.getValue().expiraEn));
+            for (int i = 0; i < terminadas.size() && entradas.size() >= objetivo; i++) {
+                entradas.remove(terminadas.get(i).getKey(), terminadas.get(i).getValue());
+            }
+        }
+    }
+
+    public record Resultado<T>(T valor, boolean repetida) {
+    }
+
+    private record Entrada(String huella, CompletableFuture<Object> resultado, long expiraEn) {
+    }
+}
@@ -0,0 +1,186 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.dto.experiencia.ExperienciaDetailDTO;
+import com.experienciassoria.dto.experiencia.ExperienciaListDTO;
+import com.experienciassoria.dto.experiencia.ResultadoBusquedaDTO;
+import com.experienciassoria.util.MapperUtils;
+import com.experienciassoria.util.TextoUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Índice invertido en memoria sobre título, dirección y descripción de las experiencias visibles.
+ * Los términos están ordenados (skip list) para resolver la última palabra de la consulta por prefijo
+ * mientras el usuario escribe.
+ */
+@Slf4j
+@Component
+public class IndiceBusqueda {
+
+    // Peso de un término según el campo en el que aparece
+    private static final int PESO_TITULO = 10;
+    private static final int PESO_DIRECCION = 3;
+    private static final int PESO_DESCRIPCION = 1;
+
+    private static final Comparator<Map.Entry<ExperienciaListDTO, Integer>> POR_RELEVANCIA =
+            Map.Entry.<ExperienciaListDTO, Integer>comparingByValue().reversed()
+                    .thenComparing(e -> e.getKey().getTitulo(), Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final Timer consultaTimer;
+    // Las reconstrucciones montan un índice nuevo y lo publican de una vez; las búsquedas nunca ven uno a medias
+    private volatile Indice indice = new Indice();
+    private volatile boolean cargado;
+
+    public IndiceBusqueda(MeterRegistry meterRegistry) {
+        this.consultaTimer = Timer.builder("busqueda.consulta").register(meterRegistry);
+        Gauge.builder("busqueda.indice.terminos", this, i -> i.indice.terminos.size()).register(meterRegistry);
+    }
+
+    // 🔹 Reconstruir el índice completo a partir del catálogo
+    public synchronized void reconstruir(Collection<ExperienciaDetailDTO> experiencias) {
+        Indice nuevo = new Indice();
+        for (ExperienciaDetailDTO exp : experiencias) {
+            nuevo.indexar(exp);
+        }
+        indice = nuevo;
+        cargado = true;
+        log.info("Índice de búsqueda reconstruido: {} experiencias, {} términos", nuevo.documentos.size(), nuevo.terminos.size());
+    }
+
+    public boolean isCargado() {
+        return cargado;
+    }
+
+    // 🔹 Actualización incremental: se retiran los términos anteriores y se indexan los nuevos
+    public synchronized void actualizar(ExperienciaDetailDTO exp) {
+        indice.quitar(exp.getId());
+        indice.indexar(exp);
+    }
+
+    public synchronized void eliminar(UUID id) {
+        indice.quitar(id);
+    }
+
+    /**
+     * Busca experiencias que contengan todas las palabras de la consulta (la última, por prefijo).
+     * Las facetas por categoría se calculan antes de filtrar por {@code categoria}.
+     */
+    public ResultadoBusquedaDTO buscar(String consulta, String categoria, int limit) {
+        long inicio = System.nanoTime();
+        Indice actual = indice;
+        List<String> palabras = TextoUtils.terminos(consulta);
+        if (palabras.isEmpty()) {
+            return new ResultadoBusquedaDTO(List.of(), 0, Map.of());
+        }
+
+        Map<UUID, Integer> puntuaciones = null;
+        for (int i = 0; i < palabras.size(); i++) {
+            boolean esUltima = i == palabras.size() - 1;
+            Map<UUID, Integer> coincidencias = actual.coincidencias(palabras.get(i), esUltima);
+            if (puntuaciones == null) {
+                puntuaciones = coincidencias;
+            } else {
+                // Intersección: la experiencia debe contener todas las palabras
+                Map<UUID, Integer> comunes = new HashMap<>();
+                for (Map.Entry<UUID, Integer> e : puntuaciones.entrySet()) {
+                    Integer otra = coincidencias.get(e.getKey());
+                    if (otra != null) {
+                        comunes.put(e.getKey(), e.getValue() + otra);
+                    }
+                }
+                puntuaciones = comunes;
+            }
+            if (puntuaciones.isEmpty()) {
+                break;
+            }
+        }
+
+        Map<String, Integer> facetas = new TreeMap<>();
+        List<Map.Entry<ExperienciaListDTO, Integer>> filtradas = new ArrayList<>();
+        for (Map.Entry<UUID, Integer> e : puntuaciones.entrySet()) {
+            ExperienciaListDTO doc = actual.documentos.get(e.getKey());
+            if (doc == null) {
+                continue;
+            }
+            facetas.merge(doc.getCategoria(), 1, Integer::sum);
+            if (categoria == null || categoria.equals(doc.getCategoria())) {
+                filtradas.add(Map.entry(doc, e.getValue()));
+            }
+        }
+        filtradas.sort(POR_RELEVANCIA);
+
+        List<ExperienciaListDTO> resultados = new ArrayList<>(Math.min(limit, filtradas.size()));
+        for (int i = 0; i < filtradas.size() && i < limit; i++) {
+            resultados.add(filtradas.get(i).getKey());
+        }
+        consultaTimer.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        return new ResultadoBusquedaDTO(resultados, filtradas.size(), facetas);
+    }
+
+    private static void sumar(Map<String, Integer> pesos, String texto, int peso) {
+        for (String termino : TextoUtils.terminos(texto)) {
+            pesos.merge(termino, peso, Integer::sum);
+        }
+    }
+
+    private static final class Indice {
+        // término -> (experiencia -> peso)
+        private final ConcurrentSkipListMap<String, Map<UUID, Integer>> terminos = new ConcurrentSkipListMap<>();
+        private final ConcurrentHashMap<UUID, ExperienciaListDTO> documentos = new ConcurrentHashMap<>();
+        // Términos indexados por experiencia, para poder retirarlos al actualizar (solo se toca dentro de synchronized)
+        private final Map<UUID, Set<String>> terminosDe = new HashMap<>();
+
+        // Peso de cada experiencia para una palabra; las coincidencias exactas puntúan el doble que las de prefijo
+        private Map<UUID, Integer> coincidencias(String palabra, boolean porPrefijo) {
+            Map<UUID, Integer> resultado = new HashMap<>();
+            Map<UUID, Integer> exactas = terminos.get(palabra);
+            if (exactas != null) {
+                exactas.forEach((id, peso) -> resultado.put(id, peso * 2));
+            }
+            if (porPrefijo) {
+                for (Map.Entry<String, Map<UUID, Integer>> termino
+                        : terminos.subMap(palabra, false, palabra + Character.MAX_VALUE, false).entrySet()) {
+                    termino.getValue().forEach((id, peso) -> resultado.merge(id, peso, Math::max));
+                }
+            }
+            return resultado;
+        }
+
+        private void indexar(ExperienciaDetailDTO exp) {
+            if (!exp.isVisible()) {
+                return;
+            }
+            Map<String, Integer> pesos = new HashMap<>();
+            sumar(pesos, exp.getTitulo(), PESO_TITULO);
+            sumar(pesos, exp.getDireccion(), PESO_DIRECCION);
+            sumar(pesos, exp.getDescripcion(), PESO_DESCRIPCION);
+
+            documentos.put(exp.getId(), MapperUtils.toListDTO(exp));
+            pesos.forEach((termino, peso) ->
+                    terminos.computeIfAbsent(termino, t -> new ConcurrentHashMap<>()).put(exp.getId(), peso));
+            terminosDe.put(exp.getId(), pesos.keySet());
+        }
+
+        private void quitar(UUID id) {
+            documentos.remove(id);
+            Set<String> anteriores = terminosDe.remove(id);
+            if (anteriores == null) {
+                return;
+            }
+            for (String termino : anteriores) {
+                terminos.computeIfPresent(termino, (t, postings) -> {
+                    postings.remove(id);
+                    return postings.isEmpty() ? null : postings;
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.dto.experiencia.ExperienciaCercanaDTO;
+import com.experienciassoria.dto.experiencia.ExperienciaDetailDTO;
+import com.experienciassoria.dto.experiencia.ExperienciaListDTO;
+import com.experienciassoria.util.MapperUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Índice espacial en memoria de las experiencias visibles.
+ * Rejilla de celdas de tamaño fijo en grados; cada celda guarda las coordenadas en arrays
+ * de double y se sustituye entera (copy-on-write) cuando cambia una de sus experiencias.
+ * Una reconstrucción completa monta un mapa de celdas nuevo y lo publica con un solo cambio de referencia:
+ * una consulta ve el índice anterior entero o el nuevo entero, nunca una mezcla.
+ */
+@Slf4j
+@Component
+public class IndiceGeografico {
+
+    private static final double RADIO_TIERRA_KM = 6371.0088;
+    private static final double KM_POR_GRADO = 111.32;
+
+    private final double celdaGrados;
+    private final Timer consultaTimer;
+
+    private volatile ConcurrentHashMap<Long, Celda> celdas = new ConcurrentHashMap<>();
+    // Celda en la que está indexada cada experiencia (solo se toca dentro de los métodos synchronized)
+    private Map<UUID, Long> celdaDe = new HashMap<>();
+    private volatile boolean cargado;
+
+    public IndiceGeografico(@Value("${app.geo.celda-grados:0.05}") double celdaGrados,
+                            MeterRegistry meterRegistry) {
+        this.celdaGrados = celdaGrados;
+        this.consultaTimer = Timer.builder("geo.consulta").register(meterRegistry);
+        Gauge.builder("geo.indice.size", this, g -> g.celdas.values().stream().mapToInt(Celda::size).sum())
+                .register(meterRegistry);
+    }
+
+    // 🔹 Reconstruir el índice completo a partir del catálogo
+    public synchronized void reconstruir(Collection<ExperienciaDetailDTO> experiencias) {
+        Map<Long, List<ExperienciaListDTO>> agrupadas = new HashMap<>();
+        Map<UUID, Long> nuevaCeldaDe = new HashMap<>();
+        for (ExperienciaDetailDTO exp : experiencias) {
+            if (!indexable(exp)) {
+                continue;
+            }
+            long clave = clave(exp.getUbicacionLat().doubleValue(), exp.getUbicacionLng().doubleValue());
+            agrupadas.computeIfAbsent(clave, k -> new ArrayList<>()).add(MapperUtils.toListDTO(exp));
+            nuevaCeldaDe.put(exp.getId(), clave);
+        }
+
+        ConcurrentHashMap<Long, Celda> nuevas = new ConcurrentHashMap<>(agrupadas.size() * 2);
+        agrupadas.forEach((clave, items) -> nuevas.put(clave, Celda.de(items)));
+        celdaDe = nuevaCeldaDe;
+        celdas = nuevas;
+        cargado = true;
+        log.info("Índice geográfico reconstruido: {} experiencias en {} celdas", nuevaCeldaDe.size(), nuevas.size());
+    }
+
+    public boolean isCargado() {
+        return cargado;
+    }
+
+    // 🔹 Actualización incremental: solo se reescriben la celda antigua y la nueva
+    public synchronized void actualizar(ExperienciaDetailDTO exp) {
+        quitar(exp.getId());
+        if (!indexable(exp)) {
+            return;
+        }
+        long clave = clave(exp.getUbicacionLat().doubleValue(), exp.getUbicacionLng().doubleValue());
+        ExperienciaListDTO item = MapperUtils.toListDTO(exp);
+        celdas.compute(clave, (k, celda) -> celda == null ? Celda.de(List.of(item)) : celda.con(item));
+        celdaDe.put(exp.getId(), clave);
+    }
+
+    public synchronized void eliminar(UUID id) {
+        quitar(id);
+    }
+
+    /**
+     * Las {@code limit} experiencias más cercanas a (lat, lng) dentro de {@code radioKm},
+     * ordenadas por distancia. Solo recorre las celdas que cubren el círculo de búsqueda.
+     */
+    public List<ExperienciaCercanaDTO> buscarCercanas(double lat, double lng, double radioKm, int limit) {
+        long inicio = System.nanoTime();
+
+        double dLat = radioKm / KM_POR_GRADO;
+        double dLng = radioKm / (KM_POR_GRADO * Math.max(Math.cos(Math.toRadians(lat)), 0.01));
+        int filaMin = indice(lat - dLat), filaMax = indice(lat + dLat);
+        int colMin = indice(lng - dLng), colMax = indice(lng + dLng);
+
+        // Montículo de máximos con las k mejores: la raíz es la candidata más lejana
+        PriorityQueue<Candidata> mejores = new PriorityQueue<>(limit + 1,
+                Comparator.comparingDouble(Candidata::distanciaKm).reversed());
+        Map<Long, Celda> actuales = celdas;
+        for (int fila = filaMin; fila <= filaMax; fila++) {
+            for (int col = colMin; col <= colMax; col++) {
+                Celda celda = actuales.get(clave(fila, col));
+                if (celda == null) {
+                    continue;
+                }
+                for (int i = 0; i < celda.lats.length; i++) {
+                    double d = distanciaKm(lat, lng, celda.lats[i], celda.lngs[i]);
+                    if (d > radioKm) {
+                        continue;
+                    }
+                    if (mejores.size() < limit) {
+                        mejores.add(new Candidata(celda.items[i], d));
+                    } else if (d < mejores.peek().distanciaKm()) {
+                        mejores.poll();
+                        mejores.add(new Candidata(celda.items[i], d));
+                    }
+                }
+            }
+        }
+
+        List<Candidata> ordenadas = new ArrayList<>(mejores);
+        ordenadas.sort(Comparator.comparingDouble(Candidata::distanciaKm));
+        List<ExperienciaCercanaDTO> resultado = new ArrayList<>(ordenadas.size());
+        for (Candidata c : ordenadas) {
+            ExperienciaListDTO e = c.item();
+            resultado.add(new ExperienciaCercanaDTO(e.getId(), e.getTitulo(), e.getCategoria(),
+                    e.getImagenPortadaUrl(), e.getUbicacionLat(), e.getUbicacionLng(),
+                    e.getPuntosOtorgados(), (int) Math.round(c.distanciaKm() * 1000)));
+        }
+        consultaTimer.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        return resultado;
+    }
+
+    private void quitar(UUID id) {
+        Long anterior = celdaDe.remove(id);
+        if (anterior != null) {
+            celdas.computeIfPresent(anterior, (k, celda) -> celda.sin(id));
+        }
+    }
+
+    private static boolean indexable(ExperienciaDetailDTO exp) {
+        return exp.isVisible() && exp.getUbicacionLat() != null && exp.getUbicacionLng() != null;
+    }
+
+    private int indice(double grados) {
+        return (int) Math.floor(grados / celdaGrados);
+    }
+
+    private long clave(double lat, double lng) {
+        return clave(indice(lat), indice(lng));
+    }
+
+    private static long clave(int fila, int col) {
+        return ((long) fila << 32) | (col & 0xFFFFFFFFL);
+    }
+
+    // Haversine
+    static double distanciaKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * RADIO_TIERRA_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private record Candidata(ExperienciaListDTO item, double distanciaKm) {
+    }
+
+    // Celda inmutable: coordenadas en arrays primitivos paralelos a los elementos
+    private static final class Celda {
+        private final double[] lats;
+        private final double[] lngs;
+        private final ExperienciaListDTO[] items;
+
+        private Celda(double[] lats, double[] lngs, ExperienciaListDTO[] items) {
+            this.lats = lats;
+            this.lngs = lngs;
+            this.items = items;
+        }
+
+        private static Celda de(List<ExperienciaListDTO> lista) {
+            int n = lista.size();
+            double[] lats = new double[n];
+            double[] lngs = new double[n];
+            ExperienciaListDTO[] items = new ExperienciaListDTO[n];
+            for (int i = 0; i < n; i++) {
+                ExperienciaListDTO e = lista.get(i);
+                lats[i] = e.getUbicacionLat().doubleValue();
+                lngs[i] = e.getUbicacionLng().doubleValue();
+                items[i] = e;
+            }
+            return new Celda(lats, lngs, items);
+        }
+
+        private int size() {
+            return items.length;
+        }
+
+        private Celda con(ExperienciaListDTO item) {
+            int n = items.length;
+            double[] nLats = Arrays.copyOf(lats, n + 1);
+            double[] nLngs = Arrays.copyOf(lngs, n + 1);
+            ExperienciaListDTO[] nItems = Arrays.copyOf(items, n + 1);
+            nLats[n] = item.getUbicacionLat().doubleValue();
+            nLngs[n] = item.getUbicacionLng().doubleValue();
+            nItems[n] = item;
+            return new Celda(nLats, nLngs, nItems);
+        }
+
+        // Devuelve null si la celda queda vacía, para que compute la retire del mapa
+        private Celda sin(UUID id) {
+            int pos = -1;
+            for (int i = 0; i < items.length; i++) {
+                if (items[i].getId().equals(id)) {
+                    pos = i;
+                    break;
+                }
+            }
+            if (pos < 0) {
+                return this;
+            }
+            if (items.length == 1) {
+                return null;
+            }
+            int n = items.length - 1;
+            double[] nLats = new double[n];
+            double[] nLngs = new double[n];
+            ExperienciaListDTO[] nItems = new ExperienciaListDTO[n];
+            System.arraycopy(lats, 0, nLats, 0, pos);
+            System.arraycopy(lats, pos + 1, nLats, pos, n - pos);
+            System.arraycopy(lngs, 0, nLngs, 0, pos);
+            System.arraycopy(lngs, pos + 1, nLngs, pos, n - pos);
+            System.arraycopy(items, 0, nItems, 0, pos);
+            System.arraycopy(items, pos + 1, nItems, pos, n - pos);
+            return new Celda(nLats, nLngs, nItems);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.dto.comentario.TerminosModeracionDTO;
+import com.experienciassoria.model.TerminoModeracion;
+import com.experienciassoria.repository.TerminoModeracionRepository;
+import com.experienciassoria.util.AhoCorasick;
+import com.experienciassoria.util.TextoUtils;
+import com.experienciassoria.util.Transacciones;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Moderación de comentarios con una lista de términos prohibidos (normalizados: sin tildes ni mayúsculas).
+ * Todos los términos se buscan a la vez con un autómata de Aho-Corasick, en una pasada por el texto: el coste
+ * depende de la longitud del comentario, no del tamaño de la lista. Al cambiar la lista se construye un
+ * autómata nuevo y se sustituye de golpe; los comentarios en curso terminan con el anterior.
+ */
+@Slf4j
+@Service
+public class ModeracionService {
+
+    private static final char MASCARA = '*';
+
+    private final TerminoModeracionRepository terminoRepository;
+    private final Counter permitidos;
+    private final Counter enmascarados;
+    private final Counter retenidos;
+
+    private volatile AhoCorasick<TerminoModeracion.Accion> automata = AhoCorasick.construir(Map.of());
+
+    public ModeracionService(TerminoModeracionRepository terminoRepository, MeterRegistry meterRegistry) {
+        this.terminoRepository = terminoRepository;
+        this.permitidos = Counter.builder("comentarios.moderacion").tag("resultado", "permitido").register(meterRegistry);
+        this.enmascarados = Counter.builder("comentarios.moderacion").tag("resultado", "enmascarado").register(meterRegistry);
+        this.retenidos = Counter.builder("comentarios.moderacion").tag("resultado", "retenido").register(meterRegistry);
+        Gauge.builder("comentarios.moderacion.terminos", this, s -> s.automata.size()).register(meterRegistry);
+    }
+
+    // 🔹 Cargar la lista al arrancar y releerla periódicamente (cambios hechos desde otra instancia)
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.moderacion.recarga-ms:300000}",
+            initialDelayString = "${app.moderacion.recarga-ms:300000}")
+    public synchronized void recargar() {
+        Map<String, TerminoModeracion.Accion> terminos = new HashMap<>();
+        for (TerminoModeracion t : terminoRepository.findAll()) {
+            terminos.put(t.getTermino(), t.getAccion());
+        }
+        automata = AhoCorasick.construir(terminos);
+        log.info("Lista de moderación cargada: {} términos", terminos.size());
+    }
+
+    /**
+     * Moderar el texto de un comentario: si contiene algún término a retener queda pendiente de revisión;
+     * los términos a enmascarar se tapan con asteriscos. Solo cuentan las palabras completas
+     * ("tonto" no salta en "tontorrón"), sin distinguir mayúsculas ni tildes.
+     */
+    public Resultado moderar(String texto) {
+        AhoCorasick<TerminoModeracion.Accion> actual = automata;
+        if (actual.size() == 0) {
+            permitidos.increment();
+            return new Resultado(Decision.PERMITIDO, texto);
+        }
+
+        // Texto plegado y, para cada carácter, su posición en el original (para enmascarar)
+        StringBuilder plegado = new StringBuilder(texto.length());
+        int[] origen = new int[texto.length()];
+        plegar(texto, plegado, origen);
+
+        boolean retener = false;
+        char[] resultado = null;
+        for (AhoCorasick.Coincidencia<TerminoModeracion.Accion> m : actual.buscar(plegado)) {
+            if (!palabraCompleta(plegado, m.inicio(), m.fin())) {
+                continue;
+            }
+            if (m.valor() == TerminoModeracion.Accion.RETENER) {
+                retener = true;
+                continue;
+            }
+            if (resultado == null) {
+                resultado = texto.toCharArray();
+            }
+            enmascarar(texto, resultado, origen[m.inicio()], origen[m.fin() - 1]);
+        }
+
+        String moderado = resultado != null ? new String(resultado) : texto;
+        if (retener) {
+            retenidos.increment();
+            return new Resultado(Decision.RETENIDO, moderado);
+        }
+        if (resultado != null) {
+            enmascarados.increment();
+            return new Resultado(Decision.ENMASCARADO, moderado);
+        }
+        permitidos.increment();
+        return new Resultado(Decision.PERMITIDO, texto);
+    }
+
+    // 🔹 Lista actual de términos, por acción y en orden alfabético
+    public TerminosModeracionDTO getTerminos() {
+        List<String> enmascarar = new ArrayList<>();
+        List<String> retener = new ArrayList<>();
+        for (TerminoModeracion t : terminoRepository.findAll()) {
+            (t.getAccion() == TerminoModeracion.Accion.RETENER ? retener : enmascarar).add(t.getTermino());
+        }
+        Collections.sort(enmascarar);
+        Collections.sort(retener);
+        return new TerminosModeracionDTO(enmascarar, retener);
+    }
+
+    /**
+     * Sustituir la lista completa. Los términos se guardan normalizados y sin repetir; si uno aparece en las
+     * dos listas, se retiene. El autómata se reconstruye tras el commit.
+     */
+    @Transactional
+    public TerminosModeracionDTO reemplazarTerminos(TerminosModeracionDTO request) {
+        Map<String, TerminoModeracion.Accion> terminos = new HashMap<>();
+        for (String termino : request.getEnmascarar()) {
+            terminos.put(normalizarTermino(termino), TerminoModeracion.Accion.ENMASCARAR);
+        }
+        for (String termino : request.getRetener()) {
+            terminos.put(normalizarTermino(termino), TerminoModeracion.Accion.RETENER);
+        }
+        terminos.remove("");
+
+        terminoRepository.deleteAllInBatch();
+        List<TerminoModeracion> nuevos = new ArrayList<>(terminos.size());
+        terminos.forEach((termino, accion) -> nuevos.add(TerminoModeracion.builder().termino(termino).accion(accion).build()));
+        terminoRepository.saveAll(nuevos);
+        Transacciones.despuesDelCommit(this::recargar);
+        log.info("Lista de moderación sustituida: {} términos", nuevos.size());
+
+        List<String> enmascarar = new ArrayList<>();
+        List<String> retener = new ArrayList<>();
+        terminos.forEach((termino, accion) -> (accion == TerminoModeracion.Accion.RETENER ? retener : enmascarar).add(termino));
+        Collections.sort(enmascarar);
+        Collections.sort(retener);
+        return new TerminosModeracionDTO(enmascarar, retener);
+    }
+
+    // "  Palabra   MALSONANTE " -> "palabra malsonante" (mismo plegado que el texto de los comentarios)
+    static String normalizarTermino(String termino) {
+        StringBuilder plegado = new StringBuilder(termino.length());
+        plegar(termino, plegado, new int[termino.length()]);
+        return plegado.toString().trim();
+    }
+
+    // Minúsculas y sin tildes, con los espacios seguidos reducidos a uno
+    private static void plegar(String texto, StringBuilder plegado, int[] origen) {
+        boolean espacioPrevio = false;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = TextoUtils.plegar(texto.charAt(i));
+            if (c == 0) {
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                if (espacioPrevio) {
+                    continue;
+                }
+                c = ' ';
+                espacioPrevio = true;
+            } else {
+                espacioPrevio = false;
+            }
+            origen[plegado.length()] = i;
+            plegado.append(c);
+        }
+    }
+
+    private static boolean palabraCompleta(CharSequence texto, int inicio, int fin) {
+        return (inicio == 0 || !Character.isLetterOrDigit(texto.charAt(inicio - 1)))
+                && (fin == texto.length() || !Character.isLetterOrDigit(texto.charAt(fin)));
+    }
+
+    // Tapar [desde, hasta] del original (y las marcas diacríticas sueltas que sigan), respetando los espacios
+    private static void enmascarar(String texto, char[] resultado, int desde, int hasta) {
+        while (hasta + 1 < texto.length() && TextoUtils.plegar(texto.charAt(hasta + 1)) == 0) {
+            hasta++;
+        }
+        for (int i = desde; i <= hasta; i++) {
+            if (!Character.isWhitespace(resultado[i])) {
+                resultado[i] = MASCARA;
+            }
+        }
+    }
+
+    public enum Decision {
+        PERMITIDO, ENMASCARADO, RETENIDO
+    }
+
+    public record Resultado(Decision decision, String texto) {
+    }
+}
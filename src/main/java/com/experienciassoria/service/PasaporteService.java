@@ -1,18 +1,26 @@
 package com.experienciassoria.service;
 
+import com.experienciassoria.dto.experiencia.ExperienciaDetailDTO;
+import com.experienciassoria.dto.experiencia.UidResueltoDTO;
 import com.experienciassoria.dto.pasaporte.*;
 import com.experienciassoria.exception.DuplicateResourceException;
 import com.experienciassoria.exception.ResourceNotFoundException;
+import com.experienciassoria.exception.ValidationException;
 import com.experienciassoria.model.*;
 import com.experienciassoria.repository.*;
+import com.experienciassoria.util.Cursor;
+import com.experienciassoria.util.PaginaCursor;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.LockModeType;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -20,78 +28,152 @@ import java.util.stream.Collectors;
 @Service
 public class PasaporteService {
 
+    private static final int LIMITE_PAGINA_MAXIMO = 200;
+
     private final RegistroExperienciaRepository registroRepo;
     private final ExperienciaUIDRepository experienciaUIDRepo;
     private final UsuarioRepository usuarioRepo;
     private final ExperienciaRepository experienciaRepo;
     private final EntityManager entityManager;
+    private final UidResolver uidResolver;
+    private final ExperienciaService experienciaService;
+    private final ResumenPasaporteCache resumenPasaporteCache;
+    private final Clasificacion clasificacion;
+    private final ClasificacionPorPeriodo clasificacionPorPeriodo;
+    private final ClasificacionVisitas clasificacionVisitas;
+    private final DifusionClasificacion difusionClasificacion;
+    private final EstadisticasExperiencias estadisticasExperiencias;
+    private final Duration maxOffline;
 
     public PasaporteService(
             RegistroExperienciaRepository registroRepo,
             ExperienciaUIDRepository experienciaUIDRepo,
             UsuarioRepository usuarioRepo,
             ExperienciaRepository experienciaRepo,
-            EntityManager entityManager) {
+            EntityManager entityManager,
+            UidResolver uidResolver,
+            ExperienciaService experienciaService,
+            ResumenPasaporteCache resumenPasaporteCache,
+            Clasificacion clasificacion,
+            ClasificacionPorPeriodo clasificacionPorPeriodo,
+            ClasificacionVisitas clasificacionVisitas,
+            DifusionClasificacion difusionClasificacion,
+            EstadisticasExperiencias estadisticasExperiencias,
+            @Value("${app.pasaporte.max-offline:7d}") Duration maxOffline) {
         this.registroRepo = registroRepo;
         this.experienciaUIDRepo = experienciaUIDRepo;
         this.usuarioRepo = usuarioRepo;
         this.experienciaRepo = experienciaRepo;
         this.entityManager = entityManager;
-    }
-
-    public UUID getUsuarioIdByEmail(String email) {
-        return usuarioRepo.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"))
-                .getId();
+        this.uidResolver = uidResolver;
+        this.experienciaService = experienciaService;
+        this.resumenPasaporteCache = resumenPasaporteCache;
+        this.clasificacion = clasificacion;
+        this.clasificacionPorPeriodo = clasificacionPorPeriodo;
+        this.clasificacionVisitas = clasificacionVisitas;
+        this.difusionClasificacion = difusionClasificacion;
+        this.estadisticasExperiencias = estadisticasExperiencias;
+        this.maxOffline = maxOffline;
     }
 
     // 🔹 Obtener pasaporte completo de un usuario
-    public PasaporteDTO getPasaporte(UUID usuarioId) {
+    /**
+     * Pasaporte de un usuario: datos del usuario y una página de sus registros, del más reciente al más antiguo.
+     * Los registros salen de una única consulta proyectada (sin cargar las experiencias una a una).
+     */
+    public PasaporteDTO getPasaporte(UUID usuarioId, String categoria, String cursor, int limit) {
         Usuario usuario = usuarioRepo.findById(usuarioId)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
 
-        List<RegistroExperienciaDTO> registros = registroRepo.findByUsuario(usuario).stream()
-                .map(r -> new RegistroExperienciaDTO(
-                        r.getExperiencia().getId(),
-                        r.getExperiencia().getTitulo(),
-                        r.getExperiencia().getCategoria().name(),
-                        r.getFechaRegistro(),
-                        r.getExperiencia().getImagenPortadaUrl(),
-                        r.getOpinion(),
-                        r.getPuntosOtorgados()))
-                .collect(Collectors.toList());
-
-        return new PasaporteDTO(usuario.getId(), usuario.getNombre(), usuario.getPuntos(), registros);
+        PaginaCursor<RegistroExperienciaDTO> registros = getRegistros(usuarioId, categoria, cursor, limit);
+        return new PasaporteDTO(usuario.getId(), usuario.getNombre(), usuario.getPuntos(),
+                registros.getItems(), registros.getSiguienteCursor());
     }
 
-    // 🔹 Registrar una experiencia (a partir de un UID)
-    @Transactional
-    public RegistroExperienciaDTO registrarExperiencia(UUID usuarioId, RegistroRequest request) {
-        log.info("Registrando experiencia para usuario {} con UID: {}", usuarioId, request.getUidScaneado());
-        
-        // 🔒 Bloqueo pesimista del usuario para prevenir condiciones de carrera
-        // Esto serializa las operaciones de registro para el mismo usuario
-        Usuario usuario = entityManager.find(Usuario.class, usuarioId, LockModeType.PESSIMISTIC_WRITE);
-        if (usuario == null) {
-            throw new ResourceNotFoundException("Usuario no encontrado");
+    // 🔹 Página de registros de un usuario, con filtro opcional de categoría
+    public PaginaCursor<RegistroExperienciaDTO> getRegistros(UUID usuarioId, String categoria, String cursor, int limit) {
+        Experiencia.Categoria filtroCategoria = ExperienciaService.parseCategoria(categoria);
+        int tamano = Math.max(1, Math.min(limit, LIMITE_PAGINA_MAXIMO));
+
+        // El cursor es la fecha de registro y el id de la experiencia de la última fila de la página anterior
+        Instant cursorFecha = null;
+        UUID cursorId = null;
+        if (cursor != null) {
+            String[] partes = Cursor.decode(cursor, 2);
+            try {
+                cursorFecha = Instant.parse(partes[0]);
+                cursorId = UUID.fromString(partes[1]);
+            } catch (DateTimeParseException | IllegalArgumentException e) {
+                throw new ValidationException("Cursor inválido");
+            }
         }
 
-        ExperienciaUID experienciaUID = experienciaUIDRepo.findByUidAndActivoTrue(request.getUidScaneado())
-                .orElseThrow(() -> new ResourceNotFoundException("UID inválido o no activo"));
+        // Se pide una fila de más para saber si hay página siguiente
+        List<RegistroExperienciaDTO> filas = registroRepo.findPaginaPasaporte(
+                usuarioId, filtroCategoria, cursorFecha, cursorId, PageRequest.of(0, tamano + 1));
+        if (filas.size() <= tamano) {
+            return new PaginaCursor<>(filas, null);
+        }
+        List<RegistroExperienciaDTO> items = filas.subList(0, tamano);
+        RegistroExperienciaDTO ultima = items.get(tamano - 1);
+        String siguiente = Cursor.encode(ultima.getFechaRegistro().toString(), ultima.getExperienciaId().toString());
+        return new PaginaCursor<>(new ArrayList<>(items), siguiente);
+    }
 
-        Experiencia experiencia = experienciaUID.getExperiencia();
+    /**
+     * Resumen del pasaporte para la pantalla de inicio: visitadas y porcentaje del catálogo por categoría,
+     * puntos y última visita. Sin consultas agregadas: el resumen y los totales del catálogo están en memoria.
+     */
+    public ResumenPasaporteDTO getResumen(UUID usuarioId) {
+        ResumenPasaporteCache.Resumen resumen = resumenPasaporteCache.obtener(usuarioId);
+        Map<Experiencia.Categoria, Integer> totales = experienciaService.getVisiblesPorCategoria();
 
-        // Verificar si ya existe el registro
-        if (registroRepo.existsByUsuario_IdAndExperiencia_Id(usuarioId, experiencia.getId())) {
-            throw new DuplicateResourceException("La experiencia ya fue registrada por este usuario");
+        List<ProgresoCategoriaDTO> categorias = new ArrayList<>();
+        int totalCatalogo = 0;
+        for (Experiencia.Categoria categoria : Experiencia.Categoria.values()) {
+            int total = totales.getOrDefault(categoria, 0);
+            int visitadas = resumen.getVisitadas(categoria);
+            totalCatalogo += total;
+            categorias.add(new ProgresoCategoriaDTO(categoria.name(), visitadas, total, porcentaje(visitadas, total)));
         }
+        int visitadas = resumen.getVisitadas();
+        return new ResumenPasaporteDTO(visitadas, totalCatalogo, porcentaje(visitadas, totalCatalogo),
+                resumen.getPuntos(), resumen.getUltimaVisita(), categorias);
+    }
+
+    // Las experiencias ocultas después de visitarlas cuentan como visitadas: se limita al 100 %
+    private static double porcentaje(int visitadas, int total) {
+        if (total == 0) {
+            return 0;
+        }
+        return Math.min(100, Math.round(visitadas * 1000.0 / total) / 10.0);
+    }
 
+    /**
+     * Registrar una experiencia (a partir de un UID).
+     * Sin bloqueos de lectura: el UID y la experiencia salen de las cachés en memoria, el duplicado lo
+     * detecta la restricción única (usuario_id, experiencia_id) y los puntos se suman con un UPDATE atómico.
+     */
+    @Transactional
+    public RegistroExperienciaDTO registrarExperiencia(UUID usuarioId, RegistroRequest request) {
+        log.info("Registrando experiencia para usuario {} con UID: {}", usuarioId, request.getUidScaneado());
+
+        UidResueltoDTO uid = uidResolver.resolver(request.getUidScaneado())
+                .orElseThrow(() -> new ResourceNotFoundException("UID inválido o no activo"));
+        ExperienciaDetailDTO experiencia = experienciaService.getExperienciaById(uid.getExperienciaId());
         int puntosOtorgados = experiencia.getPuntosOtorgados() != null ? experiencia.getPuntosOtorgados() : 10;
 
+        // Primero el UPDATE de puntos (bloquea la fila del usuario hasta el commit) y después el INSERT.
+        // En el orden inverso, dos registros simultáneos del mismo usuario se bloquearían mutuamente:
+        // el INSERT toma un bloqueo compartido sobre el usuario por la clave foránea.
+        if (usuarioRepo.sumarPuntos(usuarioId, puntosOtorgados) == 0) {
+            throw new ResourceNotFoundException("Usuario no encontrado");
+        }
+
         RegistroExperiencia registro = RegistroExperiencia.builder()
-                .usuario(usuario)
-                .experiencia(experiencia)
-                .experienciaUID(experienciaUID)
+                .usuario(entityManager.getReference(Usuario.class, usuarioId))
+                .experiencia(entityManager.getReference(Experiencia.class, experiencia.getId()))
+                .experienciaUID(entityManager.getReference(ExperienciaUID.class, uid.getUidId()))
                 .opinion(request.getOpinion())
                 .imgPortada(experiencia.getImagenPortadaUrl())
                 .fechaRegistro(Instant.now())
@@ -99,26 +181,130 @@ public class PasaporteService {
                 .build();
 
         try {
-            registroRepo.save(registro);
-
-            // 🔸 sumar puntos al usuario
-            usuario.setPuntos(usuario.getPuntos() + puntosOtorgados);
-            usuarioRepo.save(usuario);
-            log.info("Experiencia registrada exitosamente. Usuario {} ahora tiene {} puntos", usuarioId, usuario.getPuntos());
-
-            return new RegistroExperienciaDTO(
-                    experiencia.getId(),
-                    experiencia.getTitulo(),
-                    experiencia.getCategoria().name(),
-                    registro.getFechaRegistro(),
-                    registro.getOpinion(),
-                    registro.getImgPortada(),
-                    registro.getPuntosOtorgados());
+            registroRepo.saveAndFlush(registro);
         } catch (DataIntegrityViolationException e) {
-            // Capturar violación de constraint único (usuario_id + experiencia_id)
-            log.warn("Intento de registro duplicado detectado por constraint de BD: usuario {} - experiencia {}", 
+            // Violación del constraint único (usuario_id + experiencia_id): se deshace también la suma de puntos
+            log.warn("Intento de registro duplicado detectado por constraint de BD: usuario {} - experiencia {}",
                     usuarioId, experiencia.getId());
             throw new DuplicateResourceException("La experiencia ya fue registrada por este usuario");
         }
+        log.info("Experiencia registrada exitosamente. Usuario {} suma {} puntos", usuarioId, puntosOtorgados);
+
+        RegistroExperienciaDTO registrado = new RegistroExperienciaDTO(
+                experiencia.getId(),
+                experiencia.getTitulo(),
+                experiencia.getCategoria(),
+                registro.getFechaRegistro(),
+                registro.getOpinion(),
+                registro.getImgPortada(),
+                registro.getPuntosOtorgados());
+        resumenPasaporteCache.registrar(usuarioId, List.of(registrado));
+        clasificacion.sumarPuntos(usuarioId, puntosOtorgados);
+        clasificacionPorPeriodo.registrar(usuarioId, List.of(registrado));
+        clasificacionVisitas.registrar(usuarioId, List.of(registrado));
+        estadisticasExperiencias.registrarVisitas(List.of(registrado));
+        difusionClasificacion.registrarActividad(registrado);
+        return registrado;
+    }
+
+    /**
+     * Registrar un lote de escaneos hechos sin conexión.
+     * Una consulta para resolver todos los UIDs, otra para saber qué experiencias ya tenía el usuario,
+     * un único UPDATE de puntos y una inserción por lotes del resto. Si la misma experiencia aparece
+     * varias veces en el lote, cuenta el primer escaneo.
+     */
+    @Transactional
+    public RegistroLoteResponse registrarLote(UUID usuarioId, RegistroLoteRequest request) {
+        List<EscaneoOffline> escaneos = request.getEscaneos();
+        log.info("Sincronizando {} escaneos offline del usuario {}", escaneos.size(), usuarioId);
+
+        Map<String, UidResueltoDTO> uids = uidResolver.resolverTodos(
+                escaneos.stream().map(EscaneoOffline::getUidScaneado).collect(Collectors.toSet()));
+        Set<UUID> yaRegistradas = uids.isEmpty()
+                ? new HashSet<>()
+                : new HashSet<>(registroRepo.findExperienciasRegistradas(usuarioId,
+                        uids.values().stream().map(UidResueltoDTO::getExperienciaId).collect(Collectors.toSet())));
+
+        Instant ahora = Instant.now();
+        Usuario usuario = entityManager.getReference(Usuario.class, usuarioId);
+        List<ResultadoEscaneoDTO> resultados = new ArrayList<>(escaneos.size());
+        List<RegistroExperiencia> nuevos = new ArrayList<>();
+        int puntosSumados = 0;
+
+        for (EscaneoOffline escaneo : escaneos) {
+            UidResueltoDTO uid = uids.get(escaneo.getUidScaneado());
+            if (uid == null) {
+                resultados.add(new ResultadoEscaneoDTO(escaneo.getUidScaneado(), EstadoRegistro.UID_INVALIDO, null));
+                continue;
+            }
+            // add() devuelve false si ya estaba registrada o ya apareció antes en este lote
+            if (!yaRegistradas.add(uid.getExperienciaId())) {
+                resultados.add(new ResultadoEscaneoDTO(escaneo.getUidScaneado(), EstadoRegistro.DUPLICADO, null));
+                continue;
+            }
+
+            ExperienciaDetailDTO experiencia = experienciaService.getExperienciaById(uid.getExperienciaId());
+            int puntos = experiencia.getPuntosOtorgados() != null ? experiencia.getPuntosOtorgados() : 10;
+            Instant fecha = fechaEscaneo(escaneo.getScannedAt(), uid, ahora);
+
+            RegistroExperiencia registro = RegistroExperiencia.builder()
+                    .usuario(usuario)
+                    .experiencia(entityManager.getReference(Experiencia.class, experiencia.getId()))
+                    .experienciaUID(entityManager.getReference(ExperienciaUID.class, uid.getUidId()))
+                    .opinion(escaneo.getOpinion())
+                    .imgPortada(experiencia.getImagenPortadaUrl())
+                    .fechaRegistro(fecha)
+                    .puntosOtorgados(puntos)
+                    .build();
+            nuevos.add(registro);
+            puntosSumados += puntos;
+            resultados.add(new ResultadoEscaneoDTO(escaneo.getUidScaneado(), EstadoRegistro.REGISTRADO,
+                    new RegistroExperienciaDTO(experiencia.getId(), experiencia.getTitulo(), experiencia.getCategoria(),
+                            fecha, registro.getOpinion(), registro.getImgPortada(), puntos)));
+        }
+
+        if (!nuevos.isEmpty()) {
+            // Mismo orden que en el registro individual: primero los puntos, después las inserciones
+            if (usuarioRepo.sumarPuntos(usuarioId, puntosSumados) == 0) {
+                throw new ResourceNotFoundException("Usuario no encontrado");
+            }
+            try {
+                registroRepo.saveAll(nuevos);
+                registroRepo.flush();
+            } catch (DataIntegrityViolationException e) {
+                // Un registro individual concurrente ganó la carrera: el lote entero se deshace y el cliente reintenta
+                log.warn("Conflicto al sincronizar el lote del usuario {}: alguna experiencia se registró en paralelo", usuarioId);
+                throw new DuplicateResourceException("Alguna experiencia del lote se registró en paralelo; vuelve a sincronizar");
+            }
+            List<RegistroExperienciaDTO> registrados = resultados.stream()
+                    .filter(r -> r.getEstado() == EstadoRegistro.REGISTRADO)
+                    .map(ResultadoEscaneoDTO::getRegistro)
+                    .toList();
+            resumenPasaporteCache.registrar(usuarioId, registrados);
+            clasificacion.sumarPuntos(usuarioId, puntosSumados);
+            clasificacionPorPeriodo.registrar(usuarioId, registrados);
+            clasificacionVisitas.registrar(usuarioId, registrados);
+            estadisticasExperiencias.registrarVisitas(registrados);
+            registrados.forEach(difusionClasificacion::registrarActividad);
+        }
+
+        log.info("Lote sincronizado para usuario {}: {} registradas, {} puntos", usuarioId, nuevos.size(), puntosSumados);
+        return new RegistroLoteResponse(nuevos.size(), puntosSumados, resultados);
+    }
+
+    /**
+     * Hora de un escaneo offline: la del dispositivo, acotada a la ventana sin conexión admitida. Nunca en el
+     * futuro, ni antes de {@code ahora - maxOffline}, ni antes de que se generara el UID (una fecha inventada
+     * no puede adelantar a nadie en los pioneros ni caer en otro periodo de las clasificaciones).
+     */
+    private Instant fechaEscaneo(Instant scannedAt, UidResueltoDTO uid, Instant ahora) {
+        if (scannedAt == null || scannedAt.isAfter(ahora)) {
+            return ahora;
+        }
+        Instant minima = ahora.minus(maxOffline);
+        if (uid.getFechaGeneracion() != null && uid.getFechaGeneracion().isAfter(minima)) {
+            minima = uid.getFechaGeneracion().isBefore(ahora) ? uid.getFechaGeneracion() : ahora;
+        }
+        return scannedAt.isBefore(minima) ? minima : scannedAt;
     }
 }
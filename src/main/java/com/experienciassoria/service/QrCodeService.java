@@ -3,35 +3,75 @@ package com.experienciassoria.service;
 import com.experienciassoria.exception.ResourceNotFoundException;
 import com.experienciassoria.model.ExperienciaUID;
 import com.experienciassoria.repository.ExperienciaUIDRepository;
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.EncodeHintType;
+import com.experienciassoria.dto.experiencia.QrImagenDTO;
+import com.experienciassoria.util.QrRenderer;
 import com.google.zxing.WriterException;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
 import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 
-import javax.imageio.ImageIO;
-import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.Base64;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 @Slf4j
 @Service
 public class QrCodeService {
 
     private final ExperienciaUIDRepository experienciaUIDRepository;
-    private static final int QR_CODE_SIZE = 300;
-    private static final String IMAGE_FORMAT = "PNG";
-
-    public QrCodeService(ExperienciaUIDRepository experienciaUIDRepository) {
+    private final ThreadPoolExecutor renderExecutor;
+    private final QrRenderer renderer;
+    // LRU de PNG ya renderizados por id de UID: el QR de un UID nunca cambia, así que un acierto no consulta la BD
+    private final Map<UUID, EnCache> cache;
+    private final Counter hits;
+    private final Counter misses;
+    private static final int TAMANO_LOTE_EXPORTACION = 256;
+
+    public QrCodeService(ExperienciaUIDRepository experienciaUIDRepository,
+                         MeterRegistry meterRegistry,
+                         @Value("${app.qr.threads:0}") int threads,
+                         @Value("${app.qr.size:300}") int tamano,
+                         @Value("${app.qr.margin:1}") int margen,
+                         @Value("${app.qr.error-correction:H}") ErrorCorrectionLevel nivelCorreccion,
+                         @Value("${app.qr.cache-max-entries:2000}") int maxEntradas) {
         this.experienciaUIDRepository = experienciaUIDRepository;
+        this.renderer = new QrRenderer(tamano, margen, nivelCorreccion);
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, EnCache> eldest) {
+                return size() > maxEntradas;
+            }
+        });
+        this.hits = Counter.builder("qr.cache.hits").register(meterRegistry);
+        this.misses = Counter.builder("qr.cache.misses").register(meterRegistry);
+        Gauge.builder("qr.cache.size", cache, Map::size).register(meterRegistry);
+
+        // Pool acotado para renderizar QR; con la cola llena renderiza el propio hilo de la exportación
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger contador = new AtomicInteger();
+        this.renderExecutor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(TAMANO_LOTE_EXPORTACION),
+                r -> {
+                    Thread t = new Thread(r, "qr-render-" + contador.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
     }
 
     /**
@@ -42,57 +82,109 @@ public class QrCodeService {
      * @return Base64 encoded PNG image del QR code
      */
     public String generarQrCode(UUID uidId) {
-        log.info("Generando QR code para UID: {}", uidId);
-        
+        return "data:image/png;base64," + Base64.getEncoder().encodeToString(getQrPng(uidId).getPng());
+    }
+
+    // 🔹 PNG del QR de un UID (desde la caché si ya se renderizó) con su ETag
+    public QrImagenDTO getQrPng(UUID uidId) {
+        EnCache enCache = cache.get(uidId);
+        if (enCache != null) {
+            hits.increment();
+            return enCache.imagen();
+        }
+        misses.increment();
         ExperienciaUID experienciaUID = experienciaUIDRepository.findById(uidId)
                 .orElseThrow(() -> new ResourceNotFoundException("UID no encontrado"));
-
         String uid = experienciaUID.getUid();
         log.info("Generando QR code con UID: {}", uid);
+        byte[] png = renderizarPng(uid);
+        QrImagenDTO imagen = new QrImagenDTO(png, "\"" + DigestUtils.md5DigestAsHex(png) + "\"");
+        cache.put(uidId, new EnCache(experienciaUID.getExperiencia().getId(), imagen));
+        return imagen;
+    }
 
-        try {
-            // Configurar hints para el QR code
-            Map<EncodeHintType, Object> hints = new HashMap<>();
-            hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.H);
-            hints.put(EncodeHintType.CHARACTER_SET, "UTF-8");
-            hints.put(EncodeHintType.MARGIN, 1);
-
-            // Crear el QR code
-            QRCodeWriter qrCodeWriter = new QRCodeWriter();
-            BitMatrix bitMatrix = qrCodeWriter.encode(uid, BarcodeFormat.QR_CODE, QR_CODE_SIZE, QR_CODE_SIZE, hints);
-
-            // Convertir a imagen
-            BufferedImage qrImage = new BufferedImage(QR_CODE_SIZE, QR_CODE_SIZE, BufferedImage.TYPE_INT_RGB);
-            qrImage.createGraphics();
-
-            Graphics2D graphics = (Graphics2D) qrImage.getGraphics();
-            graphics.setColor(Color.WHITE);
-            graphics.fillRect(0, 0, QR_CODE_SIZE, QR_CODE_SIZE);
-            graphics.setColor(Color.BLACK);
-
-            // Dibujar el QR code
-            for (int x = 0; x < QR_CODE_SIZE; x++) {
-                for (int y = 0; y < QR_CODE_SIZE; y++) {
-                    if (bitMatrix.get(x, y)) {
-                        graphics.fillRect(x, y, 1, 1);
-                    }
+    // 🔹 Olvidar los QR de una experiencia eliminada (sus UIDs se borran con ella)
+    public void invalidarExperiencia(UUID experienciaId) {
+        synchronized (cache) {
+            cache.values().removeIf(e -> e.experienciaId().equals(experienciaId));
+        }
+    }
+
+    /**
+     * Escribe en {@code out} un ZIP con un PNG por cada UID activo de la experiencia.
+     * Los UIDs se leen por lotes (keyset) y cada lote se renderiza en paralelo en el pool de QR;
+     * solo un lote está en memoria a la vez y las entradas se escriben en orden según terminan.
+     */
+    public void exportarZip(UUID experienciaId, OutputStream out) throws IOException {
+        long inicio = System.currentTimeMillis();
+        int total = 0;
+        ZipOutputStream zip = new ZipOutputStream(out);
+        // Los PNG ya están comprimidos: se guardan sin deflate
+        zip.setMethod(ZipOutputStream.STORED);
+
+        String despuesDe = null;
+        while (true) {
+            List<String> lote = experienciaUIDRepository.findUidsActivosByExperiencia(
+                    experienciaId, despuesDe, PageRequest.of(0, TAMANO_LOTE_EXPORTACION));
+            if (lote.isEmpty()) {
+                break;
+            }
+
+            List<Future<byte[]>> pngs = new ArrayList<>(lote.size());
+            for (String uid : lote) {
+                pngs.add(renderExecutor.submit(() -> renderizarPng(uid)));
+            }
+            try {
+                for (int i = 0; i < lote.size(); i++) {
+                    escribirEntrada(zip, lote.get(i) + ".png", pngs.get(i).get());
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pngs.forEach(f -> f.cancel(true));
+                throw new IOException("Exportación de QR interrumpida", e);
+            } catch (ExecutionException e) {
+                pngs.forEach(f -> f.cancel(true));
+                throw new IOException("Error al generar el código QR", e.getCause());
             }
 
-            // Convertir a Base64
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            ImageIO.write(qrImage, IMAGE_FORMAT, outputStream);
-            byte[] imageBytes = outputStream.toByteArray();
-            String base64Image = Base64.getEncoder().encodeToString(imageBytes);
+            total += lote.size();
+            despuesDe = lote.get(lote.size() - 1);
+            // Enviar al cliente lo ya generado en lugar de acumularlo en el buffer del contenedor
+            zip.flush();
+        }
+        zip.finish();
+        log.info("Exportados {} QR de la experiencia {} en {} ms", total, experienciaId, System.currentTimeMillis() - inicio);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderExecutor.shutdownNow();
+    }
 
-            log.info("QR code generado exitosamente para UID: {}", uid);
-            return "data:image/png;base64," + base64Image;
+    private static void escribirEntrada(ZipOutputStream zip, String nombre, byte[] contenido) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(contenido);
+        ZipEntry entrada = new ZipEntry(nombre);
+        entrada.setSize(contenido.length);
+        entrada.setCompressedSize(contenido.length);
+        entrada.setCrc(crc.getValue());
+        zip.putNextEntry(entrada);
+        zip.write(contenido);
+        zip.closeEntry();
+    }
 
+    // PNG del QR con el UID como texto plano
+    private byte[] renderizarPng(String uid) {
+        try {
+            return renderer.png(uid);
         } catch (WriterException | IOException e) {
             log.error("Error al generar QR code para UID: {}", uid, e);
             throw new RuntimeException("Error al generar el código QR", e);
         }
     }
+
+    private record EnCache(UUID experienciaId, QrImagenDTO imagen) {
+    }
 }
 
 
@@ -0,0 +1,237 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.dto.pasaporte.RegistroExperienciaDTO;
+import com.experienciassoria.dto.pasaporte.UltimaVisitaDTO;
+import com.experienciassoria.model.Experiencia;
+import com.experienciassoria.repository.RegistroExperienciaRepository;
+import com.experienciassoria.util.Transacciones;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Resumen del pasaporte de cada usuario (registros y puntos por categoría, última visita) en memoria.
+ * Se carga de la BD la primera vez que se pide, se actualiza con cada registro nuevo y una
+ * reconciliación periódica lo vuelve a calcular desde las tablas para corregir desviaciones.
+ */
+@Slf4j
+@Component
+public class ResumenPasaporteCache {
+
+    private static final Experiencia.Categoria[] CATEGORIAS = Experiencia.Categoria.values();
+    private static final int FRANJAS = 64;
+    private static final int TAMANO_LOTE_RECONCILIACION = 500;
+
+    private final RegistroExperienciaRepository registroRepository;
+    // LRU acotado: al llenarse se descarta el resumen usado hace más tiempo
+    private final Map<UUID, Resumen> entradas;
+    // Versión por franja de usuarios: una carga desde la BD solo se guarda si no hubo registros entretanto
+    private final AtomicLongArray versiones = new AtomicLongArray(FRANJAS);
+    private final int maxEntradas;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter corregidos;
+
+    public ResumenPasaporteCache(RegistroExperienciaRepository registroRepository,
+                                 @Value("${app.resumen.max-entries:100000}") int maxEntradas,
+                                 MeterRegistry meterRegistry) {
+        this.registroRepository = registroRepository;
+        this.maxEntradas = maxEntradas;
+        this.entradas = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Resumen> eldest) {
+                return size() > maxEntradas;
+            }
+        });
+        this.hits = Counter.builder("pasaporte.resumen.hits").register(meterRegistry);
+        this.misses = Counter.builder("pasaporte.resumen.misses").register(meterRegistry);
+        this.corregidos = Counter.builder("pasaporte.resumen.corregidos").register(meterRegistry);
+        Gauge.builder("pasaporte.resumen.size", entradas, Map::size).register(meterRegistry);
+    }
+
+    // 🔹 Resumen de un usuario: de memoria o, si no está, con dos consultas agregadas
+    public Resumen obtener(UUID usuarioId) {
+        Resumen resumen = entradas.get(usuarioId);
+        if (resumen != null) {
+            hits.increment();
+            return resumen;
+        }
+        misses.increment();
+        int franja = franja(usuarioId);
+        long version = versiones.get(franja);
+        resumen = cargar(List.of(usuarioId)).getOrDefault(usuarioId, Resumen.VACIO);
+        guardar(usuarioId, resumen, franja, version);
+        return resumen;
+    }
+
+    /**
+     * Sumar registros nuevos al resumen del usuario (si está en memoria).
+     * Dentro de una transacción se aplica tras el commit: si se deshace, el resumen no cambia.
+     */
+    public void registrar(UUID usuarioId, List<RegistroExperienciaDTO> registros) {
+        if (!registros.isEmpty()) {
+            Transacciones.despuesDelCommit(() -> aplicar(usuarioId, registros));
+        }
+    }
+
+    // 🔹 Olvidar todos los resúmenes (al eliminar una experiencia se borran sus registros), tras el commit
+    public void invalidarTodos() {
+        Transacciones.despuesDelCommit(() -> {
+            for (int i = 0; i < FRANJAS; i++) {
+                versiones.incrementAndGet(i);
+            }
+            entradas.clear();
+        });
+    }
+
+    // 🔹 Reconciliación periódica: recalcular desde la BD los resúmenes en memoria
+    @Scheduled(fixedDelayString = "${app.resumen.reconciliacion-ms:3600000}",
+            initialDelayString = "${app.resumen.reconciliacion-ms:3600000}")
+    public void reconciliar() {
+        List<UUID> usuarios;
+        synchronized (entradas) {
+            usuarios = new ArrayList<>(entradas.keySet());
+        }
+        int diferencias = 0;
+        for (int desde = 0; desde < usuarios.size(); desde += TAMANO_LOTE_RECONCILIACION) {
+            List<UUID> lote = usuarios.subList(desde, Math.min(desde + TAMANO_LOTE_RECONCILIACION, usuarios.size()));
+            long[] versionesLote = new long[lote.size()];
+            for (int i = 0; i < lote.size(); i++) {
+                versionesLote[i] = versiones.get(franja(lote.get(i)));
+            }
+            Map<UUID, Resumen> recalculados = cargar(lote);
+            for (int i = 0; i < lote.size(); i++) {
+                UUID usuarioId = lote.get(i);
+                Resumen recalculado = recalculados.getOrDefault(usuarioId, Resumen.VACIO);
+                Resumen anterior = entradas.get(usuarioId);
+                if (anterior != null && !anterior.mismosDatos(recalculado)
+                        && guardar(usuarioId, recalculado, franja(usuarioId), versionesLote[i])) {
+                    diferencias++;
+                }
+            }
+        }
+        corregidos.increment(diferencias);
+        if (diferencias > 0) {
+            log.warn("Reconciliación de resúmenes de pasaporte: {} de {} corregidos", diferencias, usuarios.size());
+        }
+    }
+
+    private void aplicar(UUID usuarioId, List<RegistroExperienciaDTO> registros) {
+        // compute() serializa con guardar(): o la carga en curso ve la versión nueva, o este cambio ve su resultado
+        entradas.compute(usuarioId, (id, actual) -> {
+            versiones.incrementAndGet(franja(id));
+            return actual != null ? actual.con(registros) : null;
+        });
+    }
+
+    private boolean guardar(UUID usuarioId, Resumen resumen, int franja, long version) {
+        if (maxEntradas <= 0) {
+            return false;
+        }
+        boolean[] guardado = new boolean[1];
+        entradas.compute(usuarioId, (id, actual) -> {
+            if (versiones.get(franja) != version) {
+                return actual;
+            }
+            guardado[0] = true;
+            return resumen;
+        });
+        return guardado[0];
+    }
+
+    private Map<UUID, Resumen> cargar(Collection<UUID> usuarioIds) {
+        Map<UUID, int[]> visitadas = new HashMap<>();
+        Map<UUID, long[]> puntos = new HashMap<>();
+        for (RegistroExperienciaRepository.ResumenCategoriaView fila : registroRepository.findResumenPorCategoria(usuarioIds)) {
+            int c = fila.getCategoria().ordinal();
+            visitadas.computeIfAbsent(fila.getUsuarioId(), id -> new int[CATEGORIAS.length])[c] = (int) fila.getVisitadas();
+            puntos.computeIfAbsent(fila.getUsuarioId(), id -> new long[1])[0] += fila.getPuntos();
+        }
+
+        // Con empate de fecha se queda siempre la misma (la de mayor id de experiencia)
+        Map<UUID, UltimaVisitaDTO> ultimas = new HashMap<>();
+        for (RegistroExperienciaRepository.UltimaVisitaView fila : registroRepository.findUltimasVisitas(usuarioIds)) {
+            UltimaVisitaDTO visita = new UltimaVisitaDTO(fila.getExperienciaId(), fila.getTitulo(),
+                    fila.getCategoria().name(), fila.getFechaRegistro());
+            ultimas.merge(fila.getUsuarioId(), visita, (a, b) -> Resumen.posterior(a, b) ? a : b);
+        }
+
+        Map<UUID, Resumen> resumenes = new HashMap<>();
+        visitadas.forEach((id, porCategoria) ->
+                resumenes.put(id, new Resumen(porCategoria, puntos.get(id)[0], ultimas.get(id))));
+        return resumenes;
+    }
+
+    private static int franja(UUID usuarioId) {
+        return (usuarioId.hashCode() & Integer.MAX_VALUE) % FRANJAS;
+    }
+
+    /**
+     * Resumen inmutable de un pasaporte: cada registro nuevo produce una copia.
+     */
+    public static final class Resumen {
+
+        static final Resumen VACIO = new Resumen(new int[CATEGORIAS.length], 0, null);
+
+        private final int[] visitadasPorCategoria;
+        private final long puntos;
+        private final UltimaVisitaDTO ultimaVisita;
+
+        private Resumen(int[] visitadasPorCategoria, long puntos, UltimaVisitaDTO ultimaVisita) {
+            this.visitadasPorCategoria = visitadasPorCategoria;
+            this.puntos = puntos;
+            this.ultimaVisita = ultimaVisita;
+        }
+
+        public int getVisitadas(Experiencia.Categoria categoria) {
+            return visitadasPorCategoria[categoria.ordinal()];
+        }
+
+        public int getVisitadas() {
+            return Arrays.stream(visitadasPorCategoria).sum();
+        }
+
+        public long getPuntos() {
+            return puntos;
+        }
+
+        public UltimaVisitaDTO getUltimaVisita() {
+            return ultimaVisita;
+        }
+
+        private Resumen con(List<RegistroExperienciaDTO> registros) {
+            int[] visitadas = visitadasPorCategoria.clone();
+            long suma = puntos;
+            UltimaVisitaDTO ultima = ultimaVisita;
+            for (RegistroExperienciaDTO r : registros) {
+                visitadas[Experiencia.Categoria.valueOf(r.getCategoria()).ordinal()]++;
+                suma += r.getPuntosOtorgados();
+                UltimaVisitaDTO visita = new UltimaVisitaDTO(r.getExperienciaId(), r.getTitulo(),
+                        r.getCategoria(), r.getFechaRegistro());
+                if (ultima == null || posterior(visita, ultima)) {
+                    ultima = visita;
+                }
+            }
+            return new Resumen(visitadas, suma, ultima);
+        }
+
+        private boolean mismosDatos(Resumen otro) {
+            return puntos == otro.puntos
+                    && Arrays.equals(visitadasPorCategoria, otro.visitadasPorCategoria)
+                    && Objects.equals(ultimaVisita != null ? ultimaVisita.getExperienciaId() : null,
+                                      otro.ultimaVisita != null ? otro.ultimaVisita.getExperienciaId() : null);
+        }
+
+        private static boolean posterior(UltimaVisitaDTO a, UltimaVisitaDTO b) {
+            int porFecha = a.getFechaRegistro().compareTo(b.getFechaRegistro());
+            return porFecha != 0 ? porFecha > 0 : a.getExperienciaId().compareTo(b.getExperienciaId()) > 0;
+        }
+    }
+}
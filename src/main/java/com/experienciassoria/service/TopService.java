@@ -1,30 +1,76 @@
 package com.experienciassoria.service;
 
+import com.experienciassoria.dto.top.PeriodoRanking;
+import com.experienciassoria.dto.top.PioneroDTO;
+import com.experienciassoria.dto.top.PosicionRankingDTO;
 import com.experienciassoria.dto.top.UsuarioRankingDTO;
-import com.experienciassoria.model.Usuario;
-import com.experienciassoria.repository.UsuarioRepository;
+import com.experienciassoria.dto.top.VisitasRankingDTO;
+import com.experienciassoria.exception.ValidationException;
+import com.experienciassoria.exception.ResourceNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.UUID;
 
 @Service
 public class TopService {
 
-    private final UsuarioRepository usuarioRepository;
+    public static final int LIMITE_TOP_MAXIMO = 100;
+    public static final int VECINOS_MAXIMO = 25;
 
-    public TopService(UsuarioRepository usuarioRepository) {
-        this.usuarioRepository = usuarioRepository;
+    private final Clasificacion clasificacion;
+    private final ClasificacionPorPeriodo clasificacionPorPeriodo;
+    private final ClasificacionVisitas clasificacionVisitas;
+    private final ExperienciaService experienciaService;
+    private final DifusionClasificacion difusionClasificacion;
+
+    public TopService(Clasificacion clasificacion,
+                      ClasificacionPorPeriodo clasificacionPorPeriodo,
+                      ClasificacionVisitas clasificacionVisitas,
+                      ExperienciaService experienciaService,
+                      DifusionClasificacion difusionClasificacion) {
+        this.clasificacion = clasificacion;
+        this.clasificacionPorPeriodo = clasificacionPorPeriodo;
+        this.clasificacionVisitas = clasificacionVisitas;
+        this.experienciaService = experienciaService;
+        this.difusionClasificacion = difusionClasificacion;
+    }
+
+    // 🔹 Obtener el top de usuarios activos por puntos (desde las clasificaciones en memoria)
+    // Sin periodo, por puntos totales; con periodo, por los puntos ganados en esa ventana
+    public List<UsuarioRankingDTO> getTopUsuarios(String periodo, int limit) {
+        int tamano = Math.max(1, Math.min(limit, LIMITE_TOP_MAXIMO));
+        if (periodo == null || periodo.isBlank()) {
+            return clasificacion.top(tamano);
+        }
+        return clasificacionPorPeriodo.top(PeriodoRanking.from(periodo), tamano);
+    }
+
+    // 🔹 Posición del usuario y los que tiene alrededor
+    public PosicionRankingDTO getPosicion(UUID usuarioId, int vecinos) {
+        return clasificacion.entorno(usuarioId, Math.max(0, Math.min(vecinos, VECINOS_MAXIMO)))
+                .orElseThrow(() -> new ResourceNotFoundException("El usuario no aparece en la clasificación"));
+    }
+
+    // 🔹 Usuarios con más experiencias registradas de una categoría
+    public List<VisitasRankingDTO> getTopCategoria(String categoria, int limit) {
+        if (categoria == null || categoria.isBlank()) {
+            throw new ValidationException("La categoría es obligatoria");
+        }
+        int tamano = Math.max(1, Math.min(limit, LIMITE_TOP_MAXIMO));
+        return clasificacionVisitas.top(ExperienciaService.parseCategoria(categoria), tamano);
+    }
+
+    // 🔹 Primeros visitantes de una experiencia
+    public List<PioneroDTO> getPioneros(UUID experienciaId) {
+        // 404 si la experiencia no existe (se comprueba en el catálogo en memoria)
+        experienciaService.getExperienciaById(experienciaId);
+        return clasificacionVisitas.pioneros(experienciaId);
     }
 
-    // 🔹 Obtener el top 10 de usuarios por puntos
-    public List<UsuarioRankingDTO> getTopUsuarios() {
-        return usuarioRepository.findTop10ByOrderByPuntosDesc().stream()
-                .map(u -> new UsuarioRankingDTO(
-                        u.getNombre(),
-                        u.getPuntos(),
-                        u.getRole().name()
-                ))
-                .collect(Collectors.toList());
+    // 🔹 Conexión al directo de la clasificación y la actividad reciente
+    public SseEmitter abrirStream() {
+        return difusionClasificacion.suscribir();
     }
 }
@@ -0,0 +1,147 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.dto.experiencia.UidResueltoDTO;
+import com.experienciassoria.repository.ExperienciaUIDRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolución de UIDs escaneados (QR) a su experiencia.
+ * Caché acotada en memoria con las resoluciones positivas y también las negativas
+ * (UID desconocido o inactivo), estas últimas con caducidad corta.
+ */
+@Component
+public class UidResolver {
+
+    private final ExperienciaUIDRepository experienciaUIDRepository;
+    private final FiltroUidsActivos filtroUidsActivos;
+    private final ConcurrentHashMap<String, Entrada> entradas = new ConcurrentHashMap<>();
+    private final int maxEntradas;
+    private final long ttlNegativoMs;
+    private final Counter hits;
+    private final Counter misses;
+
+    public UidResolver(ExperienciaUIDRepository experienciaUIDRepository,
+                       FiltroUidsActivos filtroUidsActivos,
+                       @Value("${app.uid-cache.max-entries:50000}") int maxEntradas,
+                       @Value("${app.uid-cache.ttl-negativo-ms:60000}") long ttlNegativoMs,
+                       MeterRegistry meterRegistry) {
+        this.experienciaUIDRepository = experienciaUIDRepository;
+        this.filtroUidsActivos = filtroUidsActivos;
+        this.maxEntradas = maxEntradas;
+        this.ttlNegativoMs = ttlNegativoMs;
+        this.hits = Counter.builder("uid.cache.hits").register(meterRegistry);
+        this.misses = Counter.builder("uid.cache.misses").register(meterRegistry);
+        Gauge.builder("uid.cache.size", entradas, ConcurrentHashMap::size).register(meterRegistry);
+    }
+
+    // 🔹 UID activo -> (id del UID, id de la experiencia); vacío si no existe o está inactivo
+    public Optional<UidResueltoDTO> resolver(String uid) {
+        // UIDs que seguro que no existen: ni consulta ni entrada negativa en la caché
+        if (!filtroUidsActivos.puedeExistir(uid)) {
+            return Optional.empty();
+        }
+        Entrada entrada = entradas.get(uid);
+        if (entrada != null) {
+            if (entrada.expiraEn > System.currentTimeMillis()) {
+                hits.increment();
+                return Optional.ofNullable(entrada.resuelto);
+            }
+            entradas.remove(uid, entrada);
+        }
+
+        misses.increment();
+        Optional<UidResueltoDTO> resuelto = experienciaUIDRepository.findResueltoByUid(uid);
+        guardar(uid, resuelto.orElse(null));
+        return resuelto;
+    }
+
+    // 🔹 Resolver varios UIDs: los que no están en caché se consultan juntos en una sola query
+    public Map<String, UidResueltoDTO> resolverTodos(Collection<String> uids) {
+        Map<String, UidResueltoDTO> resueltos = new HashMap<>();
+        Set<String> pendientes = new HashSet<>();
+        long ahora = System.currentTimeMillis();
+        for (String uid : uids) {
+            if (!filtroUidsActivos.puedeExistir(uid)) {
+                continue;
+            }
+            Entrada entrada = entradas.get(uid);
+            if (entrada != null && entrada.expiraEn > ahora) {
+                hits.increment();
+                if (entrada.resuelto != null) {
+                    resueltos.put(uid, entrada.resuelto);
+                }
+            } else {
+                pendientes.add(uid);
+            }
+        }
+
+        if (!pendientes.isEmpty()) {
+            misses.increment(pendientes.size());
+            for (UidResueltoDTO resuelto : experienciaUIDRepository.findResueltosByUids(pendientes)) {
+                resueltos.put(resuelto.getUid(), resuelto);
+            }
+            for (String uid : pendientes) {
+                guardar(uid, resueltos.get(uid));
+            }
+        }
+        return resueltos;
+    }
+
+    /**
+     * Olvida los UIDs indicados (generados o desactivados). Dentro de una transacción se hace
+     * tras el commit, para que un escaneo concurrente no vuelva a cachear el estado anterior.
+     */
+    public void invalidar(Collection<String> uids) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    uids.forEach(entradas::remove);
+                }
+            });
+        } else {
+            uids.forEach(entradas::remove);
+        }
+    }
+
+    public void invalidar(String uid) {
+        invalidar(List.of(uid));
+    }
+
+    // 🔹 Olvida todos los UIDs de una experiencia eliminada
+    public void invalidarExperiencia(UUID experienciaId) {
+        entradas.values().removeIf(e -> e.resuelto != null && e.resuelto.getExperienciaId().equals(experienciaId));
+    }
+
+    private void guardar(String uid, UidResueltoDTO resuelto) {
+        if (maxEntradas <= 0) {
+            return;
+        }
+        if (entradas.size() >= maxEntradas) {
+            purgarExpiradas();
+            if (entradas.size() >= maxEntradas) {
+                entradas.clear();
+            }
+        }
+        long expiraEn = resuelto != null ? Long.MAX_VALUE : System.currentTimeMillis() + ttlNegativoMs;
+        entradas.put(uid, new Entrada(resuelto, expiraEn));
+    }
+
+    private void purgarExpiradas() {
+        long ahora = System.currentTimeMillis();
+        entradas.values().removeIf(e -> e.expiraEn <= ahora);
+    }
+
+    // resuelto == null es una entrada negativa
+    private record Entrada(UidResueltoDTO resuelto, long expiraEn) {
+    }
+}
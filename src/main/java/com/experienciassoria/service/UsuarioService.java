@@ -10,6 +10,8 @@ import com.experienciassoria.model.Usuario;
 import com.experienciassoria.repository.ComentarioRepository;
 import com.experienciassoria.repository.RegistroExperienciaRepository;
 import com.experienciassoria.repository.UsuarioRepository;
+import com.experienciassoria.security.TokenVersionRegistry;
+import com.experienciassoria.util.PaginaCursor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,16 +28,25 @@ public class UsuarioService {
     private final RegistroExperienciaRepository registroRepository;
     private final ComentarioRepository comentarioRepository;
     private final PasaporteService pasaporteService;
+    private final ComentarioService comentarioService;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final Clasificacion clasificacion;
 
     public UsuarioService(
             UsuarioRepository usuarioRepository,
             RegistroExperienciaRepository registroRepository,
             ComentarioRepository comentarioRepository,
-            PasaporteService pasaporteService) {
+            PasaporteService pasaporteService,
+            ComentarioService comentarioService,
+            TokenVersionRegistry tokenVersionRegistry,
+            Clasificacion clasificacion) {
         this.usuarioRepository = usuarioRepository;
         this.registroRepository = registroRepository;
         this.comentarioRepository = comentarioRepository;
         this.pasaporteService = pasaporteService;
+        this.comentarioService = comentarioService;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.clasificacion = clasificacion;
     }
 
     // 🔹 Listar todos los usuarios
@@ -60,7 +71,7 @@ public class UsuarioService {
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
 
         long totalExperiencias = registroRepository.findByUsuario(usuario).size();
-        long totalComentarios = comentarioRepository.findByUsuarioOrderByFechaDesc(usuario).size();
+        long totalComentarios = comentarioRepository.countByUsuario_Id(usuario.getId());
 
         return new UsuarioDetailDTO(
                 usuario.getId(),
@@ -81,9 +92,12 @@ public class UsuarioService {
         Usuario usuario = usuarioRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
 
+        boolean cambioCredenciales = false;
+
         if (request.getRole() != null) {
             try {
                 Usuario.Rol nuevoRol = Usuario.Rol.valueOf(request.getRole());
+                cambioCredenciales |= nuevoRol != usuario.getRole();
                 usuario.setRole(nuevoRol);
                 log.info("Rol actualizado a: {}", nuevoRol);
             } catch (IllegalArgumentException e) {
@@ -92,15 +106,22 @@ public class UsuarioService {
         }
 
         if (request.getActivo() != null) {
+            cambioCredenciales |= request.getActivo() != usuario.isActivo();
             usuario.setActivo(request.getActivo());
             log.info("Estado activo actualizado a: {}", request.getActivo());
         }
 
+        // Los JWT emitidos llevan el rol dentro: si cambia rol o estado hay que invalidarlos
+        if (cambioCredenciales) {
+            tokenVersionRegistry.revocar(usuario);
+        }
+
         usuarioRepository.save(usuario);
+        clasificacion.actualizar(usuario);
 
         // Recalcular estadísticas
         long totalExperiencias = registroRepository.findByUsuario(usuario).size();
-        long totalComentarios = comentarioRepository.findByUsuarioOrderByFechaDesc(usuario).size();
+        long totalComentarios = comentarioRepository.countByUsuario_Id(usuario.getId());
 
         return new UsuarioDetailDTO(
                 usuario.getId(),
@@ -134,50 +155,34 @@ public class UsuarioService {
 
         // Soft delete: marcar como inactivo
         usuario.setActivo(false);
+        tokenVersionRegistry.revocar(usuario);
         usuarioRepository.save(usuario);
+        clasificacion.actualizar(usuario);
         log.info("Usuario {} marcado como inactivo", id);
     }
 
     // 🔹 Obtener pasaporte de un usuario específico
-    public PasaporteDTO getPasaporteUsuario(UUID id) {
+    public PasaporteDTO getPasaporteUsuario(UUID id, String categoria, String cursor, int limit) {
         log.info("Obteniendo pasaporte del usuario: {}", id);
-        if (!usuarioRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Usuario no encontrado");
-        }
-        return pasaporteService.getPasaporte(id);
+        return pasaporteService.getPasaporte(id, categoria, cursor, limit);
     }
 
     // 🔹 Obtener experiencias registradas por el usuario
-    public List<RegistroExperienciaDTO> getExperienciasUsuario(UUID id) {
+    public PaginaCursor<RegistroExperienciaDTO> getExperienciasUsuario(UUID id, String categoria, String cursor, int limit) {
         log.info("Obteniendo experiencias del usuario: {}", id);
-        Usuario usuario = usuarioRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
-
-        return registroRepository.findByUsuario(usuario).stream()
-                .map(r -> new RegistroExperienciaDTO(
-                        r.getExperiencia().getId(),
-                        r.getExperiencia().getTitulo(),
-                        r.getExperiencia().getCategoria().name(),
-                        r.getFechaRegistro(),
-                        r.getOpinion(),
-                        r.getImgPortada(),
-                        r.getPuntosOtorgados()))
-                .collect(Collectors.toList());
+        if (!usuarioRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Usuario no encontrado");
+        }
+        return pasaporteService.getRegistros(id, categoria, cursor, limit);
     }
 
     // 🔹 Obtener comentarios del usuario
-    public List<ComentarioDTO> getComentariosUsuario(UUID id) {
+    public PaginaCursor<ComentarioDTO> getComentariosUsuario(UUID id, String cursor, int limit) {
         log.info("Obteniendo comentarios del usuario: {}", id);
-        Usuario usuario = usuarioRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
-
-        return comentarioRepository.findByUsuarioOrderByFechaDesc(usuario).stream()
-                .map(c -> new ComentarioDTO(
-                        c.getId(),
-                        c.getUsuario().getNombre(),
-                        c.getTexto(),
-                        c.getFecha()))
-                .collect(Collectors.toList());
+        if (!usuarioRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Usuario no encontrado");
+        }
+        return comentarioService.getComentariosByUsuario(id, cursor, limit);
     }
 
     // 🔹 Hacer admin a un usuario por email (público, sin JWT)
@@ -187,13 +192,17 @@ public class UsuarioService {
         Usuario usuario = usuarioRepository.findByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado con email: " + email));
 
-        usuario.setRole(Usuario.Rol.ADMIN);
+        if (usuario.getRole() != Usuario.Rol.ADMIN) {
+            usuario.setRole(Usuario.Rol.ADMIN);
+            tokenVersionRegistry.revocar(usuario);
+        }
         usuarioRepository.save(usuario);
+        clasificacion.actualizar(usuario);
         log.info("Usuario {} (email: {}) ahora es ADMIN", usuario.getId(), email);
 
         // Recalcular estadísticas
         long totalExperiencias = registroRepository.findByUsuario(usuario).size();
-        long totalComentarios = comentarioRepository.findByUsuarioOrderByFechaDesc(usuario).size();
+        long totalComentarios = comentarioRepository.countByUsuario_Id(usuario.getId());
 
         return new UsuarioDetailDTO(
                 usuario.getId(),
@@ -0,0 +1,157 @@
+package com.experienciassoria.util;
+
+import java.util.*;
+
+/**
+ * Autómata de Aho-Corasick inmutable: busca a la vez todos los patrones en una sola pasada por el texto,
+ * en tiempo proporcional a la longitud del texto más el número de coincidencias (no al número de patrones).
+ * Las transiciones de cada nodo se guardan en tramos ordenados de arrays planos y se buscan por bisección.
+ */
+public final class AhoCorasick<V> {
+
+    private static final int RAIZ = 0;
+
+    // Transiciones del nodo n: caracteres[inicioTransiciones[n] .. inicioTransiciones[n + 1]), ordenados
+    private final int[] inicioTransiciones;
+    private final char[] caracteres;
+    private final int[] destinos;
+    private final int[] fallo;
+    // Patrón que termina en el nodo (-1 si ninguno) y siguiente nodo con patrón por los enlaces de fallo
+    private final int[] patron;
+    private final int[] salida;
+    private final int[] longitudes;
+    private final List<V> valores;
+
+    private AhoCorasick(Map<String, V> patrones) {
+        List<Map<Character, Integer>> hijos = new ArrayList<>();
+        List<Integer> patronPorNodo = new ArrayList<>();
+        hijos.add(new HashMap<>());
+        patronPorNodo.add(-1);
+        this.longitudes = new int[patrones.size()];
+        this.valores = new ArrayList<>(patrones.size());
+
+        // 1. Trie con todos los patrones
+        for (Map.Entry<String, V> entrada : patrones.entrySet()) {
+            String texto = entrada.getKey();
+            int nodo = RAIZ;
+            for (int i = 0; i < texto.length(); i++) {
+                Integer siguiente = hijos.get(nodo).get(texto.charAt(i));
+                if (siguiente == null) {
+                    siguiente = hijos.size();
+                    hijos.add(new HashMap<>());
+                    patronPorNodo.add(-1);
+                    hijos.get(nodo).put(texto.charAt(i), siguiente);
+                }
+                nodo = siguiente;
+            }
+            longitudes[valores.size()] = texto.length();
+            patronPorNodo.set(nodo, valores.size());
+            valores.add(entrada.getValue());
+        }
+
+        // 2. Compactar las transiciones en arrays ordenados
+        int nodos = hijos.size();
+        this.inicioTransiciones = new int[nodos + 1];
+        this.caracteres = new char[nodos - 1];
+        this.destinos = new int[nodos - 1];
+        this.patron = new int[nodos];
+        int posicion = 0;
+        for (int n = 0; n < nodos; n++) {
+            inicioTransiciones[n] = posicion;
+            patron[n] = patronPorNodo.get(n);
+            List<Map.Entry<Character, Integer>> transiciones = new ArrayList<>(hijos.get(n).entrySet());
+            transiciones.sort(Map.Entry.comparingByKey());
+            for (Map.Entry<Character, Integer> t : transiciones) {
+                caracteres[posicion] = t.getKey();
+                destinos[posicion] = t.getValue();
+                posicion++;
+            }
+        }
+        inicioTransiciones[nodos] = posicion;
+
+        // 3. Enlaces de fallo y de salida, por niveles (el fallo de un nodo siempre es menos profundo)
+        this.fallo = new int[nodos];
+        this.salida = new int[nodos];
+        Arrays.fill(salida, -1);
+        ArrayDeque<Integer> cola = new ArrayDeque<>();
+        for (int t = inicioTransiciones[RAIZ]; t < inicioTransiciones[RAIZ + 1]; t++) {
+            cola.add(destinos[t]);
+        }
+        while (!cola.isEmpty()) {
+            int nodo = cola.poll();
+            int f = fallo[nodo];
+            salida[nodo] = patron[f] >= 0 ? f : salida[f];
+            for (int t = inicioTransiciones[nodo]; t < inicioTransiciones[nodo + 1]; t++) {
+                int hijo = destinos[t];
+                fallo[hijo] = transicion(f, caracteres[t]);
+                cola.add(hijo);
+            }
+        }
+    }
+
+    // 🔹 Construir el autómata; las claves son los patrones (ya normalizados) y los valores lo que se devuelve al encontrarlos
+    public static <V> AhoCorasick<V> construir(Map<String, V> patrones) {
+        Map<String, V> validos = new LinkedHashMap<>();
+        patrones.forEach((texto, valor) -> {
+            if (!texto.isEmpty()) {
+                validos.put(texto, valor);
+            }
+        });
+        return new AhoCorasick<>(validos);
+    }
+
+    public int size() {
+        return valores.size();
+    }
+
+    // 🔹 Todas las apariciones de los patrones en el texto (también solapadas), en orden de fin
+    public List<Coincidencia<V>> buscar(CharSequence texto) {
+        List<Coincidencia<V>> coincidencias = new ArrayList<>();
+        int nodo = RAIZ;
+        for (int i = 0; i < texto.length(); i++) {
+            nodo = transicion(nodo, texto.charAt(i));
+            for (int n = patron[nodo] >= 0 ? nodo : salida[nodo]; n >= 0; n = salida[n]) {
+                int p = patron[n];
+                coincidencias.add(new Coincidencia<>(i + 1 - longitudes[p], i + 1, valores.get(p)));
+            }
+        }
+        return coincidencias;
+    }
+
+    // Siguiente nodo desde {@code nodo} con {@code c}, siguiendo enlaces de fallo; sin salida, la raíz
+    private int transicion(int nodo, char c) {
+        while (true) {
+            int destino = hijo(nodo, c);
+            if (destino >= 0) {
+                return destino;
+            }
+            if (nodo == RAIZ) {
+                return RAIZ;
+            }
+            nodo = fallo[nodo];
+        }
+    }
+
+    private int hijo(int nodo, char c) {
+        int desde = inicioTransiciones[nodo];
+        int hasta = inicioTransiciones[nodo + 1] - 1;
+        while (desde <= hasta) {
+            int medio = (desde + hasta) >>> 1;
+            char actual = caracteres[medio];
+            if (actual < c) {
+                desde = medio + 1;
+            } else if (actual > c) {
+                hasta = medio - 1;
+            } else {
+                return destinos[medio];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Aparición de un patrón en el texto: [inicio, fin).
+     */
+    public record Coincidencia<V>(int inicio, int fin, V valor) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.experienciassoria.util;
+
+import com.experienciassoria.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursores opacos para paginación keyset.
+ * Un cursor es la clave de ordenación de la última fila devuelta, codificada en Base64 URL-safe.
+ */
+public final class Cursor {
+
+    private static final String SEPARADOR = "\u001F";
+
+    private Cursor() {
+    }
+
+    public static String encode(String... partes) {
+        String plano = String.join(SEPARADOR, partes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws ValidationException si el cursor no es válido o no tiene el número de partes esperado
+     */
+    public static String[] decode(String cursor, int partesEsperadas) {
+        try {
+            String plano = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = plano.split(SEPARADOR, -1);
+            if (partes.length != partesEsperadas) {
+                throw new ValidationException("Cursor inválido");
+            }
+            return partes;
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Cursor inválido");
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.experienciassoria.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom sobre cadenas: sin falsos negativos y con una tasa de falsos positivos
+ * acotada mientras no se supere la capacidad para la que se dimensionó.
+ * Las inserciones y consultas son seguras entre hilos.
+ */
+public final class FiltroBloom {
+
+    private final AtomicLongArray bits;
+    private final long numBits;
+    private final int numHashes;
+    private final AtomicLong insertados = new AtomicLong();
+
+    private FiltroBloom(long numBits, int numHashes) {
+        this.bits = new AtomicLongArray((int) ((numBits + 63) / 64));
+        this.numBits = numBits;
+        this.numHashes = numHashes;
+    }
+
+    // 🔹 Dimensionar para n elementos con una probabilidad de falso positivo p
+    public static FiltroBloom paraCapacidad(int capacidad, double probabilidadFalsoPositivo) {
+        int n = Math.max(1, capacidad);
+        long m = Math.max(64, (long) Math.ceil(-n * Math.log(probabilidadFalsoPositivo) / (Math.log(2) * Math.log(2))));
+        int k = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+        return new FiltroBloom(m, k);
+    }
+
+    public void add(String valor) {
+        long h1 = hash(valor);
+        long h2 = mezclar(h1 ^ 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            int palabra = (int) (bit >>> 6);
+            long mascara = 1L << bit;
+            long actual;
+            do {
+                actual = bits.get(palabra);
+                if ((actual & mascara) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(palabra, actual, actual | mascara));
+        }
+        insertados.incrementAndGet();
+    }
+
+    // 🔹 false = seguro que no está; true = puede estar
+    public boolean mightContain(String valor) {
+        long h1 = hash(valor);
+        long h2 = mezclar(h1 ^ 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Estimación teórica con los elementos insertados hasta ahora: (1 - e^(-kn/m))^k
+    public double probabilidadFalsoPositivo() {
+        return Math.pow(1 - Math.exp(-numHashes * (double) insertados.get() / numBits), numHashes);
+    }
+
+    public long getInsertados() {
+        return insertados.get();
+    }
+
+    public long getTamanoBytes() {
+        return (long) bits.length() * Long.BYTES;
+    }
+
+    // FNV-1a de 64 bits sobre UTF-8 con el finalizador de MurmurHash3
+    private static long hash(String valor) {
+        long h = 0xCBF29CE484222325L;
+        for (byte b : valor.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001B3L;
+        }
+        return mezclar(h);
+    }
+
+    private static long mezclar(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,44 @@
+package com.experienciassoria.util;
+
+import com.experienciassoria.dto.experiencia.ExperienciaDetailDTO;
+import com.experienciassoria.dto.experiencia.ExperienciaListDTO;
+import com.experienciassoria.model.Experiencia;
+
+import java.util.List;
+
+public final class MapperUtils {
+
+    private MapperUtils() {
+    }
+
+    // 🔹 Entidad -> detalle (la galería se copia a una lista inmutable para poder compartir el DTO)
+    public static ExperienciaDetailDTO toDetailDTO(Experiencia exp) {
+        return new ExperienciaDetailDTO(
+                exp.getId(),
+                exp.getTitulo(),
+                exp.getDescripcion(),
+                exp.getCategoria().name(),
+                exp.getImagenPortadaUrl(),
+                exp.getGaleriaImagenes() != null ? List.copyOf(exp.getGaleriaImagenes()) : List.of(),
+                exp.getDireccion(),
+                exp.getUbicacionLat(),
+                exp.getUbicacionLng(),
+                exp.getPuntosOtorgados() != null ? exp.getPuntosOtorgados() : 10,
+                exp.isVisible()
+        );
+    }
+
+    // 🔹 Detalle -> elemento de lista
+    public static ExperienciaListDTO toListDTO(ExperienciaDetailDTO exp) {
+        return new ExperienciaListDTO(
+                exp.getId(),
+                exp.getTitulo(),
+                exp.getCategoria(),
+                exp.getImagenPortadaUrl(),
+                exp.getUbicacionLat(),
+                exp.getUbicacionLng(),
+                exp.isVisible(),
+                exp.getPuntosOtorgados()
+        );
+    }
+}
@@ -0,0 +1,20 @@
+package com.experienciassoria.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Página de resultados con el cursor para pedir la siguiente (null si es la última).
+ */
+@Getter
+@AllArgsConstructor
+public class PaginaCursor<T> {
+
+    // Cabecera HTTP en la que los controladores devuelven el cursor siguiente
+    public static final String HEADER_SIGUIENTE = "X-Next-Cursor";
+
+    private final List<T> items;
+    private final String siguienteCursor;
+}
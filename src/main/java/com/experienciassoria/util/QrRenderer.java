@@ -0,0 +1,97 @@
+package com.experienciassoria.util;
+
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+import com.google.zxing.qrcode.encoder.QRCode;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Renderizado de QR a PNG de 1 bit escribiendo directamente en el raster.
+ * Cada fila de módulos se compone una sola vez como fila de bits empaquetados
+ * y se copia tantas veces como píxeles mide un módulo.
+ */
+public final class QrRenderer {
+
+    private final int tamano;
+    private final int margen;
+    private final ErrorCorrectionLevel nivelCorreccion;
+    private final Map<EncodeHintType, Object> hints;
+
+    public QrRenderer(int tamano, int margen, ErrorCorrectionLevel nivelCorreccion) {
+        this.tamano = tamano;
+        this.margen = margen;
+        this.nivelCorreccion = nivelCorreccion;
+        this.hints = Map.of(EncodeHintType.CHARACTER_SET, "UTF-8");
+    }
+
+    public byte[] png(String contenido) throws WriterException, IOException {
+        QRCode qr = Encoder.encode(contenido, nivelCorreccion, hints);
+        ByteMatrix matriz = qr.getMatrix();
+        int modulos = matriz.getWidth();
+
+        // Escala entera (módulos nítidos) y el QR centrado si no ocupa el tamaño exacto
+        int modulosConMargen = modulos + 2 * margen;
+        int escala = Math.max(1, tamano / modulosConMargen);
+        int lado = Math.max(tamano, modulosConMargen * escala);
+        int desplazamiento = (lado - modulos * escala) / 2;
+
+        // TYPE_BYTE_BINARY: 1 bit por píxel, el más significativo primero; 0 = negro, 1 = blanco
+        BufferedImage imagen = new BufferedImage(lado, lado, BufferedImage.TYPE_BYTE_BINARY);
+        byte[] raster = ((DataBufferByte) imagen.getRaster().getDataBuffer()).getData();
+        int bytesPorFila = (lado + 7) / 8;
+        Arrays.fill(raster, (byte) 0xFF);
+
+        byte[] fila = new byte[bytesPorFila];
+        for (int y = 0; y < modulos; y++) {
+            Arrays.fill(fila, (byte) 0xFF);
+            int x = 0;
+            while (x < modulos) {
+                if (matriz.get(x, y) != 1) {
+                    x++;
+                    continue;
+                }
+                // Tramo de módulos oscuros consecutivos
+                int inicio = x;
+                while (x < modulos && matriz.get(x, y) == 1) {
+                    x++;
+                }
+                ennegrecer(fila, desplazamiento + inicio * escala, desplazamiento + x * escala);
+            }
+            int primeraFila = desplazamiento + y * escala;
+            for (int r = 0; r < escala; r++) {
+                System.arraycopy(fila, 0, raster, (primeraFila + r) * bytesPorFila, bytesPorFila);
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+        ImageIO.write(imagen, "PNG", out);
+        return out.toByteArray();
+    }
+
+    // Pone a 0 (negro) los bits [desde, hasta) de una fila empaquetada
+    private static void ennegrecer(byte[] fila, int desde, int hasta) {
+        int primerByte = desde >>> 3;
+        int ultimoByte = (hasta - 1) >>> 3;
+        int mascaraInicio = 0xFF >>> (desde & 7);
+        int mascaraFin = 0xFF << (7 - ((hasta - 1) & 7));
+        if (primerByte == ultimoByte) {
+            fila[primerByte] &= (byte) ~(mascaraInicio & mascaraFin);
+            return;
+        }
+        fila[primerByte] &= (byte) ~mascaraInicio;
+        for (int i = primerByte + 1; i < ultimoByte; i++) {
+            fila[i] = 0;
+        }
+        fila[ultimoByte] &= (byte) ~mascaraFin;
+    }
+}
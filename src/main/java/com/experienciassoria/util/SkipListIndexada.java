@@ -0,0 +1,156 @@
+package com.experienciassoria.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Skip list ordenada con acceso por posición (order-statistic): insertar, borrar, posición de un elemento
+ * y elemento en una posición en O(log n). Cada enlace guarda cuántos elementos salta, como en los
+ * sorted sets de Redis. No es thread-safe: quien la use debe sincronizar.
+ */
+public final class SkipListIndexada<T> {
+
+    private static final int NIVEL_MAXIMO = 32;
+    private static final double PROBABILIDAD_NIVEL = 0.25;
+
+    private final Comparator<? super T> orden;
+    private final Nodo<T> cabeza = new Nodo<>(null, NIVEL_MAXIMO);
+    private int nivel = 1;
+    private int tamano;
+
+    public SkipListIndexada(Comparator<? super T> orden) {
+        this.orden = orden;
+    }
+
+    public int size() {
+        return tamano;
+    }
+
+    // 🔹 Insertar (el llamante garantiza que no hay otro elemento igual según el orden)
+    @SuppressWarnings("unchecked")
+    public void add(T valor) {
+        Nodo<T>[] anteriores = new Nodo[NIVEL_MAXIMO];
+        int[] posiciones = new int[NIVEL_MAXIMO];
+        Nodo<T> x = cabeza;
+        for (int i = nivel - 1; i >= 0; i--) {
+            posiciones[i] = i == nivel - 1 ? 0 : posiciones[i + 1];
+            while (x.siguientes[i] != null && orden.compare(x.siguientes[i].valor, valor) < 0) {
+                posiciones[i] += x.anchos[i];
+                x = x.siguientes[i];
+            }
+            anteriores[i] = x;
+        }
+
+        int nivelNodo = nivelAleatorio();
+        if (nivelNodo > nivel) {
+            for (int i = nivel; i < nivelNodo; i++) {
+                posiciones[i] = 0;
+                anteriores[i] = cabeza;
+                cabeza.anchos[i] = tamano;
+            }
+            nivel = nivelNodo;
+        }
+
+        Nodo<T> nodo = new Nodo<>(valor, nivelNodo);
+        for (int i = 0; i < nivelNodo; i++) {
+            nodo.siguientes[i] = anteriores[i].siguientes[i];
+            anteriores[i].siguientes[i] = nodo;
+            nodo.anchos[i] = anteriores[i].anchos[i] - (posiciones[0] - posiciones[i]);
+            anteriores[i].anchos[i] = posiciones[0] - posiciones[i] + 1;
+        }
+        for (int i = nivelNodo; i < nivel; i++) {
+            anteriores[i].anchos[i]++;
+        }
+        tamano++;
+    }
+
+    // 🔹 Borrar el elemento igual a {@code valor} según el orden; false si no estaba
+    @SuppressWarnings("unchecked")
+    public boolean remove(T valor) {
+        Nodo<T>[] anteriores = new Nodo[NIVEL_MAXIMO];
+        Nodo<T> x = cabeza;
+        for (int i = nivel - 1; i >= 0; i--) {
+            while (x.siguientes[i] != null && orden.compare(x.siguientes[i].valor, valor) < 0) {
+                x = x.siguientes[i];
+            }
+            anteriores[i] = x;
+        }
+        x = x.siguientes[0];
+        if (x == null || orden.compare(x.valor, valor) != 0) {
+            return false;
+        }
+
+        for (int i = 0; i < nivel; i++) {
+            if (anteriores[i].siguientes[i] == x) {
+                anteriores[i].anchos[i] += x.anchos[i] - 1;
+                anteriores[i].siguientes[i] = x.siguientes[i];
+            } else {
+                anteriores[i].anchos[i]--;
+            }
+        }
+        while (nivel > 1 && cabeza.siguientes[nivel - 1] == null) {
+            nivel--;
+        }
+        tamano--;
+        return true;
+    }
+
+    // 🔹 Número de elementos estrictamente anteriores a {@code valor} (no hace falta que esté en la lista)
+    public int contarAnteriores(T valor) {
+        int cuenta = 0;
+        Nodo<T> x = cabeza;
+        for (int i = nivel - 1; i >= 0; i--) {
+            while (x.siguientes[i] != null && orden.compare(x.siguientes[i].valor, valor) < 0) {
+                cuenta += x.anchos[i];
+                x = x.siguientes[i];
+            }
+        }
+        return cuenta;
+    }
+
+    // 🔹 Hasta {@code cantidad} elementos a partir de la posición {@code desde} (0 = primero)
+    public List<T> rango(int desde, int cantidad) {
+        List<T> elementos = new ArrayList<>(Math.max(0, Math.min(cantidad, tamano - desde)));
+        if (desde < 0 || desde >= tamano || cantidad <= 0) {
+            return elementos;
+        }
+        // Bajar hasta el nodo en la posición desde + 1 (la cabeza es la posición 0)
+        int recorrido = 0;
+        Nodo<T> x = cabeza;
+        for (int i = nivel - 1; i >= 0; i--) {
+            while (x.siguientes[i] != null && recorrido + x.anchos[i] <= desde + 1) {
+                recorrido += x.anchos[i];
+                x = x.siguientes[i];
+            }
+        }
+        for (; x != null && elementos.size() < cantidad; x = x.siguientes[0]) {
+            elementos.add(x.valor);
+        }
+        return elementos;
+    }
+
+    private static int nivelAleatorio() {
+        int n = 1;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (n < NIVEL_MAXIMO && random.nextDouble() < PROBABILIDAD_NIVEL) {
+            n++;
+        }
+        return n;
+    }
+
+    private static final class Nodo<T> {
+        private final T valor;
+        private final Nodo<T>[] siguientes;
+        // anchos[i]: cuántas posiciones avanza el enlace siguientes[i]
+        private final int[] anchos;
+
+        @SuppressWarnings("unchecked")
+        private Nodo(T valor, int niveles) {
+            this.valor = valor;
+            this.siguientes = new Nodo[niveles];
+            this.anchos = new int[niveles];
+        }
+    }
+}
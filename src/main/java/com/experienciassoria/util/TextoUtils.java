@@ -0,0 +1,104 @@
+package com.experienciassoria.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalización de texto en español para búsqueda:
+ * minúsculas, sin tildes ni diéresis, ñ → n, y un stemming ligero de género y número.
+ */
+public final class TextoUtils {
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{Alnum}]+");
+
+    private static final Set<String> PALABRAS_VACIAS = Set.of(
+            "a", "al", "con", "de", "del", "e", "el", "en", "la", "las", "lo", "los",
+            "o", "para", "por", "que", "se", "su", "sus", "u", "un", "una", "y");
+
+    // Plegado precalculado de los caracteres latinos (hasta Latin Extended-B); 0 = marca diacrítica suelta
+    private static final char[] PLEGADO_LATINO = new char[0x250];
+
+    static {
+        for (char c = 0; c < PLEGADO_LATINO.length; c++) {
+            PLEGADO_LATINO[c] = plegarSinTabla(c);
+        }
+    }
+
+    private TextoUtils() {
+    }
+
+    // 🔹 "Iglesia Románica" -> "iglesia romanica"
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinMarcas = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return sinMarcas.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Plegado carácter a carácter ("Á" -> 'a', "ñ" -> 'n'): el mismo que {@link #normalizar} pero sin cambiar
+     * la longitud del texto, para poder volver a la posición original. Devuelve 0 para las marcas
+     * diacríticas sueltas (texto ya descompuesto), que se deben saltar.
+     */
+    public static char plegar(char c) {
+        return c < PLEGADO_LATINO.length ? PLEGADO_LATINO[c] : plegarSinTabla(c);
+    }
+
+    private static char plegarSinTabla(char c) {
+        if (Character.getType(c) == Character.NON_SPACING_MARK) {
+            return 0;
+        }
+        if (!Character.isLetter(c)) {
+            return c;
+        }
+        String sinMarcas = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD)).replaceAll("");
+        // Ligaduras y similares (varios caracteres al descomponer) se dejan como están
+        char base = sinMarcas.length() == 1 ? sinMarcas.charAt(0) : c;
+        return Character.toLowerCase(base);
+    }
+
+    // 🔹 Términos indexables: normalizados, sin palabras vacías y con stemming ligero
+    public static List<String> terminos(String texto) {
+        List<String> terminos = new ArrayList<>();
+        for (String palabra : SEPARADORES.split(normalizar(texto))) {
+            if (!palabra.isEmpty() && !PALABRAS_VACIAS.contains(palabra)) {
+                terminos.add(raiz(palabra));
+            }
+        }
+        return terminos;
+    }
+
+    /**
+     * Stemming ligero (plural y vocal final), suficiente para que "museos", "museo" y "musea"
+     * compartan raíz. Las palabras cortas se dejan tal cual.
+     */
+    public static String raiz(String palabra) {
+        int n = palabra.length();
+        if (n < 5) {
+            return palabra;
+        }
+        char ultima = palabra.charAt(n - 1);
+        if (ultima == 'o' || ultima == 'a' || ultima == 'e') {
+            return palabra.substring(0, n - 1);
+        }
+        if (ultima == 's') {
+            char penultima = palabra.charAt(n - 2);
+            if (palabra.endsWith("eses")) {
+                return palabra.substring(0, n - 2);
+            }
+            if (palabra.endsWith("ces")) {
+                return palabra.substring(0, n - 3) + "z";
+            }
+            if (penultima == 'o' || penultima == 'a' || penultima == 'e') {
+                return palabra.substring(0, n - 2);
+            }
+        }
+        return palabra;
+    }
+}
@@ -0,0 +1,27 @@
+package com.experienciassoria.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Utilidades para sincronizar las estructuras en memoria con las transacciones de BD.
+ */
+public final class Transacciones {
+
+    private Transacciones() {
+    }
+
+    // 🔹 Ejecutar tras el commit de la transacción en curso (si se deshace, no se ejecuta); sin transacción, ya
+    public static void despuesDelCommit(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.experienciassoria;
+
+import com.experienciassoria.dto.auth.LoginRequest;
+import com.experienciassoria.dto.auth.RegisterRequest;
+import com.experienciassoria.exception.ValidationException;
+import com.experienciassoria.model.Usuario;
+import com.experienciassoria.repository.UsuarioRepository;
+import com.experienciassoria.security.JwtUtils;
+import com.experienciassoria.security.TokenVersionRegistry;
+import com.experienciassoria.security.UsuarioPrincipal;
+import com.experienciassoria.service.AuthService;
+import com.experienciassoria.service.UsuarioService;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * El token lleva id, rol y versión del usuario; al desactivarlo, los tokens anteriores dejan de valer
+ * y no puede volver a iniciar sesión.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AuthServiceTest {
+
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private UsuarioService usuarioService;
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    @Autowired
+    private JwtUtils jwtUtils;
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Test
+    void elTokenLlevaLosDatosDelUsuario() {
+        String email = email();
+        Claims claims = jwtUtils.parseToken(authService.register(registro(email)).getToken());
+        Usuario usuario = usuarioRepository.findByEmail(email).orElseThrow();
+
+        UsuarioPrincipal principal = jwtUtils.getPrincipal(claims);
+        assertEquals(usuario.getId(), principal.getId());
+        assertEquals(Usuario.Rol.USER, principal.getRole());
+        assertEquals(0, jwtUtils.getTokenVersion(claims));
+        assertTrue(usuario.isActivo());
+    }
+
+    @Test
+    void alEliminarUnUsuario_seRevocanSusTokensYNoPuedeEntrar() {
+        String email = email();
+        Claims claims = jwtUtils.parseToken(authService.register(registro(email)).getToken());
+        UUID usuarioId = jwtUtils.getPrincipal(claims).getId();
+        assertTrue(tokenVersionRegistry.esVigente(usuarioId, jwtUtils.getTokenVersion(claims)));
+
+        usuarioService.eliminarUsuario(usuarioId);
+
+        assertFalse(tokenVersionRegistry.esVigente(usuarioId, jwtUtils.getTokenVersion(claims)));
+        LoginRequest login = new LoginRequest();
+        login.setEmail(email);
+        login.setPassword("secreto123");
+        assertThrows(ValidationException.class, () -> authService.login(login));
+    }
+
+    private static String email() {
+        return "auth-" + UUID.randomUUID().toString().substring(0, 8) + "@test.com";
+    }
+
+    private static RegisterRequest registro(String email) {
+        RegisterRequest request = new RegisterRequest();
+        request.setNombre("Prueba");
+        request.setEmail(email);
+        request.setPassword("secreto123");
+        return request;
+    }
+}
@@ -0,0 +1,130 @@
+package com.experienciassoria;
+
+import com.experienciassoria.dto.comentario.ComentarioDTO;
+import com.experienciassoria.dto.comentario.CrearComentarioRequest;
+import com.experienciassoria.dto.experiencia.CrearExperienciaRequest;
+import com.experienciassoria.exception.ResourceNotFoundException;
+import com.experienciassoria.exception.ValidationException;
+import com.experienciassoria.model.Usuario;
+import com.experienciassoria.repository.UsuarioRepository;
+import com.experienciassoria.service.ComentarioService;
+import com.experienciassoria.service.ExperienciaService;
+import com.experienciassoria.util.PaginaCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Paginación por cursor de los comentarios: cada comentario sale una sola vez, del más reciente al más antiguo,
+ * con el nombre del autor, aunque varios compartan fecha.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ComentarioServiceTest {
+
+    private static final int COMENTARIOS = 7;
+
+    @Autowired
+    private ComentarioService comentarioService;
+    @Autowired
+    private ExperienciaService experienciaService;
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID experienciaId;
+    private UUID ana;
+    private UUID luis;
+
+    @BeforeEach
+    void preparar() {
+        String prueba = UUID.randomUUID().toString().substring(0, 8);
+        ana = usuario("Ana", prueba);
+        luis = usuario("Luis", prueba);
+        CrearExperienciaRequest request = new CrearExperienciaRequest();
+        request.setTitulo("Castillo " + prueba);
+        request.setCategoria("MONUMENTO");
+        experienciaId = experienciaService.crearExperiencia(request).getId();
+
+        // Comentarios alternos de Ana y Luis, de dos en dos con la misma fecha: el desempate es el id
+        Instant base = Instant.now().truncatedTo(ChronoUnit.SECONDS).minus(1, ChronoUnit.DAYS);
+        for (int i = 0; i < COMENTARIOS; i++) {
+            CrearComentarioRequest comentario = new CrearComentarioRequest();
+            comentario.setTexto("Comentario " + i);
+            UUID id = comentarioService.crearComentario(i % 2 == 0 ? ana : luis, experienciaId, comentario).getId();
+            jdbcTemplate.update("UPDATE comentarios SET fecha = ? WHERE id = ?",
+                    Timestamp.from(base.plus(i / 2, ChronoUnit.HOURS)), id);
+        }
+    }
+
+    @Test
+    void recorrerLasPaginasDevuelveCadaComentarioUnaVezConSuAutor() {
+        List<ComentarioDTO> todos = comentarioService.getComentariosByExperiencia(experienciaId, null, 100).getItems();
+        assertEquals(COMENTARIOS, todos.size());
+        for (int i = 1; i < todos.size(); i++) {
+            assertFalse(todos.get(i).getFecha().isAfter(todos.get(i - 1).getFecha()));
+        }
+        for (ComentarioDTO comentario : todos) {
+            int numero = Integer.parseInt(comentario.getTexto().substring("Comentario ".length()));
+            assertEquals(numero % 2 == 0 ? "Ana" : "Luis", comentario.getAutorNombre());
+        }
+
+        List<ComentarioDTO> recorridos = new ArrayList<>();
+        String cursor = null;
+        do {
+            PaginaCursor<ComentarioDTO> pagina = comentarioService.getComentariosByExperiencia(experienciaId, cursor, 3);
+            assertFalse(pagina.getItems().isEmpty());
+            recorridos.addAll(pagina.getItems());
+            cursor = pagina.getSiguienteCursor();
+        } while (cursor != null);
+        assertEquals(ids(todos), ids(recorridos));
+    }
+
+    @Test
+    void losComentariosDeUnUsuarioSePaginanIgual() {
+        PaginaCursor<ComentarioDTO> primera = comentarioService.getComentariosByUsuario(luis, null, 2);
+        PaginaCursor<ComentarioDTO> segunda = comentarioService.getComentariosByUsuario(luis, primera.getSiguienteCursor(), 2);
+
+        assertEquals(List.of("Comentario 5", "Comentario 3"), textos(primera.getItems()));
+        assertEquals(List.of("Comentario 1"), textos(segunda.getItems()));
+        assertNull(segunda.getSiguienteCursor());
+    }
+
+    @Test
+    void experienciaInexistenteOCursorInvalido() {
+        assertThrows(ResourceNotFoundException.class,
+                () -> comentarioService.getComentariosByExperiencia(UUID.randomUUID(), null, 10));
+        assertThrows(ValidationException.class,
+                () -> comentarioService.getComentariosByExperiencia(experienciaId, "no-es-un-cursor", 10));
+    }
+
+    private UUID usuario(String nombre, String prueba) {
+        return usuarioRepository.save(Usuario.builder()
+                .nombre(nombre)
+                .email(nombre.toLowerCase() + "-" + prueba + "@test.com")
+                .passwordHash("x")
+                .role(Usuario.Rol.USER)
+                .build()).getId();
+    }
+
+    private static List<UUID> ids(List<ComentarioDTO> comentarios) {
+        return comentarios.stream().map(ComentarioDTO::getId).toList();
+    }
+
+    private static List<String> textos(List<ComentarioDTO> comentarios) {
+        return comentarios.stream().map(ComentarioDTO::getTexto).toList();
+    }
+}
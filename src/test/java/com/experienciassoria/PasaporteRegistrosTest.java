@@ -0,0 +1,117 @@
+package com.experienciassoria;
+
+import com.experienciassoria.dto.experiencia.CrearExperienciaRequest;
+import com.experienciassoria.dto.pasaporte.PasaporteDTO;
+import com.experienciassoria.dto.pasaporte.RegistroExperienciaDTO;
+import com.experienciassoria.dto.pasaporte.RegistroRequest;
+import com.experienciassoria.exception.ValidationException;
+import com.experienciassoria.model.Usuario;
+import com.experienciassoria.repository.UsuarioRepository;
+import com.experienciassoria.service.ExperienciaService;
+import com.experienciassoria.service.ExperienciaUIDService;
+import com.experienciassoria.service.PasaporteService;
+import com.experienciassoria.util.PaginaCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Paginación por cursor del pasaporte: recorrer las páginas devuelve cada registro una sola vez, del más reciente
+ * al más antiguo, también cuando varios registros comparten fecha.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class PasaporteRegistrosTest {
+
+    private static final String[] CATEGORIAS = {"MONUMENTO", "MUSEO", "MONUMENTO", "AIRE_LIBRE", "MONUMENTO", "MUSEO", "MONUMENTO"};
+
+    @Autowired
+    private PasaporteService pasaporteService;
+    @Autowired
+    private ExperienciaService experienciaService;
+    @Autowired
+    private ExperienciaUIDService experienciaUIDService;
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID usuarioId;
+
+    @BeforeEach
+    void preparar() {
+        String prueba = UUID.randomUUID().toString().substring(0, 8);
+        usuarioId = usuarioRepository.save(Usuario.builder()
+                .nombre("Viajera")
+                .email("pasaporte-" + prueba + "@test.com")
+                .passwordHash("x")
+                .role(Usuario.Rol.USER)
+                .build()).getId();
+
+        // Tres pares de registros con la misma fecha: el desempate es el id de la experiencia
+        Instant base = Instant.now().truncatedTo(ChronoUnit.SECONDS).minus(1, ChronoUnit.DAYS);
+        for (int i = 0; i < CATEGORIAS.length; i++) {
+            CrearExperienciaRequest request = new CrearExperienciaRequest();
+            request.setTitulo("Experiencia " + i + " " + prueba);
+            request.setCategoria(CATEGORIAS[i]);
+            UUID experienciaId = experienciaService.crearExperiencia(request).getId();
+            RegistroRequest registro = new RegistroRequest();
+            registro.setUidScaneado(experienciaUIDService.generarUids(experienciaId, 1).getUids().get(0));
+            pasaporteService.registrarExperiencia(usuarioId, registro);
+            jdbcTemplate.update("UPDATE registro_experiencia SET fecha_registro = ? WHERE usuario_id = ? AND experiencia_id = ?",
+                    Timestamp.from(base.plus(i / 2, ChronoUnit.HOURS)), usuarioId, experienciaId);
+        }
+    }
+
+    @Test
+    void recorrerLasPaginasDevuelveCadaRegistroUnaVezEnOrden() {
+        List<RegistroExperienciaDTO> todos = pasaporteService.getRegistros(usuarioId, null, null, 200).getItems();
+        assertEquals(CATEGORIAS.length, todos.size());
+        for (int i = 1; i < todos.size(); i++) {
+            assertFalse(todos.get(i).getFechaRegistro().isAfter(todos.get(i - 1).getFechaRegistro()));
+        }
+
+        PasaporteDTO primera = pasaporteService.getPasaporte(usuarioId, null, null, 2);
+        List<RegistroExperienciaDTO> recorridos = new ArrayList<>(primera.getRegistros());
+        String cursor = primera.getSiguienteCursor();
+        while (cursor != null) {
+            PaginaCursor<RegistroExperienciaDTO> pagina = pasaporteService.getRegistros(usuarioId, null, cursor, 2);
+            assertFalse(pagina.getItems().isEmpty());
+            recorridos.addAll(pagina.getItems());
+            cursor = pagina.getSiguienteCursor();
+        }
+        assertEquals(ids(todos), ids(recorridos));
+    }
+
+    @Test
+    void elFiltroDeCategoriaSeAplicaEnTodasLasPaginas() {
+        PaginaCursor<RegistroExperienciaDTO> primera = pasaporteService.getRegistros(usuarioId, "MONUMENTO", null, 3);
+        assertEquals(3, primera.getItems().size());
+        assertNotNull(primera.getSiguienteCursor());
+
+        PaginaCursor<RegistroExperienciaDTO> segunda = pasaporteService.getRegistros(usuarioId, "MONUMENTO", primera.getSiguienteCursor(), 3);
+        assertEquals(1, segunda.getItems().size());
+        assertNull(segunda.getSiguienteCursor());
+        assertTrue(segunda.getItems().stream().allMatch(r -> r.getCategoria().equals("MONUMENTO")));
+        assertTrue(primera.getItems().stream().allMatch(r -> r.getCategoria().equals("MONUMENTO")));
+    }
+
+    @Test
+    void unCursorInvalidoSeRechaza() {
+        assertThrows(ValidationException.class, () -> pasaporteService.getRegistros(usuarioId, null, "no-es-un-cursor", 2));
+    }
+
+    private static List<UUID> ids(List<RegistroExperienciaDTO> registros) {
+        return registros.stream().map(RegistroExperienciaDTO::getExperienciaId).toList();
+    }
+}
@@ -0,0 +1,183 @@
+package com.experienciassoria;
+
+import com.experienciassoria.dto.experiencia.CrearExperienciaRequest;
+import com.experienciassoria.dto.pasaporte.RegistroRequest;
+import com.experienciassoria.exception.DuplicateResourceException;
+import com.experienciassoria.model.Usuario;
+import com.experienciassoria.repository.UsuarioRepository;
+import com.experienciassoria.service.ExperienciaService;
+import com.experienciassoria.service.ExperienciaUIDService;
+import com.experienciassoria.service.PasaporteService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba de estrés del registro de escaneos: muchos hilos registrando a la vez (grupos escaneando juntos y
+ * reintentos del mismo escaneo). Comprueba que no se pierden ni se duplican puntos: los puntos de cada usuario
+ * son exactamente la suma de sus registros y cada experiencia se registra una sola vez por usuario.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class PasaporteServiceTest {
+
+    private static final int HILOS = 16;
+    private static final int USUARIOS = 40;
+    private static final int EXPERIENCIAS = 5;
+    private static final int REINTENTOS = 4;
+
+    @Autowired
+    private PasaporteService pasaporteService;
+    @Autowired
+    private ExperienciaService experienciaService;
+    @Autowired
+    private ExperienciaUIDService experienciaUIDService;
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<UUID> usuarios = new ArrayList<>();
+    private final List<String> uids = new ArrayList<>();
+    private final Map<String, Integer> puntosPorUid = new HashMap<>();
+
+    @BeforeEach
+    void preparar() {
+        String prueba = UUID.randomUUID().toString().substring(0, 8);
+        for (int i = 0; i < USUARIOS; i++) {
+            usuarios.add(usuarioRepository.save(Usuario.builder()
+                    .nombre("Usuario " + i)
+                    .email("usuario" + i + "-" + prueba + "@test.com")
+                    .passwordHash("x")
+                    .role(Usuario.Rol.USER)
+                    .build()).getId());
+        }
+        for (int i = 0; i < EXPERIENCIAS; i++) {
+            CrearExperienciaRequest request = new CrearExperienciaRequest();
+            request.setTitulo("Experiencia " + i + " " + prueba);
+            request.setCategoria("MONUMENTO");
+            request.setPuntosOtorgados(5 + i);
+            UUID experienciaId = experienciaService.crearExperiencia(request).getId();
+            String uid = experienciaUIDService.generarUids(experienciaId, 1).getUids().get(0);
+            uids.add(uid);
+            puntosPorUid.put(uid, 5 + i);
+        }
+    }
+
+    @Test
+    void registrosConcurrentesDeUnGrupo_noPierdenPuntos() throws Exception {
+        // Cada usuario escanea todas las experiencias, en orden aleatorio y repartido entre los hilos
+        List<Callable<Void>> tareas = new ArrayList<>();
+        for (UUID usuarioId : usuarios) {
+            for (String uid : uids) {
+                tareas.add(() -> {
+                    pasaporteService.registrarExperiencia(usuarioId, registro(uid));
+                    return null;
+                });
+            }
+        }
+        Resultado resultado = ejecutar(tareas);
+
+        assertEquals(USUARIOS * EXPERIENCIAS, resultado.correctos(), "errores inesperados: " + resultado.errores());
+        int puntosPorUsuario = puntosPorUid.values().stream().mapToInt(Integer::intValue).sum();
+        for (UUID usuarioId : usuarios) {
+            assertEquals(puntosPorUsuario, puntos(usuarioId));
+            assertEquals(EXPERIENCIAS, registros(usuarioId));
+        }
+        assertPuntosIgualASumaDeRegistros();
+    }
+
+    @Test
+    void escaneosRepetidosEnParalelo_seAcreditanUnaVez() throws Exception {
+        // Cada usuario envía el mismo escaneo varias veces a la vez (reintentos, doble toque)
+        String uid = uids.get(0);
+        List<Callable<Void>> tareas = new ArrayList<>();
+        for (UUID usuarioId : usuarios) {
+            for (int i = 0; i < REINTENTOS; i++) {
+                tareas.add(() -> {
+                    pasaporteService.registrarExperiencia(usuarioId, registro(uid));
+                    return null;
+                });
+            }
+        }
+        Resultado resultado = ejecutar(tareas);
+
+        assertTrue(resultado.errores().isEmpty(), "errores inesperados: " + resultado.errores());
+        assertEquals(USUARIOS, resultado.correctos());
+        assertEquals(USUARIOS * (REINTENTOS - 1), resultado.duplicados());
+        for (UUID usuarioId : usuarios) {
+            assertEquals(puntosPorUid.get(uid), puntos(usuarioId));
+            assertEquals(1, registros(usuarioId));
+        }
+        assertPuntosIgualASumaDeRegistros();
+    }
+
+    // Ningún crédito perdido ni doble: puntos del usuario = suma de los puntos de sus registros
+    private void assertPuntosIgualASumaDeRegistros() {
+        for (UUID usuarioId : usuarios) {
+            Integer suma = jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(SUM(puntos_otorgados), 0) FROM registro_experiencia WHERE usuario_id = ?",
+                    Integer.class, usuarioId);
+            assertEquals(suma, puntos(usuarioId));
+        }
+    }
+
+    private Resultado ejecutar(List<Callable<Void>> tareas) throws Exception {
+        Collections.shuffle(tareas, new Random(7));
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch salida = new CountDownLatch(1);
+        AtomicInteger correctos = new AtomicInteger();
+        AtomicInteger duplicados = new AtomicInteger();
+        List<Throwable> errores = new CopyOnWriteArrayList<>();
+        List<Future<?>> futuros = new ArrayList<>();
+        for (Callable<Void> tarea : tareas) {
+            futuros.add(pool.submit(() -> {
+                salida.await();
+                try {
+                    tarea.call();
+                    correctos.incrementAndGet();
+                } catch (DuplicateResourceException e) {
+                    duplicados.incrementAndGet();
+                } catch (Exception e) {
+                    errores.add(e);
+                }
+                return null;
+            }));
+        }
+        salida.countDown();
+        for (Future<?> futuro : futuros) {
+            futuro.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        return new Resultado(correctos.get(), duplicados.get(), errores);
+    }
+
+    private int puntos(UUID usuarioId) {
+        return usuarioRepository.findById(usuarioId).orElseThrow().getPuntos();
+    }
+
+    private int registros(UUID usuarioId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM registro_experiencia WHERE usuario_id = ?", Integer.class, usuarioId);
+    }
+
+    private static RegistroRequest registro(String uid) {
+        RegistroRequest request = new RegistroRequest();
+        request.setUidScaneado(uid);
+        return request;
+    }
+
+    private record Resultado(int correctos, int duplicados, List<Throwable> errores) {
+    }
+}
@@ -0,0 +1,88 @@
+package com.experienciassoria.security;
+
+import com.experienciassoria.model.Usuario;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verificación de tokens con la caché de tokens ya verificados: un token repetido sale de la caché,
+ * pero uno alterado o caducado nunca se acepta.
+ */
+class JwtUtilsTest {
+
+    private static final String SECRETO = "estaesunaclavesuperseguraylargaparafirmartokensjwt";
+
+    private final Usuario usuario = Usuario.builder()
+            .id(UUID.randomUUID())
+            .email("ana@test.com")
+            .role(Usuario.Rol.ADMIN)
+            .tokenVersion(3)
+            .build();
+
+    @Test
+    void unTokenVerificadoSeSirveDeLaCache() {
+        JwtUtils jwtUtils = jwtUtils(60_000, 10);
+        String token = jwtUtils.generateToken(usuario);
+
+        Claims claims = jwtUtils.parseToken(token);
+        assertSame(claims, jwtUtils.parseToken(token));
+
+        UsuarioPrincipal principal = jwtUtils.getPrincipal(claims);
+        assertEquals(usuario.getId(), principal.getId());
+        assertEquals("ana@test.com", principal.getEmail());
+        assertEquals(Usuario.Rol.ADMIN, principal.getRole());
+        assertEquals(3, jwtUtils.getTokenVersion(claims));
+    }
+
+    @Test
+    void unTokenAlteradoNoSeAceptaAunqueElOriginalEsteEnCache() {
+        JwtUtils jwtUtils = jwtUtils(60_000, 10);
+        String token = jwtUtils.generateToken(usuario);
+        jwtUtils.parseToken(token);
+
+        String[] partes = token.split("\\.");
+        String otroPayload = Jwts.builder().setSubject("intruso@test.com").compact().split("\\.")[1];
+        String alterado = partes[0] + "." + otroPayload + "." + partes[2];
+
+        assertThrows(JwtException.class, () -> jwtUtils.parseToken(alterado));
+        assertFalse(jwtUtils.validateToken(alterado));
+    }
+
+    @Test
+    void unaEntradaCaducadaNoSeSirveDeLaCache() {
+        JwtTokenCache cache = new JwtTokenCache(10);
+        Claims caducado = Jwts.claims().setSubject("ana@test.com").setExpiration(new Date(System.currentTimeMillis() - 1));
+        Claims vigente = Jwts.claims().setSubject("ana@test.com").setExpiration(new Date(System.currentTimeMillis() + 60_000));
+
+        cache.put("caducado", caducado);
+        cache.put("vigente", vigente);
+
+        assertNull(cache.get("caducado"));
+        assertSame(vigente, cache.get("vigente"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void unTokenCaducadoSeRechaza() {
+        JwtUtils jwtUtils = jwtUtils(-1_000, 10);
+
+        assertFalse(jwtUtils.validateToken(jwtUtils.generateToken(usuario)));
+    }
+
+    private static JwtUtils jwtUtils(long expiracionMs, int maxEntradas) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRETO);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", expiracionMs);
+        ReflectionTestUtils.setField(jwtUtils, "jwtCacheMaxEntries", maxEntradas);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+}
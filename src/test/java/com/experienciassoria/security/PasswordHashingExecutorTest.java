@@ -0,0 +1,85 @@
+package com.experienciassoria.security;
+
+import com.experienciassoria.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * El carril BCrypt rechaza en el acto cuando está lleno, en lugar de dejar la petición esperando,
+ * y detecta los hashes con un coste antiguo para actualizarlos.
+ */
+class PasswordHashingExecutorTest {
+
+    private final CountDownLatch dentro = new CountDownLatch(1);
+    private final CountDownLatch soltar = new CountDownLatch(1);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PasswordHashingExecutor executor;
+
+    @AfterEach
+    void cerrar() {
+        soltar.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void conElCarrilLlenoRechazaCon503SinEsperar() throws Exception {
+        executor = new PasswordHashingExecutor(encoderLento(), meterRegistry, 1, 1, 5_000, 2);
+        CompletableFuture<String> ocupando = CompletableFuture.supplyAsync(() -> executor.encode("uno"));
+        assertTrue(dentro.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> enCola = CompletableFuture.supplyAsync(() -> executor.encode("dos"));
+        while (meterRegistry.get("auth.hashing.queue.size").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        long inicio = System.nanoTime();
+        ServiceUnavailableException e = assertThrows(ServiceUnavailableException.class, () -> executor.encode("tres"));
+        assertTrue(System.nanoTime() - inicio < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(2, e.getRetryAfterSeconds());
+        assertEquals(1, meterRegistry.get("auth.hashing.rejected").counter().count());
+
+        soltar.countDown();
+        assertEquals("hash-uno", ocupando.get(5, TimeUnit.SECONDS));
+        assertEquals("hash-dos", enCola.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void unHashConCosteAntiguoSeMarcaParaActualizar() {
+        executor = new PasswordHashingExecutor(new BCryptPasswordEncoder(6), meterRegistry, 1, 4, 5_000, 2);
+        String antiguo = new BCryptPasswordEncoder(4).encode("secreto");
+        String actual = executor.encode("secreto");
+
+        assertTrue(executor.matches("secreto", antiguo));
+        assertTrue(executor.necesitaActualizar(antiguo));
+        assertFalse(executor.necesitaActualizar(actual));
+    }
+
+    // Encoder cuyo primer encode se queda dentro hasta que el test lo suelta
+    private PasswordEncoder encoderLento() {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                dentro.countDown();
+                try {
+                    soltar.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash-" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encodedPassword.equals(encode(rawPassword));
+            }
+        };
+    }
+}
@@ -0,0 +1,54 @@
+package com.experienciassoria.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketRateLimiterTest {
+
+    private static final long SEGUNDO = 1_000_000_000L;
+
+    private final TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(4);
+
+    @Test
+    void permiteLaRafagaYLuegoIndicaCuantoEsperar() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryConsume("login:ip:1.2.3.4", 3, 0.5, 0));
+        }
+
+        // Un token cada 2 s: sin tokens, hay que esperar 2 s; a mitad de camino, 1 s
+        assertEquals(2 * SEGUNDO, limiter.tryConsume("login:ip:1.2.3.4", 3, 0.5, 0));
+        assertEquals(SEGUNDO, limiter.tryConsume("login:ip:1.2.3.4", 3, 0.5, SEGUNDO));
+        assertEquals(0, limiter.tryConsume("login:ip:1.2.3.4", 3, 0.5, 2 * SEGUNDO));
+    }
+
+    @Test
+    void cadaClaveTieneSuPropioBucket() {
+        assertEquals(0, limiter.tryConsume("login:ip:1.2.3.4", 1, 1, 0));
+        assertTrue(limiter.tryConsume("login:ip:1.2.3.4", 1, 1, 0) > 0);
+
+        assertEquals(0, limiter.tryConsume("login:ip:5.6.7.8", 1, 1, 0));
+        assertEquals(0, limiter.tryConsume("registrar:ip:1.2.3.4", 1, 1, 0));
+    }
+
+    @Test
+    void laRecargaNoSuperaLaCapacidad() {
+        limiter.tryConsume("comentar:u:1", 2, 10, 0);
+
+        // Tras una hora quieto solo tiene la capacidad, no 36.000 tokens
+        assertEquals(0, limiter.tryConsume("comentar:u:1", 2, 10, 3600 * SEGUNDO));
+        assertEquals(0, limiter.tryConsume("comentar:u:1", 2, 10, 3600 * SEGUNDO));
+        assertTrue(limiter.tryConsume("comentar:u:1", 2, 10, 3600 * SEGUNDO) > 0);
+    }
+
+    @Test
+    void seEliminanSoloLosBucketsInactivos() {
+        limiter.tryConsume("a", 1, 1, 0);
+        limiter.tryConsume("b", 1, 1, 10 * SEGUNDO);
+
+        assertEquals(1, limiter.evictIdle(12 * SEGUNDO, 5 * SEGUNDO));
+        assertEquals(1, limiter.size());
+        // El bucket eliminado vuelve lleno
+        assertEquals(0, limiter.tryConsume("a", 1, 1, 12 * SEGUNDO));
+    }
+}
@@ -0,0 +1,94 @@
+package com.experienciassoria.security;
+
+import com.experienciassoria.model.Usuario;
+import com.experienciassoria.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * La versión en memoria solo cambia cuando la transacción que revoca se confirma.
+ * La transacción se simula con la sincronización de Spring: commit = afterCommit de las sincronizaciones.
+ */
+class TokenVersionRegistryTest {
+
+    private final UUID usuarioId = UUID.randomUUID();
+    private TokenVersionRegistry registry;
+    private Usuario usuario;
+
+    @BeforeEach
+    void preparar() {
+        UsuarioRepository usuarioRepository = mock(UsuarioRepository.class);
+        when(usuarioRepository.findTokenVersionesRevocadas()).thenReturn(List.of());
+        registry = new TokenVersionRegistry(usuarioRepository);
+        registry.cargar();
+        usuario = Usuario.builder().id(usuarioId).role(Usuario.Rol.USER).build();
+    }
+
+    @AfterEach
+    void limpiar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void sinTransaccion_revocaEnElMomento() {
+        registry.revocar(usuario);
+
+        assertEquals(1, usuario.getTokenVersion());
+        assertFalse(registry.esVigente(usuarioId, 0));
+        assertTrue(registry.esVigente(usuarioId, 1));
+    }
+
+    @Test
+    void dentroDeUnaTransaccion_soloTrasElCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        registry.revocar(usuario);
+
+        // Hasta el commit, el token con la versión de la BD sigue valiendo
+        assertEquals(1, usuario.getTokenVersion());
+        assertTrue(registry.esVigente(usuarioId, 0));
+
+        confirmar();
+        assertFalse(registry.esVigente(usuarioId, 0));
+        assertTrue(registry.esVigente(usuarioId, 1));
+    }
+
+    @Test
+    void unRollbackNoCambiaLaVersionVigente() {
+        TransactionSynchronizationManager.initSynchronization();
+        registry.revocar(usuario);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertTrue(registry.esVigente(usuarioId, 0));
+    }
+
+    @Test
+    void commitsFueraDeOrden_seQuedaLaVersionMayor() {
+        TransactionSynchronizationManager.initSynchronization();
+        registry.revocar(usuario);
+        registry.revocar(usuario);
+        List<TransactionSynchronization> sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        sincronizaciones.get(1).afterCommit();
+        sincronizaciones.get(0).afterCommit();
+        assertTrue(registry.esVigente(usuarioId, 2));
+    }
+
+    private void confirmar() {
+        List<TransactionSynchronization> sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        sincronizaciones.forEach(TransactionSynchronization::afterCommit);
+    }
+}
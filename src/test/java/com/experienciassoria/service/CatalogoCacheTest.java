@@ -0,0 +1,97 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.dto.experiencia.ExperienciaDetailDTO;
+import com.experienciassoria.dto.experiencia.ExperienciaListDTO;
+import com.experienciassoria.dto.experiencia.OrdenCatalogo;
+import com.experienciassoria.model.Experiencia;
+import com.experienciassoria.repository.ExperienciaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CatalogoCacheTest {
+
+    private final List<Experiencia> filas = new ArrayList<>();
+    private ExperienciaRepository repositorio;
+    private CatalogoCache cache;
+
+    @BeforeEach
+    void preparar() {
+        repositorio = mock(ExperienciaRepository.class);
+        when(repositorio.findAllConGaleria()).thenReturn(filas);
+        cache = new CatalogoCache(repositorio, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void sinCargarDevuelveNullYDespuesNoConsultaLaBd() {
+        Experiencia castillo = experiencia("Castillo", Experiencia.Categoria.MONUMENTO, 10, true);
+        assertNull(cache.getDetalle(castillo.getId()));
+
+        cache.reconstruir();
+
+        assertEquals("Castillo", cache.getDetalle(castillo.getId()).orElseThrow().getTitulo());
+        assertTrue(cache.getDetalle(UUID.randomUUID()).isEmpty());
+        verify(repositorio, times(1)).findAllConGaleria();
+    }
+
+    @Test
+    void ordenaPorTituloSinTildesNiMayusculasYPaginaTrasElCursor() {
+        experiencia("zona", Experiencia.Categoria.AIRE_LIBRE, 10, true);
+        experiencia("Ábside", Experiencia.Categoria.MONUMENTO, 10, true);
+        experiencia("castillo", Experiencia.Categoria.MONUMENTO, 10, true);
+        experiencia("Arco", Experiencia.Categoria.MONUMENTO, 10, false);
+        cache.reconstruir();
+
+        List<ExperienciaListDTO> primera = cache.getPagina(null, null, OrdenCatalogo.TITULO, null, 2);
+        assertEquals(List.of("Ábside", "Arco"), titulos(primera));
+        assertEquals(List.of("castillo", "zona"), titulos(cache.getPagina(null, null, OrdenCatalogo.TITULO, primera.get(1), 2)));
+        assertEquals(List.of("Ábside", "castillo"),
+                titulos(cache.getPagina(Experiencia.Categoria.MONUMENTO, true, OrdenCatalogo.TITULO, null, 10)));
+    }
+
+    @Test
+    void cadaEscrituraPublicaUnaVersionNuevaSinTocarLaAnterior() {
+        Experiencia castillo = experiencia("Castillo", Experiencia.Categoria.MONUMENTO, 10, true);
+        Experiencia museo = experiencia("Museo", Experiencia.Categoria.MUSEO, 20, true);
+        cache.reconstruir();
+        List<ExperienciaListDTO> antes = cache.getPagina(null, null, OrdenCatalogo.PUNTOS, null, 10);
+        Map<Experiencia.Categoria, Integer> visiblesAntes = cache.getVisiblesPorCategoria();
+
+        cache.actualizar(new ExperienciaDetailDTO(castillo.getId(), "Castillo", null, "MONUMENTO", null, List.of(),
+                null, null, null, 50, true));
+        cache.eliminar(museo.getId());
+
+        assertEquals(List.of("Museo", "Castillo"), titulos(antes));
+        assertEquals(Map.of(Experiencia.Categoria.MONUMENTO, 1, Experiencia.Categoria.MUSEO, 1), visiblesAntes);
+        List<ExperienciaListDTO> despues = cache.getPagina(null, null, OrdenCatalogo.PUNTOS, null, 10);
+        assertEquals(List.of("Castillo"), titulos(despues));
+        assertEquals(50, despues.get(0).getPuntosOtorgados());
+        assertEquals(Map.of(Experiencia.Categoria.MONUMENTO, 1), cache.getVisiblesPorCategoria());
+        verify(repositorio, times(1)).findAllConGaleria();
+    }
+
+    private Experiencia experiencia(String titulo, Experiencia.Categoria categoria, int puntos, boolean visible) {
+        Experiencia exp = Experiencia.builder()
+                .id(UUID.randomUUID())
+                .titulo(titulo)
+                .categoria(categoria)
+                .galeriaImagenes(List.of())
+                .puntosOtorgados(puntos)
+                .visible(visible)
+                .build();
+        filas.add(exp);
+        return exp;
+    }
+
+    private static List<String> titulos(List<ExperienciaListDTO> filas) {
+        return filas.stream().map(ExperienciaListDTO::getTitulo).toList();
+    }
+}
@@ -0,0 +1,123 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.dto.pasaporte.RegistroExperienciaDTO;
+import com.experienciassoria.dto.top.PeriodoRanking;
+import com.experienciassoria.dto.top.UsuarioRankingDTO;
+import com.experienciassoria.repository.RegistroExperienciaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Ventanas móviles de la clasificación por periodo. Un registro con fecha posterior al día actual hace
+ * avanzar el estado hasta ese día, así que se puede simular el paso de los días sin tocar el reloj.
+ */
+class ClasificacionPorPeriodoTest {
+
+    private final UUID ana = UUID.randomUUID();
+    private final UUID bea = UUID.randomUUID();
+    private final UUID carlos = UUID.randomUUID();
+    private final Map<UUID, String> nombres = Map.of(ana, "Ana", bea, "Bea", carlos, "Carlos");
+    private final LocalDate hoy = LocalDate.now(ZoneOffset.UTC);
+
+    private ClasificacionPorPeriodo clasificacionPorPeriodo;
+
+    @BeforeEach
+    void preparar() {
+        RegistroExperienciaRepository registroRepository = mock(RegistroExperienciaRepository.class);
+        when(registroRepository.findPuntosDesde(any())).thenReturn(List.of());
+        Clasificacion clasificacion = mock(Clasificacion.class);
+        when(clasificacion.getPuesto(any())).thenAnswer(invocacion -> {
+            UUID id = invocacion.getArgument(0);
+            return Optional.of(new Clasificacion.Puesto(id, nombres.get(id), 0, "USER"));
+        });
+
+        clasificacionPorPeriodo = new ClasificacionPorPeriodo(registroRepository, clasificacion, "UTC", 90);
+        clasificacionPorPeriodo.reconstruir();
+    }
+
+    @Test
+    void losPuntosDeHoyCuentanEnTodasLasVentanas() {
+        registrar(ana, 0, 10);
+        registrar(bea, 0, 4);
+
+        for (PeriodoRanking periodo : PeriodoRanking.values()) {
+            assertEquals(Map.of("Ana", 10, "Bea", 4), puntos(periodo));
+        }
+    }
+
+    @Test
+    void cadaVentanaDescartaLosDiasQueDejaDeCubrir() {
+        registrar(ana, 0, 10);
+        registrar(ana, 3, 5);
+
+        // Día 7: la semana cubre los días 1..7, así que solo quedan los puntos del día 3
+        registrar(bea, 7, 1);
+        assertEquals(Map.of("Ana", 5, "Bea", 1), puntos(PeriodoRanking.SEMANA));
+        assertEquals(Map.of("Ana", 15, "Bea", 1), puntos(PeriodoRanking.MES));
+
+        // Día 33: el mes cubre los días 4..33
+        registrar(carlos, 33, 2);
+        assertEquals(Map.of("Carlos", 2), puntos(PeriodoRanking.SEMANA));
+        assertEquals(Map.of("Bea", 1, "Carlos", 2), puntos(PeriodoRanking.MES));
+        assertEquals(Map.of("Ana", 15, "Bea", 1, "Carlos", 2), puntos(PeriodoRanking.TEMPORADA));
+
+        // Día 92: la temporada (90 días) cubre los días 3..92
+        registrar(carlos, 92, 2);
+        assertEquals(Map.of("Ana", 5, "Bea", 1, "Carlos", 4), puntos(PeriodoRanking.TEMPORADA));
+    }
+
+    @Test
+    void unSaltoMayorQueLaTemporadaVaciaTodasLasVentanas() {
+        registrar(ana, 0, 10);
+        registrar(bea, 45, 3);
+
+        registrar(carlos, 200, 7);
+        for (PeriodoRanking periodo : PeriodoRanking.values()) {
+            assertEquals(Map.of("Carlos", 7), puntos(periodo));
+        }
+
+        // Los cubos reutilizados tras el salto siguen funcionando
+        registrar(ana, 201, 1);
+        assertEquals(Map.of("Ana", 1, "Carlos", 7), puntos(PeriodoRanking.SEMANA));
+    }
+
+    @Test
+    void losRegistrosAnterioresALaTemporadaSeIgnoran() {
+        registrar(ana, 100, 10);
+        registrar(bea, 5, 3);
+
+        assertEquals(Map.of("Ana", 10), puntos(PeriodoRanking.TEMPORADA));
+    }
+
+    @Test
+    void losEmpatadosCompartenPosicion() {
+        registrar(ana, 0, 5);
+        registrar(bea, 0, 5);
+        registrar(carlos, 0, 2);
+
+        List<UsuarioRankingDTO> top = clasificacionPorPeriodo.top(PeriodoRanking.SEMANA, 10);
+        assertEquals(List.of(1, 1, 3), top.stream().map(UsuarioRankingDTO::getPosicion).toList());
+    }
+
+    // Registro de {@code puntos} del usuario a mediodía (UTC) del día {@code dia} contado desde hoy
+    private void registrar(UUID usuarioId, int dia, int puntos) {
+        RegistroExperienciaDTO registro = new RegistroExperienciaDTO(UUID.randomUUID(), "Experiencia", "MUSEO",
+                hoy.plusDays(dia).atTime(12, 0).toInstant(ZoneOffset.UTC), null, null, puntos);
+        clasificacionPorPeriodo.registrar(usuarioId, List.of(registro));
+    }
+
+    private Map<String, Integer> puntos(PeriodoRanking periodo) {
+        return clasificacionPorPeriodo.top(periodo, 100).stream()
+                .collect(Collectors.toMap(UsuarioRankingDTO::getNombre, UsuarioRankingDTO::getPuntos));
+    }
+}
@@ -0,0 +1,128 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.dto.pasaporte.RegistroExperienciaDTO;
+import com.experienciassoria.dto.top.PioneroDTO;
+import com.experienciassoria.dto.top.VisitasRankingDTO;
+import com.experienciassoria.model.Experiencia;
+import com.experienciassoria.repository.RegistroExperienciaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class ClasificacionVisitasTest {
+
+    private static final Instant T = Instant.parse("2026-06-01T10:00:00Z");
+
+    private final UUID ana = UUID.randomUUID();
+    private final UUID luis = UUID.randomUUID();
+    private final UUID marta = UUID.randomUUID();
+    private final UUID inactivo = UUID.randomUUID();
+    private final UUID castillo = UUID.randomUUID();
+
+    private RegistroExperienciaRepository repositorio;
+    private ClasificacionVisitas clasificacionVisitas;
+
+    @BeforeEach
+    void preparar() {
+        repositorio = mock(RegistroExperienciaRepository.class);
+        List<RegistroExperienciaRepository.ResumenCategoriaView> resumen = List.of(
+                resumen(ana, Experiencia.Categoria.MUSEO, 3),
+                resumen(luis, Experiencia.Categoria.MUSEO, 3),
+                resumen(marta, Experiencia.Categoria.MUSEO, 1),
+                resumen(inactivo, Experiencia.Categoria.MUSEO, 5),
+                resumen(luis, Experiencia.Categoria.MONUMENTO, 2));
+        when(repositorio.findResumenPorCategoriaTodos()).thenReturn(resumen);
+        List<RegistroExperienciaRepository.PioneroView> pioneros = List.of(
+                pionero(castillo, ana, T.plusSeconds(60)),
+                pionero(castillo, luis, T.plusSeconds(120)));
+        when(repositorio.findPioneros(anyInt())).thenReturn(pioneros);
+
+        Clasificacion clasificacion = mock(Clasificacion.class);
+        when(clasificacion.getPuesto(any())).thenReturn(Optional.empty());
+        Map.of(ana, "Ana", luis, "Luis", marta, "Marta").forEach((id, nombre) ->
+                when(clasificacion.getPuesto(id)).thenReturn(Optional.of(new Clasificacion.Puesto(id, nombre, 0, "USER"))));
+
+        clasificacionVisitas = new ClasificacionVisitas(repositorio, clasificacion, 2);
+    }
+
+    @Test
+    void cadaCategoriaTieneSuClasificacionConEmpatesYSinInactivos() {
+        List<VisitasRankingDTO> museos = clasificacionVisitas.top(Experiencia.Categoria.MUSEO, 10);
+
+        assertEquals(List.of(1, 1, 3), museos.stream().map(VisitasRankingDTO::getPosicion).toList());
+        assertEquals(Set.of("Ana", "Luis"), Set.of(museos.get(0).getNombre(), museos.get(1).getNombre()));
+        assertEquals("Marta", museos.get(2).getNombre());
+        assertEquals(List.of("Luis"), nombres(clasificacionVisitas.top(Experiencia.Categoria.MONUMENTO, 10)));
+        assertTrue(clasificacionVisitas.top(Experiencia.Categoria.RESTAURANTE, 10).isEmpty());
+    }
+
+    @Test
+    void losRegistrosNuevosSeSumanSinVolverAConsultar() {
+        clasificacionVisitas.top(Experiencia.Categoria.MUSEO, 10);
+
+        clasificacionVisitas.registrar(marta, List.of(registro(UUID.randomUUID(), "MUSEO", T),
+                registro(UUID.randomUUID(), "MUSEO", T), registro(UUID.randomUUID(), "MUSEO", T)));
+
+        List<VisitasRankingDTO> museos = clasificacionVisitas.top(Experiencia.Categoria.MUSEO, 1);
+        assertEquals("Marta", museos.get(0).getNombre());
+        assertEquals(4, museos.get(0).getVisitadas());
+        verify(repositorio, times(1)).findResumenPorCategoriaTodos();
+    }
+
+    @Test
+    void unEscaneoAtrasadoEntraEntreLosPionerosYUnoTardioNo() {
+        assertEquals(List.of("Ana", "Luis"), pioneros());
+
+        clasificacionVisitas.registrar(marta, List.of(registro(castillo, "MONUMENTO", T)));
+        assertEquals(List.of("Marta", "Ana"), pioneros());
+
+        clasificacionVisitas.registrar(UUID.randomUUID(), List.of(registro(castillo, "MONUMENTO", T.plusSeconds(3600))));
+        assertEquals(List.of("Marta", "Ana"), pioneros());
+    }
+
+    @Test
+    void trasInvalidarSeRecargaDeLaBd() {
+        clasificacionVisitas.top(Experiencia.Categoria.MUSEO, 10);
+
+        clasificacionVisitas.invalidar();
+        clasificacionVisitas.top(Experiencia.Categoria.MUSEO, 10);
+
+        verify(repositorio, times(2)).findResumenPorCategoriaTodos();
+    }
+
+    private List<String> pioneros() {
+        return clasificacionVisitas.pioneros(castillo).stream().map(PioneroDTO::getNombre).toList();
+    }
+
+    private static List<String> nombres(List<VisitasRankingDTO> ranking) {
+        return ranking.stream().map(VisitasRankingDTO::getNombre).toList();
+    }
+
+    private static RegistroExperienciaDTO registro(UUID experienciaId, String categoria, Instant fecha) {
+        return new RegistroExperienciaDTO(experienciaId, "Experiencia", categoria, fecha, null, null, 10);
+    }
+
+    private static RegistroExperienciaRepository.ResumenCategoriaView resumen(UUID usuarioId,
+                                                                            Experiencia.Categoria categoria, long visitadas) {
+        RegistroExperienciaRepository.ResumenCategoriaView fila = mock(RegistroExperienciaRepository.ResumenCategoriaView.class);
+        when(fila.getUsuarioId()).thenReturn(usuarioId);
+        when(fila.getCategoria()).thenReturn(categoria);
+        when(fila.getVisitadas()).thenReturn(visitadas);
+        return fila;
+    }
+
+    private static RegistroExperienciaRepository.PioneroView pionero(UUID experienciaId, UUID usuarioId, Instant fecha) {
+        RegistroExperienciaRepository.PioneroView fila = mock(RegistroExperienciaRepository.PioneroView.class);
+        when(fila.getExperienciaId()).thenReturn(experienciaId);
+        when(fila.getUsuarioId()).thenReturn(usuarioId);
+        when(fila.getFechaRegistro()).thenReturn(fecha);
+        return fila;
+    }
+}
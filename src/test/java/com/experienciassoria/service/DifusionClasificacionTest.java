@@ -0,0 +1,90 @@
+package com.experienciassoria.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Un cliente que deja de leer bloquea su envío; con un solo hilo de envío, los demás suscriptores
+ * no deben quedarse sin recibir nada.
+ */
+class DifusionClasificacionTest {
+
+    private final CountDownLatch soltarBloqueado = new CountDownLatch(1);
+    private final CountDownLatch bloqueadoDentro = new CountDownLatch(1);
+    private final CountDownLatch normalRecibe = new CountDownLatch(1);
+    private final Deque<SseEmitter> emisores = new ArrayDeque<>();
+
+    private DifusionClasificacion difusion;
+
+    @AfterEach
+    void limpiar() {
+        soltarBloqueado.countDown();
+        difusion.shutdown();
+    }
+
+    @Test
+    void unEnvioBloqueadoNoDejaSinHiloALosDemas() throws Exception {
+        Clasificacion clasificacion = mock(Clasificacion.class);
+        when(clasificacion.getVersion()).thenReturn(1L);
+        when(clasificacion.top(anyInt())).thenReturn(List.of());
+        difusion = new DifusionClasificacion(clasificacion, new ObjectMapper().findAndRegisterModules(),
+                new SimpleMeterRegistry(), 10, 100, 20, 60_000, 1, 100) {
+            @Override
+            SseEmitter nuevoEmitter() {
+                return emisores.poll();
+            }
+        };
+        emisores.add(new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder evento) {
+                bloqueadoDentro.countDown();
+                try {
+                    soltarBloqueado.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        emisores.add(new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder evento) throws IOException {
+                normalRecibe.countDown();
+            }
+        });
+
+        difusion.suscribir();
+        assertTrue(bloqueadoDentro.await(5, TimeUnit.SECONDS));
+        difusion.suscribir();
+        // El único hilo de envío está bloqueado con el primer suscriptor
+        assertEquals(1, normalRecibe.getCount());
+
+        Thread.sleep(200);
+        difusion.vigilarEnvios();
+        assertTrue(normalRecibe.await(5, TimeUnit.SECONDS), "el segundo suscriptor no recibió nada");
+        // El atascado sigue contando como conexión hasta que su envío termine
+        assertEquals(2, difusion.getSuscriptores());
+
+        soltarBloqueado.countDown();
+        long limite = System.currentTimeMillis() + 5000;
+        while (difusion.getSuscriptores() != 1 && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, difusion.getSuscriptores());
+    }
+}
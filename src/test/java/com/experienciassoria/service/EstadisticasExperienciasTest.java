@@ -0,0 +1,45 @@
+package com.experienciassoria.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class EstadisticasExperienciasTest {
+
+    @Autowired
+    private EstadisticasExperiencias estadisticasExperiencias;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void eliminarDentroDeUnaTransaccion_borraLaFilaTrasElCommit() {
+        UUID experienciaId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO experiencia_estadisticas (experiencia_id, visitas, comentarios) VALUES (?, 3, 1)",
+                experienciaId);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+            estadisticasExperiencias.eliminar(experienciaId);
+            // Hasta el commit la fila sigue ahí
+            assertEquals(1, filas(experienciaId));
+        });
+
+        assertEquals(0, filas(experienciaId));
+    }
+
+    private int filas(UUID experienciaId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM experiencia_estadisticas WHERE experiencia_id = ?",
+                Integer.class, experienciaId);
+    }
+}
@@ -0,0 +1,87 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.dto.experiencia.GenerarUIDsResponse;
+import com.experienciassoria.exception.ValidationException;
+import com.experienciassoria.model.Experiencia;
+import com.experienciassoria.repository.ExperienciaRepository;
+import com.experienciassoria.repository.ExperienciaUIDRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ExperienciaUIDServiceTest {
+
+    private final UUID experienciaId = UUID.randomUUID();
+    private final List<List<String>> consultas = new ArrayList<>();
+    private ExperienciaUIDRepository uidRepository;
+    private UidResolver uidResolver;
+    private FiltroUidsActivos filtro;
+    private ExperienciaUIDService service;
+
+    @BeforeEach
+    void preparar() {
+        uidRepository = mock(ExperienciaUIDRepository.class);
+        when(uidRepository.findUidsExistentes(anyCollection())).thenAnswer(i -> {
+            consultas.add(new ArrayList<>(i.<Collection<String>>getArgument(0)));
+            return List.of();
+        });
+        ExperienciaRepository experienciaRepository = mock(ExperienciaRepository.class);
+        Experiencia experiencia = new Experiencia();
+        experiencia.setId(experienciaId);
+        when(experienciaRepository.findById(experienciaId)).thenReturn(Optional.of(experiencia));
+        uidResolver = mock(UidResolver.class);
+        filtro = mock(FiltroUidsActivos.class);
+        service = new ExperienciaUIDService(uidRepository, experienciaRepository, uidResolver, filtro,
+                mock(EntityManager.class), 5000);
+    }
+
+    @Test
+    void generaPorLotesConUnaConsultaDeColisionesPorLote() {
+        GenerarUIDsResponse respuesta = service.generarUids(experienciaId, 2500);
+
+        List<String> uids = respuesta.getUids();
+        assertEquals(2500, uids.size());
+        assertEquals(2500, new HashSet<>(uids).size());
+        assertTrue(uids.stream().allMatch(uid -> uid.matches("[ABCDEFGHJKMNPQRSTUVWXYZ2-9]{16}")));
+        assertEquals(List.of(1000, 1000, 500), consultas.stream().map(List::size).toList());
+        verify(uidRepository, times(3)).saveAll(anyList());
+        verify(uidRepository, never()).findAll();
+        verify(uidResolver).invalidar(uids);
+        verify(filtro).anadir(uids);
+    }
+
+    @Test
+    void unUidQueYaExisteSeSustituyeSinRepetirElLote() {
+        List<String> yaExistentes = new ArrayList<>();
+        doAnswer(i -> {
+            Collection<String> candidatos = i.getArgument(0);
+            consultas.add(new ArrayList<>(candidatos));
+            if (consultas.size() == 1) {
+                yaExistentes.add(candidatos.iterator().next());
+                return List.copyOf(yaExistentes);
+            }
+            return List.of();
+        }).when(uidRepository).findUidsExistentes(anyCollection());
+
+        List<String> uids = service.generarUids(experienciaId, 10).getUids();
+
+        assertEquals(10, uids.size());
+        assertFalse(uids.contains(yaExistentes.get(0)));
+        assertEquals(2, consultas.size());
+        // El segundo intento conserva los 9 candidatos buenos y solo cambia el que colisionó
+        assertTrue(consultas.get(1).containsAll(consultas.get(0).subList(1, 10)));
+    }
+
+    @Test
+    void unaCantidadFueraDeRangoSeRechazaSinConsultar() {
+        assertThrows(ValidationException.class, () -> service.generarUids(experienciaId, 0));
+        assertThrows(ValidationException.class, () -> service.generarUids(experienciaId, 5001));
+        verifyNoInteractions(uidRepository);
+    }
+}
@@ -0,0 +1,85 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.exception.ValidationException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotenciaStoreTest {
+
+    private static final UUID USUARIO = UUID.randomUUID();
+
+    @Test
+    void huellaDistingueContenidosQueSoloCambianDeFrontera() {
+        assertEquals(IdempotenciaStore.huella("ab", "c"), IdempotenciaStore.huella("ab", "c"));
+        assertNotEquals(IdempotenciaStore.huella("ab", "c"), IdempotenciaStore.huella("a", "bc"));
+        assertNotEquals(IdempotenciaStore.huella("x", null), IdempotenciaStore.huella("x", "null"));
+        assertNotEquals(IdempotenciaStore.huella((Object) new Object[]{"a", "b"}), IdempotenciaStore.huella("a", "b"));
+        assertNotEquals(IdempotenciaStore.huella(new Object[]{"u", "o", Instant.EPOCH}),
+                IdempotenciaStore.huella(new Object[]{"u", "o", Instant.EPOCH.plusSeconds(1)}));
+        // Colisión conocida de Arrays.deepHashCode / String.hashCode
+        assertNotEquals(IdempotenciaStore.huella("Aa"), IdempotenciaStore.huella("BB"));
+    }
+
+    @Test
+    void rechazaLaClaveConOtroContenido() {
+        IdempotenciaStore store = store(10);
+        store.ejecutar(USUARIO, "op", "k", IdempotenciaStore.huella("Aa"), () -> 1);
+
+        assertThrows(ValidationException.class,
+                () -> store.ejecutar(USUARIO, "op", "k", IdempotenciaStore.huella("BB"), () -> 2));
+    }
+
+    @Test
+    void alLlenarseNoSeOlvidaDeLasPeticionesEnCurso() throws Exception {
+        IdempotenciaStore store = store(4);
+        CountDownLatch dentro = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+        AtomicInteger ejecuciones = new AtomicInteger();
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> original = pool.submit(() -> store.ejecutar(USUARIO, "op", "en-curso", "h", () -> {
+                ejecuciones.incrementAndGet();
+                dentro.countDown();
+                await(soltar);
+                return "hecho";
+            }));
+            assertTrue(dentro.await(5, TimeUnit.SECONDS));
+
+            // Llenar el almacén varias veces con peticiones terminadas
+            for (int i = 0; i < 20; i++) {
+                store.ejecutar(USUARIO, "op", "k" + i, "h", () -> "otro");
+            }
+            // La entrada en curso sigue ahí: la misma clave con otro contenido se rechaza en lugar de ejecutarse
+            assertThrows(ValidationException.class, () -> store.ejecutar(USUARIO, "op", "en-curso", "otra", () -> {
+                ejecuciones.incrementAndGet();
+                return "repetido";
+            }));
+            soltar.countDown();
+            original.get(5, TimeUnit.SECONDS);
+
+            assertEquals(1, ejecuciones.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static IdempotenciaStore store(int maxEntradas) {
+        return new IdempotenciaStore(Duration.ofHours(1), maxEntradas, 5000, new SimpleMeterRegistry());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.dto.experiencia.ExperienciaDetailDTO;
+import com.experienciassoria.dto.experiencia.ExperienciaListDTO;
+import com.experienciassoria.dto.experiencia.ResultadoBusquedaDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceBusquedaTest {
+
+    private final IndiceBusqueda indice = new IndiceBusqueda(new SimpleMeterRegistry());
+
+    private final ExperienciaDetailDTO iglesia = experiencia("Iglesia Románica de San Juan de Rabanera",
+            "MONUMENTO", "Calle Caballeros", "Portada del siglo XII", true);
+    private final ExperienciaDetailDTO museo = experiencia("Museo Numantino",
+            "MUSEO", "Paseo del Espolón", "Piezas románicas y celtíberas de Numancia", true);
+    private final ExperienciaDetailDTO ermita = experiencia("Ermita de San Saturio",
+            "MONUMENTO", "Orillas del Duero", "Ermita sobre la cueva del santo", true);
+    private final ExperienciaDetailDTO oculta = experiencia("Claustro Románico de San Juan de Duero",
+            "MONUMENTO", null, null, false);
+
+    @BeforeEach
+    void preparar() {
+        indice.reconstruir(List.of(iglesia, museo, ermita, oculta));
+    }
+
+    @Test
+    void ignoraTildesMayusculasYPlurales() {
+        assertEquals(List.of(iglesia.getId(), museo.getId()), ids(indice.buscar("ROMÁNICAS", null, 10)));
+        assertEquals(List.of(museo.getId()), ids(indice.buscar("numancia celtibera", null, 10)));
+    }
+
+    @Test
+    void laUltimaPalabraSeBuscaPorPrefijo() {
+        assertEquals(List.of(iglesia.getId()), ids(indice.buscar("san ju", null, 10)));
+        assertEquals(List.of(museo.getId()), ids(indice.buscar("numan", null, 10)));
+        // Solo la última: una palabra incompleta en medio de la consulta no coincide
+        assertTrue(indice.buscar("numan museo", null, 10).getResultados().isEmpty());
+    }
+
+    @Test
+    void elTituloPuntuaMasQueLaDescripcionYHayFacetasSinFiltrar() {
+        // "románica" está en el título de la iglesia y solo en la descripción del museo
+        ResultadoBusquedaDTO resultado = indice.buscar("romanica", "MUSEO", 10);
+
+        assertEquals(List.of(museo.getId()), ids(resultado));
+        assertEquals(1, resultado.getTotal());
+        assertEquals(Map.of("MONUMENTO", 1, "MUSEO", 1), resultado.getCategorias());
+        assertEquals(List.of(iglesia.getId(), museo.getId()), ids(indice.buscar("romanica", null, 10)));
+    }
+
+    @Test
+    void actualizarRetiraLosTerminosAnterioresYEliminarLaQuita() {
+        indice.actualizar(experiencia(ermita.getId(), "Ermita de San Polo", "MONUMENTO", null, null, true));
+        assertTrue(indice.buscar("saturio", null, 10).getResultados().isEmpty());
+        assertEquals(List.of(ermita.getId()), ids(indice.buscar("polo", null, 10)));
+
+        indice.eliminar(ermita.getId());
+        assertTrue(indice.buscar("polo", null, 10).getResultados().isEmpty());
+    }
+
+    private static List<UUID> ids(ResultadoBusquedaDTO resultado) {
+        return resultado.getResultados().stream().map(ExperienciaListDTO::getId).toList();
+    }
+
+    private static ExperienciaDetailDTO experiencia(String titulo, String categoria, String direccion,
+                                                   String descripcion, boolean visible) {
+        return experiencia(UUID.randomUUID(), titulo, categoria, direccion, descripcion, visible);
+    }
+
+    private static ExperienciaDetailDTO experiencia(UUID id, String titulo, String categoria, String direccion,
+                                                   String descripcion, boolean visible) {
+        return new ExperienciaDetailDTO(id, titulo, descripcion, categoria, null, List.of(), direccion,
+                null, null, 10, visible);
+    }
+}
@@ -0,0 +1,95 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.dto.experiencia.ExperienciaCercanaDTO;
+import com.experienciassoria.dto.experiencia.ExperienciaDetailDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceGeograficoTest {
+
+    // Plaza Mayor de Soria
+    private static final double LAT = 41.7640;
+    private static final double LNG = -2.4649;
+
+    private final IndiceGeografico indice = new IndiceGeografico(0.05, new SimpleMeterRegistry());
+
+    @Test
+    void devuelveLasMasCercanasDentroDelRadioOrdenadas() {
+        ExperienciaDetailDTO cerca = experiencia(LAT + 0.001, LNG, true);
+        ExperienciaDetailDTO media = experiencia(LAT + 0.02, LNG, true);
+        ExperienciaDetailDTO lejos = experiencia(LAT + 0.5, LNG, true);
+        ExperienciaDetailDTO oculta = experiencia(LAT, LNG, false);
+        indice.reconstruir(List.of(lejos, media, oculta, cerca));
+
+        List<ExperienciaCercanaDTO> resultado = indice.buscarCercanas(LAT, LNG, 5, 10);
+
+        assertEquals(List.of(cerca.getId(), media.getId()), resultado.stream().map(ExperienciaCercanaDTO::getId).toList());
+        assertTrue(resultado.get(0).getDistanciaMetros() < resultado.get(1).getDistanciaMetros());
+        assertEquals(1, indice.buscarCercanas(LAT, LNG, 5, 1).size());
+    }
+
+    @Test
+    void actualizarMueveLaExperienciaDeCelda() {
+        ExperienciaDetailDTO exp = experiencia(LAT, LNG, true);
+        indice.reconstruir(List.of(exp));
+
+        indice.actualizar(conUbicacion(exp, LAT + 1, LNG));
+        assertTrue(indice.buscarCercanas(LAT, LNG, 5, 10).isEmpty());
+        assertEquals(1, indice.buscarCercanas(LAT + 1, LNG, 5, 10).size());
+
+        indice.eliminar(exp.getId());
+        assertTrue(indice.buscarCercanas(LAT + 1, LNG, 5, 10).isEmpty());
+    }
+
+    @Test
+    void unaConsultaDuranteUnaReconstruccionVeUnIndiceCompleto() throws Exception {
+        // Las mismas experiencias en dos versiones del catálogo, desplazadas media celda: cambian todas de celda
+        Random random = new Random(7);
+        List<ExperienciaDetailDTO> antes = new ArrayList<>();
+        List<ExperienciaDetailDTO> despues = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            ExperienciaDetailDTO exp = experiencia(LAT - 0.2 + random.nextDouble() * 0.4, LNG - 0.2 + random.nextDouble() * 0.4, true);
+            antes.add(exp);
+            despues.add(conUbicacion(exp, exp.getUbicacionLat().doubleValue() + 0.025, exp.getUbicacionLng().doubleValue() + 0.025));
+        }
+        indice.reconstruir(antes);
+
+        AtomicBoolean parar = new AtomicBoolean();
+        Thread reconstrucciones = new Thread(() -> {
+            for (int i = 0; !parar.get(); i++) {
+                indice.reconstruir(i % 2 == 0 ? despues : antes);
+            }
+        });
+        reconstrucciones.start();
+        try {
+            for (int i = 0; i < 2000; i++) {
+                // El radio cubre las dos versiones: siempre están todas, y cada una una sola vez
+                List<ExperienciaCercanaDTO> resultado = indice.buscarCercanas(LAT, LNG, 100, 5000);
+                assertEquals(2000, resultado.stream().map(ExperienciaCercanaDTO::getId).distinct().count());
+                assertEquals(2000, resultado.size());
+            }
+        } finally {
+            parar.set(true);
+            reconstrucciones.join();
+        }
+    }
+
+    private static ExperienciaDetailDTO experiencia(double lat, double lng, boolean visible) {
+        return new ExperienciaDetailDTO(UUID.randomUUID(), "Experiencia", null, "MONUMENTO", null, List.of(), null,
+                BigDecimal.valueOf(lat), BigDecimal.valueOf(lng), 10, visible);
+    }
+
+    private static ExperienciaDetailDTO conUbicacion(ExperienciaDetailDTO exp, double lat, double lng) {
+        return new ExperienciaDetailDTO(exp.getId(), exp.getTitulo(), null, exp.getCategoria(), null, List.of(), null,
+                BigDecimal.valueOf(lat), BigDecimal.valueOf(lng), exp.getPuntosOtorgados(), exp.isVisible());
+    }
+}
@@ -0,0 +1,173 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.dto.experiencia.ExperienciaDetailDTO;
+import com.experienciassoria.dto.experiencia.UidResueltoDTO;
+import com.experienciassoria.dto.pasaporte.*;
+import com.experienciassoria.model.RegistroExperiencia;
+import com.experienciassoria.repository.*;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Sincronización de escaneos offline con las dependencias simuladas: qué se registra y con qué fecha, qué se descarta,
+ * cuántas consultas cuesta el lote y a quién se avisa de cada registro nuevo.
+ */
+class PasaporteServiceLoteTest {
+
+    private final UUID usuarioId = UUID.randomUUID();
+    private final Map<String, UidResueltoDTO> uids = new HashMap<>();
+    private final Set<UUID> yaRegistradas = new HashSet<>();
+
+    private ExperienciaService experienciaService;
+    private RegistroExperienciaRepository registroRepo;
+    private UidResolver uidResolver;
+    private DifusionClasificacion difusionClasificacion;
+    private UsuarioRepository usuarioRepo;
+    private PasaporteService pasaporteService;
+
+    @BeforeEach
+    void preparar() {
+        registroRepo = mock(RegistroExperienciaRepository.class);
+        when(registroRepo.findExperienciasRegistradas(eq(usuarioId), anyCollection()))
+                .thenAnswer(i -> new ArrayList<>(yaRegistradas));
+        uidResolver = mock(UidResolver.class);
+        when(uidResolver.resolverTodos(anyCollection())).thenAnswer(i -> {
+            Map<String, UidResueltoDTO> resueltos = new HashMap<>();
+            for (String uid : i.<Collection<String>>getArgument(0)) {
+                if (uids.containsKey(uid)) {
+                    resueltos.put(uid, uids.get(uid));
+                }
+            }
+            return resueltos;
+        });
+        experienciaService = mock(ExperienciaService.class);
+        usuarioRepo = mock(UsuarioRepository.class);
+        when(usuarioRepo.sumarPuntos(eq(usuarioId), anyInt())).thenReturn(1);
+        difusionClasificacion = mock(DifusionClasificacion.class);
+
+        pasaporteService = new PasaporteService(registroRepo, mock(ExperienciaUIDRepository.class), usuarioRepo,
+                mock(ExperienciaRepository.class), mock(EntityManager.class), uidResolver, experienciaService,
+                mock(ResumenPasaporteCache.class), mock(Clasificacion.class), mock(ClasificacionPorPeriodo.class),
+                mock(ClasificacionVisitas.class), difusionClasificacion, mock(EstadisticasExperiencias.class),
+                Duration.ofDays(7));
+    }
+
+    @Test
+    void cadaRegistroDelLoteLlegaALaActividadReciente() {
+        UUID castillo = experiencia("CASTILLO", "Castillo", 10);
+        UUID ermita = experiencia("ERMITA", "Ermita", 20);
+        UUID museo = experiencia("MUSEO", "Museo", 5);
+        yaRegistradas.add(museo);
+
+        RegistroLoteResponse respuesta = pasaporteService.registrarLote(usuarioId,
+                lote(escaneo("CASTILLO"), escaneo("ERMITA"), escaneo("CASTILLO"), escaneo("MUSEO"), escaneo("NOEXISTE")));
+
+        assertEquals(List.of(EstadoRegistro.REGISTRADO, EstadoRegistro.REGISTRADO, EstadoRegistro.DUPLICADO,
+                        EstadoRegistro.DUPLICADO, EstadoRegistro.UID_INVALIDO),
+                respuesta.getResultados().stream().map(ResultadoEscaneoDTO::getEstado).toList());
+        assertEquals(30, respuesta.getPuntosSumados());
+        verify(usuarioRepo).sumarPuntos(usuarioId, 30);
+
+        ArgumentCaptor<RegistroExperienciaDTO> actividad = ArgumentCaptor.forClass(RegistroExperienciaDTO.class);
+        verify(difusionClasificacion, times(2)).registrarActividad(actividad.capture());
+        assertEquals(List.of(castillo, ermita),
+                actividad.getAllValues().stream().map(RegistroExperienciaDTO::getExperienciaId).toList());
+    }
+
+    @Test
+    void unLoteSinRegistrosNuevosNoTocaNada() {
+        UUID museo = experiencia("MUSEO", "Museo", 5);
+        yaRegistradas.add(museo);
+
+        RegistroLoteResponse respuesta = pasaporteService.registrarLote(usuarioId, lote(escaneo("MUSEO")));
+
+        assertEquals(0, respuesta.getRegistrados());
+        verify(usuarioRepo, never()).sumarPuntos(any(), anyInt());
+        verifyNoInteractions(difusionClasificacion);
+    }
+
+    @Test
+    void todoElLoteCuestaUnaConsultaDeUidsOtraDeRegistradasYUnaInsercion() {
+        experiencia("CASTILLO", "Castillo", 10);
+        experiencia("ERMITA", "Ermita", 20);
+        experiencia("MUSEO", "Museo", 5);
+
+        RegistroLoteResponse respuesta = pasaporteService.registrarLote(usuarioId,
+                lote(escaneo("CASTILLO"), escaneo("ERMITA"), escaneo("MUSEO")));
+
+        assertEquals(3, respuesta.getRegistrados());
+        verify(uidResolver, times(1)).resolverTodos(anyCollection());
+        verify(registroRepo, times(1)).findExperienciasRegistradas(eq(usuarioId), anyCollection());
+        ArgumentCaptor<List<RegistroExperiencia>> insertados = ArgumentCaptor.forClass(List.class);
+        verify(registroRepo, times(1)).saveAll(insertados.capture());
+        assertEquals(3, insertados.getValue().size());
+        verify(usuarioRepo, times(1)).sumarPuntos(usuarioId, 35);
+    }
+
+    @Test
+    void laHoraDelDispositivoSeAcotaALaVentanaOffline() {
+        Instant ahora = Instant.now();
+        experiencia("CASTILLO", "Castillo", 10);
+        experiencia("ERMITA", "Ermita", 10);
+        experiencia("MUSEO", "Museo", 10);
+        experiencia("PUENTE", "Puente", 10, ahora.minus(Duration.ofHours(1)));
+
+        RegistroLoteResponse respuesta = pasaporteService.registrarLote(usuarioId, lote(
+                escaneo("CASTILLO", ahora.minus(Duration.ofHours(5))),
+                escaneo("ERMITA", ahora.plus(Duration.ofDays(1))),
+                escaneo("MUSEO", ahora.minus(Duration.ofDays(30))),
+                escaneo("PUENTE", ahora.minus(Duration.ofHours(3)))));
+
+        List<Instant> fechas = respuesta.getResultados().stream().map(r -> r.getRegistro().getFechaRegistro()).toList();
+        // Dentro de la ventana: la hora del dispositivo
+        assertEquals(ahora.minus(Duration.ofHours(5)), fechas.get(0));
+        // En el futuro: la hora del servidor
+        assertFalse(fechas.get(1).isBefore(ahora));
+        assertFalse(fechas.get(1).isAfter(Instant.now()));
+        // Más antigua que la ventana de 7 días: el inicio de la ventana
+        assertFalse(fechas.get(2).isBefore(ahora.minus(Duration.ofDays(7))));
+        assertTrue(fechas.get(2).isBefore(ahora.minus(Duration.ofDays(6))));
+        // Anterior a la generación del UID: la fecha de generación
+        assertEquals(ahora.minus(Duration.ofHours(1)), fechas.get(3));
+    }
+
+    private UUID experiencia(String uid, String titulo, int puntos) {
+        return experiencia(uid, titulo, puntos, Instant.now().minus(Duration.ofDays(30)));
+    }
+
+    private UUID experiencia(String uid, String titulo, int puntos, Instant generado) {
+        UUID id = UUID.randomUUID();
+        uids.put(uid, new UidResueltoDTO(uid, UUID.randomUUID(), id, generado));
+        when(experienciaService.getExperienciaById(id)).thenReturn(new ExperienciaDetailDTO(id, titulo, null,
+                "MONUMENTO", null, List.of(), null, null, null, puntos, true));
+        return id;
+    }
+
+    private static EscaneoOffline escaneo(String uid) {
+        EscaneoOffline escaneo = new EscaneoOffline();
+        escaneo.setUidScaneado(uid);
+        return escaneo;
+    }
+
+    private static EscaneoOffline escaneo(String uid, Instant scannedAt) {
+        EscaneoOffline escaneo = escaneo(uid);
+        escaneo.setScannedAt(scannedAt);
+        return escaneo;
+    }
+
+    private static RegistroLoteRequest lote(EscaneoOffline... escaneos) {
+        RegistroLoteRequest request = new RegistroLoteRequest();
+        request.setEscaneos(List.of(escaneos));
+        return request;
+    }
+}
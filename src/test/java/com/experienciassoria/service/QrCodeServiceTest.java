@@ -0,0 +1,118 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.dto.experiencia.QrImagenDTO;
+import com.experienciassoria.exception.ResourceNotFoundException;
+import com.experienciassoria.model.Experiencia;
+import com.experienciassoria.model.ExperienciaUID;
+import com.experienciassoria.repository.ExperienciaUIDRepository;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class QrCodeServiceTest {
+
+    private final UUID uidId = UUID.randomUUID();
+    private final UUID experienciaId = UUID.randomUUID();
+    private ExperienciaUIDRepository repositorio;
+    private QrCodeService qrCodeService;
+
+    @BeforeEach
+    void preparar() {
+        Experiencia experiencia = new Experiencia();
+        experiencia.setId(experienciaId);
+        repositorio = mock(ExperienciaUIDRepository.class);
+        when(repositorio.findById(uidId)).thenReturn(Optional.of(
+                ExperienciaUID.builder().id(uidId).uid("K7M2XQ9PRT4WZ8HN").experiencia(experiencia).build()));
+        qrCodeService = new QrCodeService(repositorio, new SimpleMeterRegistry(), 1, 300, 1, ErrorCorrectionLevel.H, 100);
+    }
+
+    @AfterEach
+    void cerrar() {
+        qrCodeService.shutdown();
+    }
+
+    @Test
+    void elPngContieneElUid() throws Exception {
+        QrImagenDTO qr = qrCodeService.getQrPng(uidId);
+
+        assertEquals("K7M2XQ9PRT4WZ8HN", leerQr(qr.getPng()));
+        assertTrue(qr.getEtag().startsWith("\""));
+    }
+
+    @Test
+    void unPngYaRenderizadoNoConsultaLaBd() {
+        QrImagenDTO primero = qrCodeService.getQrPng(uidId);
+        QrImagenDTO segundo = qrCodeService.getQrPng(uidId);
+
+        assertSame(primero, segundo);
+        verify(repositorio, times(1)).findById(uidId);
+    }
+
+    @Test
+    void alEliminarLaExperienciaSeOlvidanSusQr() {
+        qrCodeService.getQrPng(uidId);
+        qrCodeService.invalidarExperiencia(experienciaId);
+        when(repositorio.findById(uidId)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> qrCodeService.getQrPng(uidId));
+    }
+
+    @Test
+    void elZipLlevaUnPngPorUidEnOrdenLeyendoPorLotes() throws Exception {
+        List<String> activos = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            activos.add(String.format("UID%013d", i));
+        }
+        when(repositorio.findUidsActivosByExperiencia(eq(experienciaId), any(), any(Pageable.class))).thenAnswer(i -> {
+            String despuesDe = i.getArgument(1);
+            int desde = despuesDe == null ? 0 : activos.indexOf(despuesDe) + 1;
+            int tamano = i.<Pageable>getArgument(2).getPageSize();
+            return activos.subList(desde, Math.min(desde + tamano, activos.size()));
+        });
+
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        qrCodeService.exportarZip(experienciaId, salida);
+
+        List<String> nombres = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(salida.toByteArray()))) {
+            for (ZipEntry entrada = zip.getNextEntry(); entrada != null; entrada = zip.getNextEntry()) {
+                nombres.add(entrada.getName());
+                byte[] png = zip.readAllBytes();
+                if (nombres.size() == 1) {
+                    assertEquals(activos.get(0), leerQr(png));
+                }
+            }
+        }
+        assertEquals(activos.stream().map(uid -> uid + ".png").toList(), nombres);
+        // 256 + 44 y una consulta vacía que cierra la exportación
+        verify(repositorio, times(3)).findUidsActivosByExperiencia(eq(experienciaId), any(), any(Pageable.class));
+    }
+
+    private static String leerQr(byte[] png) throws Exception {
+        BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(
+                new BufferedImageLuminanceSource(ImageIO.read(new ByteArrayInputStream(png)))));
+        return new QRCodeReader().decode(bitmap).getText();
+    }
+}
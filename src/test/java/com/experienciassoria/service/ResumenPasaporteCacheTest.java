@@ -0,0 +1,60 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.dto.pasaporte.RegistroExperienciaDTO;
+import com.experienciassoria.model.Experiencia;
+import com.experienciassoria.repository.RegistroExperienciaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ResumenPasaporteCacheTest {
+
+    private final UUID ana = UUID.randomUUID();
+    private final UUID luis = UUID.randomUUID();
+    private final UUID marta = UUID.randomUUID();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RegistroExperienciaRepository repositorio;
+    private ResumenPasaporteCache cache;
+
+    @BeforeEach
+    void preparar() {
+        repositorio = mock(RegistroExperienciaRepository.class);
+        when(repositorio.findResumenPorCategoria(any())).thenReturn(List.of());
+        when(repositorio.findUltimasVisitas(any())).thenReturn(List.of());
+        cache = new ResumenPasaporteCache(repositorio, 2, meterRegistry);
+    }
+
+    @Test
+    void alLlenarseDescartaSoloElMenosUsado() {
+        cache.obtener(ana);
+        cache.obtener(luis);
+        cache.obtener(ana);
+        cache.obtener(marta);
+
+        assertEquals(2, meterRegistry.get("pasaporte.resumen.size").gauge().value());
+        cache.obtener(ana);
+        assertEquals(2, meterRegistry.get("pasaporte.resumen.hits").counter().count());
+        cache.obtener(luis);
+        assertEquals(4, meterRegistry.get("pasaporte.resumen.misses").counter().count());
+    }
+
+    @Test
+    void unRegistroNuevoSeSumaAlResumenEnMemoria() {
+        cache.obtener(ana);
+        cache.registrar(ana, List.of(new RegistroExperienciaDTO(UUID.randomUUID(), "Castillo", "MONUMENTO",
+                Instant.now(), null, null, 15)));
+
+        ResumenPasaporteCache.Resumen resumen = cache.obtener(ana);
+        assertEquals(1, resumen.getVisitadas(Experiencia.Categoria.MONUMENTO));
+        assertEquals(15, resumen.getPuntos());
+        assertEquals("Castillo", resumen.getUltimaVisita().getTitulo());
+        verify(repositorio, times(1)).findResumenPorCategoria(any());
+    }
+}
@@ -0,0 +1,110 @@
+package com.experienciassoria.service;
+
+import com.experienciassoria.dto.experiencia.UidResueltoDTO;
+import com.experienciassoria.repository.ExperienciaUIDRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class UidResolverTest {
+
+    private final UidResueltoDTO castillo = new UidResueltoDTO("CASTILLO", UUID.randomUUID(), UUID.randomUUID(), Instant.now());
+    private ExperienciaUIDRepository repositorio;
+    private FiltroUidsActivos filtro;
+
+    @BeforeEach
+    void preparar() {
+        repositorio = mock(ExperienciaUIDRepository.class);
+        when(repositorio.findResueltoByUid(anyString())).thenReturn(Optional.empty());
+        when(repositorio.findResueltoByUid("CASTILLO")).thenReturn(Optional.of(castillo));
+        filtro = mock(FiltroUidsActivos.class);
+        when(filtro.puedeExistir(anyString())).thenReturn(true);
+    }
+
+    @AfterEach
+    void limpiar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void losEscaneosRepetidosNoConsultanLaBd() {
+        UidResolver resolver = resolver(60_000);
+
+        assertSame(castillo, resolver.resolver("CASTILLO").orElseThrow());
+        assertSame(castillo, resolver.resolver("CASTILLO").orElseThrow());
+        assertTrue(resolver.resolver("NOEXISTE").isEmpty());
+        assertTrue(resolver.resolver("NOEXISTE").isEmpty());
+
+        verify(repositorio, times(1)).findResueltoByUid("CASTILLO");
+        verify(repositorio, times(1)).findResueltoByUid("NOEXISTE");
+    }
+
+    @Test
+    void lasEntradasNegativasCaducan() {
+        UidResolver resolver = resolver(0);
+
+        resolver.resolver("NOEXISTE");
+        resolver.resolver("NOEXISTE");
+
+        verify(repositorio, times(2)).findResueltoByUid("NOEXISTE");
+    }
+
+    @Test
+    void unUidQueElFiltroDescartaNoLlegaALaBd() {
+        when(filtro.puedeExistir("INVENTADO")).thenReturn(false);
+
+        assertTrue(resolver(60_000).resolver("INVENTADO").isEmpty());
+        verifyNoInteractions(repositorio);
+    }
+
+    @Test
+    void dentroDeUnaTransaccionSeInvalidaTrasElCommit() {
+        UidResolver resolver = resolver(60_000);
+        resolver.resolver("CASTILLO");
+
+        TransactionSynchronizationManager.initSynchronization();
+        resolver.invalidar("CASTILLO");
+        resolver.resolver("CASTILLO");
+        verify(repositorio, times(1)).findResueltoByUid("CASTILLO");
+
+        List<TransactionSynchronization> sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        sincronizaciones.forEach(TransactionSynchronization::afterCommit);
+        resolver.resolver("CASTILLO");
+        verify(repositorio, times(2)).findResueltoByUid("CASTILLO");
+    }
+
+    @Test
+    void resolverTodosConsultaDeUnaVezSoloLosQueFaltan() {
+        UidResolver resolver = resolver(60_000);
+        resolver.resolver("CASTILLO");
+        UidResueltoDTO ermita = new UidResueltoDTO("ERMITA", UUID.randomUUID(), UUID.randomUUID(), Instant.now());
+        when(repositorio.findResueltosByUids(Set.of("ERMITA", "NOEXISTE"))).thenReturn(List.of(ermita));
+
+        var resueltos = resolver.resolverTodos(List.of("CASTILLO", "ERMITA", "NOEXISTE"));
+
+        assertEquals(Set.of("CASTILLO", "ERMITA"), resueltos.keySet());
+        verify(repositorio, times(1)).findResueltosByUids(Set.of("ERMITA", "NOEXISTE"));
+        assertTrue(resolver.resolver("NOEXISTE").isEmpty());
+        verify(repositorio, never()).findResueltoByUid("NOEXISTE");
+    }
+
+    private UidResolver resolver(long ttlNegativoMs) {
+        return new UidResolver(repositorio, filtro, 100, ttlNegativoMs, new SimpleMeterRegistry());
+    }
+}
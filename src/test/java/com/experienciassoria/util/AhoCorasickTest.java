@@ -0,0 +1,81 @@
+package com.experienciassoria.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AhoCorasickTest {
+
+    @Test
+    void encuentraCoincidenciasSolapadasEnOrdenDeFin() {
+        AhoCorasick<String> automata = AhoCorasick.construir(patrones("he", "she", "his", "hers"));
+
+        assertEquals(List.of(
+                new AhoCorasick.Coincidencia<>(1, 4, "she"),
+                new AhoCorasick.Coincidencia<>(2, 4, "he"),
+                new AhoCorasick.Coincidencia<>(2, 6, "hers")
+        ), automata.buscar("ushers"));
+    }
+
+    @Test
+    void sinCoincidenciasNiPatronesVacios() {
+        AhoCorasick<String> automata = AhoCorasick.construir(patrones("", "tonto"));
+
+        assertEquals(1, automata.size());
+        assertEquals(List.of(), automata.buscar("un comentario amable"));
+        assertEquals(List.of(), automata.buscar(""));
+        assertEquals(List.of(), AhoCorasick.construir(Map.<String, String>of()).buscar("texto"));
+    }
+
+    @Test
+    void patronesQueSonSufijosDeOtros() {
+        AhoCorasick<String> automata = AhoCorasick.construir(patrones("a", "aa", "aaa"));
+
+        // "aaa": a@0, a@1, aa@0, a@2, aa@1, aaa@0
+        assertEquals(6, automata.buscar("aaa").size());
+    }
+
+    @Test
+    void coincideConLaBusquedaIngenua() {
+        Random random = new Random(99);
+        for (int ronda = 0; ronda < 200; ronda++) {
+            Set<String> conjunto = new HashSet<>();
+            for (int i = 0; i < 1 + random.nextInt(20); i++) {
+                conjunto.add(aleatoria(random, 1 + random.nextInt(4)));
+            }
+            String texto = aleatoria(random, random.nextInt(200));
+            AhoCorasick<String> automata = AhoCorasick.construir(patrones(conjunto.toArray(String[]::new)));
+
+            assertEquals(ingenua(conjunto, texto), new HashSet<>(automata.buscar(texto)));
+        }
+    }
+
+    private static Set<AhoCorasick.Coincidencia<String>> ingenua(Set<String> patrones, String texto) {
+        Set<AhoCorasick.Coincidencia<String>> coincidencias = new HashSet<>();
+        for (String patron : patrones) {
+            for (int i = texto.indexOf(patron); i >= 0; i = texto.indexOf(patron, i + 1)) {
+                coincidencias.add(new AhoCorasick.Coincidencia<>(i, i + patron.length(), patron));
+            }
+        }
+        return coincidencias;
+    }
+
+    // Alfabeto pequeño para forzar prefijos y sufijos compartidos
+    private static String aleatoria(Random random, int longitud) {
+        char[] texto = new char[longitud];
+        for (int i = 0; i < longitud; i++) {
+            texto[i] = "abcñ".charAt(random.nextInt(4));
+        }
+        return new String(texto);
+    }
+
+    private static Map<String, String> patrones(String... textos) {
+        Map<String, String> patrones = new LinkedHashMap<>();
+        for (String texto : textos) {
+            patrones.put(texto, texto);
+        }
+        return patrones;
+    }
+}
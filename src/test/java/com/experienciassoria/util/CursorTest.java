@@ -0,0 +1,37 @@
+package com.experienciassoria.util;
+
+import com.experienciassoria.exception.ValidationException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorTest {
+
+    @Test
+    void idaYVuelta() {
+        String cursor = Cursor.encode("ávila románica", "4b7afbcb-58d9-458c-a455-b6670dfff57f");
+
+        assertArrayEquals(new String[]{"ávila románica", "4b7afbcb-58d9-458c-a455-b6670dfff57f"},
+                Cursor.decode(cursor, 2));
+    }
+
+    @Test
+    void esSeguroEnUrls() {
+        String cursor = Cursor.encode("¿?&=/+ñ", "");
+
+        assertTrue(cursor.matches("[A-Za-z0-9_-]+"), cursor);
+        assertArrayEquals(new String[]{"¿?&=/+ñ", ""}, Cursor.decode(cursor, 2));
+    }
+
+    @Test
+    void conservaLasPartesVacias() {
+        assertArrayEquals(new String[]{"", "", ""}, Cursor.decode(Cursor.encode("", "", ""), 3));
+    }
+
+    @Test
+    void rechazaCursoresMalFormados() {
+        assertThrows(ValidationException.class, () -> Cursor.decode("no es base64!", 2));
+        assertThrows(ValidationException.class, () -> Cursor.decode(Cursor.encode("solo una"), 2));
+        assertThrows(ValidationException.class, () -> Cursor.decode(Cursor.encode("a", "b", "c"), 2));
+    }
+}
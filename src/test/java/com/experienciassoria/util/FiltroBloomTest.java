@@ -0,0 +1,68 @@
+package com.experienciassoria.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FiltroBloomTest {
+
+    @Test
+    void sinFalsosNegativosYConLaTasaDeFalsosPositivosEsperada() {
+        FiltroBloom filtro = FiltroBloom.paraCapacidad(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filtro.add("UID-" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filtro.mightContain("UID-" + i));
+        }
+        int falsosPositivos = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filtro.mightContain("OTRO-" + i)) {
+                falsosPositivos++;
+            }
+        }
+        // 1 % esperado: margen amplio para que la prueba no dependa del reparto concreto de los hashes
+        assertTrue(falsosPositivos < 2_000, "falsos positivos: " + falsosPositivos);
+        assertEquals(10_000, filtro.getInsertados());
+        assertEquals(0.01, filtro.probabilidadFalsoPositivo(), 0.005);
+    }
+
+    @Test
+    void filtroVacioNoContieneNada() {
+        FiltroBloom filtro = FiltroBloom.paraCapacidad(100, 0.01);
+
+        assertFalse(filtro.mightContain("UID"));
+        assertEquals(0, filtro.probabilidadFalsoPositivo());
+    }
+
+    @Test
+    void insercionesConcurrentesNoPierdenBits() throws Exception {
+        FiltroBloom filtro = FiltroBloom.paraCapacidad(80_000, 0.01);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int hilo = 0; hilo < 8; hilo++) {
+            int base = hilo * 10_000;
+            tareas.add(pool.submit(() -> {
+                for (int i = base; i < base + 10_000; i++) {
+                    filtro.add("UID-" + i);
+                }
+            }));
+        }
+        for (Future<?> tarea : tareas) {
+            tarea.get();
+        }
+        pool.shutdown();
+
+        for (int i = 0; i < 80_000; i++) {
+            assertTrue(filtro.mightContain("UID-" + i), "falso negativo: UID-" + i);
+        }
+        assertEquals(80_000, filtro.getInsertados());
+    }
+}
@@ -0,0 +1,81 @@
+package com.experienciassoria.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SkipListIndexadaTest {
+
+    @Test
+    void mantieneOrdenYPosiciones() {
+        SkipListIndexada<Integer> lista = new SkipListIndexada<>(Comparator.naturalOrder());
+        for (int valor : new int[]{50, 10, 40, 20, 30}) {
+            lista.add(valor);
+        }
+
+        assertEquals(5, lista.size());
+        assertEquals(List.of(10, 20, 30, 40, 50), lista.rango(0, 10));
+        assertEquals(List.of(20, 30), lista.rango(1, 2));
+        assertEquals(0, lista.contarAnteriores(10));
+        assertEquals(2, lista.contarAnteriores(25));
+        assertEquals(5, lista.contarAnteriores(99));
+    }
+
+    @Test
+    void borrarActualizaLasPosiciones() {
+        SkipListIndexada<Integer> lista = new SkipListIndexada<>(Comparator.naturalOrder());
+        for (int i = 1; i <= 5; i++) {
+            lista.add(i);
+        }
+
+        assertTrue(lista.remove(3));
+        assertFalse(lista.remove(3));
+        assertFalse(lista.remove(42));
+        assertEquals(4, lista.size());
+        assertEquals(List.of(1, 2, 4, 5), lista.rango(0, 10));
+        assertEquals(2, lista.contarAnteriores(4));
+    }
+
+    @Test
+    void rangosFueraDeLimitesDevuelvenLoQueHay() {
+        SkipListIndexada<Integer> lista = new SkipListIndexada<>(Comparator.naturalOrder());
+        assertEquals(List.of(), lista.rango(0, 5));
+        lista.add(1);
+        lista.add(2);
+
+        assertEquals(List.of(2), lista.rango(1, 5));
+        assertEquals(List.of(), lista.rango(2, 5));
+        assertEquals(List.of(), lista.rango(-1, 5));
+        assertEquals(List.of(), lista.rango(0, 0));
+    }
+
+    @Test
+    void coincideConUnaListaOrdenadaTrasOperacionesAleatorias() {
+        // Orden descendente, como las clasificaciones
+        Comparator<Integer> orden = Comparator.reverseOrder();
+        SkipListIndexada<Integer> lista = new SkipListIndexada<>(orden);
+        TreeSet<Integer> modelo = new TreeSet<>(orden);
+        Random random = new Random(1234);
+
+        for (int paso = 0; paso < 20_000; paso++) {
+            int valor = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(modelo.remove(valor), lista.remove(valor));
+            } else if (modelo.add(valor)) {
+                lista.add(valor);
+            }
+
+            if (paso % 500 == 0) {
+                List<Integer> esperado = new ArrayList<>(modelo);
+                assertEquals(esperado.size(), lista.size());
+                assertEquals(esperado, lista.rango(0, esperado.size()));
+                int desde = random.nextInt(esperado.size() + 1);
+                assertEquals(esperado.subList(desde, Math.min(esperado.size(), desde + 25)), lista.rango(desde, 25));
+                int sonda = random.nextInt(2_000);
+                assertEquals(modelo.headSet(sonda, false).size(), lista.contarAnteriores(sonda));
+            }
+        }
+    }
+}